@@ -0,0 +1,9 @@
+/**
+ * Second source file of the bulk breakpoint e2e fixture (see BulkTest.java).
+ * The return statement is line 7.
+ */
+public class BulkHelper {
+    static int twice(int n) {
+        return n * 2;
+    }
+}
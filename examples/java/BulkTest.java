@@ -0,0 +1,13 @@
+/**
+ * Bulk breakpoint e2e fixture, compiled together with BulkHelper.java.
+ * Line numbers are asserted by mcp-server-smoke-java-breakpoints-bulk.test.ts —
+ * keep the layout stable: the call into BulkHelper is line 10, the final
+ * print line 11.
+ */
+public class BulkTest {
+    public static void main(String[] args) {
+        int base = 20;
+        int doubled = BulkHelper.twice(base);
+        System.out.println("Doubled: " + doubled);
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Condition, hit-count and condition-pushdown e2e fixture.
+ * Line numbers are asserted by mcp-server-smoke-java-conditions.test.ts —
+ * keep the layout stable: the step() body is line 24 (this and i in
+ * scope), the length line in main is line 30 (i and label in scope).
+ */
+public class ConditionTest {
+    static final ConditionTest FIRST = new ConditionTest("first");
+    static final ConditionTest SECOND = new ConditionTest("second");
+    static int marks;
+
+    final String name;
+
+    ConditionTest(String name) {
+        this.name = name;
+    }
+
+    static boolean mark(int i) {
+        marks++;
+        return false;
+    }
+
+    void step(int i) {
+        int seen = i;
+    }
+
+    public static void main(String[] args) {
+        for (int i = 0; i < 6; i++) {
+            String label = i % 2 == 0 ? null : "item" + i;
+            int length = label == null ? 0 : label.length();
+            FIRST.step(i);
+            SECOND.step(i);
+        }
+        System.out.println("Marks: " + marks);
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Exception-filter e2e fixture.
+ * Line numbers are asserted by mcp-server-smoke-java-exception-filters.test.ts —
+ * keep the layout stable: the hot IllegalStateException throw is line 25,
+ * the IllegalArgumentException swallowed by Quiet is thrown on line 13, the
+ * one caught in main on line 32.
+ */
+public class ExceptionFilterTest {
+    static class Quiet {
+        static int swallow() {
+            int swallowed = 0;
+            try {
+                throw new IllegalArgumentException("swallowed by Quiet");
+            } catch (IllegalArgumentException e) {
+                swallowed++;
+            }
+            return swallowed;
+        }
+    }
+
+    public static void main(String[] args) {
+        int caught = 0;
+        for (int i = 0; i < 5; i++) {
+            try {
+                throw new IllegalStateException("hot " + i);
+            } catch (IllegalStateException e) {
+                caught++;
+            }
+        }
+        caught += Quiet.swallow();
+        try {
+            throw new IllegalArgumentException("caught in main");
+        } catch (IllegalArgumentException e) {
+            caught++;
+        }
+        System.out.println("Caught: " + caught);
+    }
+}
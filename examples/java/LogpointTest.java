@@ -0,0 +1,22 @@
+/**
+ * Logpoint and breakpoint-id e2e fixture.
+ * Line numbers are asserted by mcp-server-smoke-java-logpoint.test.ts —
+ * keep the layout stable: the loop body is line 12 (i and total in scope),
+ * the "Total" print line 15, the hot loop body line 18, the last print
+ * line 20.
+ */
+public class LogpointTest {
+    public static void main(String[] args) throws InterruptedException {
+        int total = 0;
+        for (int i = 0; i < 5; i++) {
+            total += i;
+            Thread.sleep(50);
+        }
+        System.out.println("Total: " + total);
+        long hot = 0;
+        for (int n = 0; n < 2000; n++) {
+            hot += n;
+        }
+        System.out.println("Hot: " + hot);
+    }
+}
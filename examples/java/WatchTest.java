@@ -0,0 +1,22 @@
+/**
+ * Data-breakpoint (field watchpoint) e2e fixture.
+ * Line numbers are asserted by mcp-server-smoke-java-data-breakpoints.test.ts —
+ * keep the layout stable: the first loop body line is line 16 (left and
+ * right in scope).
+ */
+public class WatchTest {
+    static int count;
+
+    int value;
+
+    public static void main(String[] args) {
+        WatchTest left = new WatchTest();
+        WatchTest right = new WatchTest();
+        for (int i = 0; i < 3; i++) {
+            left.value += 1;
+            right.value += 10;
+            count++;
+        }
+        System.out.println("Values: " + left.value + " " + right.value + " " + count);
+    }
+}
@@ -5,18 +5,23 @@ import com.sun.jdi.request.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Minimal DAP server using JDI (Java Debug Interface).
  *
  * Usage:
  *   java JdiDapServer --port <port>
+ *   java JdiDapServer --socket <path>
  *
- * Speaks Debug Adapter Protocol over TCP with Content-Length framing.
+ * Speaks Debug Adapter Protocol over loopback TCP, or over a Unix domain
+ * socket at {@code path}, with Content-Length framing.
  * Uses JDI internally to debug a target JVM (attach or launch).
  *
  * Zero external dependencies — JDI ships with every JDK.
@@ -46,6 +51,9 @@ public class JdiDapServer {
     private final ConcurrentHashMap<Integer, long[]> scopeRefMap = new ConcurrentHashMap<>();
     // Cache stack frames per thread for variable lookup
     private final ConcurrentHashMap<Long, List<StackFrame>> threadFrameCache = new ConcurrentHashMap<>();
+    // Bumped by clearFrameCache: an expansion that started before a resume
+    // notices it instead of holding the cache lock while it walks values
+    private volatile long frameGeneration;
 
     // --- Frame ID encoding (lookup table instead of arithmetic) ---
     private final AtomicInteger nextFrameId = new AtomicInteger(1);
@@ -54,29 +62,86 @@ public class JdiDapServer {
     // --- Breakpoint IDs ---
     private final AtomicInteger nextBreakpointId = new AtomicInteger(1);
 
-    // --- Deferred breakpoints (class not yet loaded) ---
-    // Map: sourcePath (FQCN or file path from DAP request) -> breakpoint info
-    private final ConcurrentHashMap<String, Map<String, Object>> deferredBreakpoints = new ConcurrentHashMap<>();
+    // --- Line breakpoints (see Line Breakpoints) ---
+    // Map: sourcePath (FQCN or file path from DAP request) -> registry of its lines
+    private final ConcurrentHashMap<String, SourceBreakpoints> sourceBreakpoints = new ConcurrentHashMap<>();
+    // Index over sourceBreakpoints so a ClassPrepareEvent finds its entry in
+    // O(1) while the VM is suspended. deferredByClassName keys each entry by
+    // its className (a simple name for file-path sources, an FQCN — possibly
+    // Outer$Inner — for FQCN sources); handleClassPrepared probes it with the
+    // prepared type's FQCN, outer FQCN, simple name and outer simple name.
+    // deferredByFileName is the fallback keyed by source file name (Foo.java),
+    // which also catches non-public top-level classes declared in Foo.java.
+    // Values are sourcePaths in registration order; maintained by
+    // registerSource, the only writer of sourceBreakpoints.
+    private final ConcurrentHashMap<String, Set<String>> deferredByClassName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> deferredByFileName = new ConcurrentHashMap<>();
+
+    // --- Loaded classes (see Loaded Class Index) ---
+    private final LoadedClassIndex classIndex = new LoadedClassIndex();
     // Track source paths for deferred breakpoint responses
     private final ConcurrentHashMap<String, String> sourcePathMap = new ConcurrentHashMap<>();
 
     // --- Function breakpoints (issue #292) ---
     // Records for the current setFunctionBreakpoints generation, in request
     // order. Guarded by fnBpLock: handleSetFunctionBreakpoints runs on the
-    // socket-reader thread while deferred binding runs on the jdi-event-loop
-    // thread. Each record keeps the id assigned in the response — the client
-    // matches function breakpoints by that id alone, so later breakpoint
-    // events must reuse it (unlike line breakpoints, which tolerate fresh ids
-    // via the client's file/line fallback).
+    // "session" lane's virtual thread (see laneFor) while deferred binding
+    // runs on the jdi-event-loop thread. Each record keeps the id assigned
+    // in the response — the client matches function breakpoints by that id
+    // alone, so later breakpoint events must reuse it.
     private final Object fnBpLock = new Object();
     private final List<Map<String, Object>> functionBreakpoints = new ArrayList<>();
+    // Bound requests by breakpoint name, then entry Location: the duplicate
+    // check when binding is a hash probe, not a pass over every request in
+    // the VM. Guarded by fnBpLock like the records.
+    private final Map<String, Map<Location, BreakpointRequest>> fnBpRequests = new HashMap<>();
+    // Breakpoint stops still holding their thread(s), by stopped thread id;
+    // the resuming continue/step charges the time to their statistics.
+    private final ConcurrentHashMap<Long, SuspendedHit> suspendedHits = new ConcurrentHashMap<>();
+
+    // --- Exception breakpoints (see Exception Breakpoints) ---
+    // The current setExceptionBreakpoints generation; guarded by
+    // exceptionBpLock against deferred binding on the event-loop thread.
+    private final Object exceptionBpLock = new Object();
+    private final List<ExceptionBreakpoint> exceptionBreakpoints = new ArrayList<>();
+    // Filter-condition syntax advertised in exceptionBreakpointFilters
+    private static final String EXCEPTION_CONDITION_HELP =
+            "Comma-separated: exception types, !Type, in:pkg.*, !in:pkg.*, !caughtIn:pkg.*, once, every:N";
+
+    // --- Data breakpoints (see Data Breakpoints) ---
+    // The current setDataBreakpoints generation, guarded by dataBpLock as the
+    // function-breakpoint records are by fnBpLock.
+    private final Object dataBpLock = new Object();
+    private final List<DataBreakpoint> dataBreakpoints = new ArrayList<>();
+    // Objects behind object-bound dataIds, by uniqueID. dataBreakpointInfo
+    // records them because varRefMap is cleared on every resume, before a
+    // client may get to setDataBreakpoints.
+    private final ConcurrentHashMap<Long, ObjectReference> watchedObjects = new ConcurrentHashMap<>();
 
     // --- IO ---
-    private volatile OutputStream clientOut;
+    private volatile OutboundWriter outbound;
+    // Outbound body encoding, switched to CBOR by the setWireFormat request
+    private volatile boolean cborFraming = false;
     private volatile boolean running = true;
     private volatile boolean launchSuspended = false; // true if we launched with suspend=y
     private volatile boolean stopOnEntry = true; // whether to stop on entry in launch mode
     private volatile boolean lastStopAllThreads = true; // tracks whether last stop suspended all threads
+    private final OutputAggregator targetOutput = new OutputAggregator(); // launch mode stdout/stderr, logpoints
+    private final RequestLanes lanes = new RequestLanes();
+    private final EventThrottle throttle = new EventThrottle();
+
+    // --- Cancellation / bounded invocations ---
+    // Laned requests that are queued or running, by request seq; 'cancel' flips
+    // the token and long handlers poll it.
+    private final ConcurrentHashMap<Integer, RequestToken> inFlight = new ConcurrentHashMap<>();
+    private static final long DEFAULT_INVOCATION_TIMEOUT_MS = 5000;
+    // Deadline for one target-method invocation (launch/attach "invocationTimeoutMs")
+    private volatile long invocationTimeoutMs = DEFAULT_INVOCATION_TIMEOUT_MS;
+    private static final long DEFAULT_LOGPOINT_RATE_LIMIT = 100;
+    // Messages per second one logpoint may emit (launch/attach "logpointRateLimit")
+    private volatile long logpointRateLimit = DEFAULT_LOGPOINT_RATE_LIMIT;
+    // Invocations given up on but still running in the target, by thread id
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> abandonedInvocations = new ConcurrentHashMap<>();
 
     // --- Exception stop state (retained for DAP exceptionInfo) ---
     // Written by the JDI event-loop thread, read by the socket-reader thread.
@@ -106,10 +171,14 @@ public class JdiDapServer {
 
     public static void main(String[] args) throws Exception {
         int port = 0;
+        String socketPath = null;
         for (int i = 0; i < args.length; i++) {
             if ("--port".equals(args[i]) && i + 1 < args.length) {
                 port = Integer.parseInt(args[i + 1]);
                 i++;
+            } else if ("--socket".equals(args[i]) && i + 1 < args.length) {
+                socketPath = args[i + 1];
+                i++;
             } else if ("--debug".equals(args[i])) {
                 debug = true;
             } else if ("--owner-pid".equals(args[i]) && i + 1 < args.length) {
@@ -122,8 +191,8 @@ public class JdiDapServer {
                 i++;
             }
         }
-        if (port == 0) {
-            System.err.println("Usage: java JdiDapServer --port <port> [--owner-pid <pid>] [--session-tag <tag>]");
+        if (port == 0 && socketPath == null) {
+            System.err.println("Usage: java JdiDapServer (--port <port> | --socket <path>) [--owner-pid <pid>] [--session-tag <tag>]");
             System.exit(1);
         }
         if (sessionTag.isEmpty()) {
@@ -144,110 +213,822 @@ public class JdiDapServer {
             }
         }, "mcp-debugger-jdi-cleanup"));
 
-        server.run(port);
+        if (socketPath != null) {
+            server.run(UnixDomainSocketAddress.of(socketPath));
+        } else {
+            server.run(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        }
     }
 
-    private void run(int port) throws Exception {
-        try (ServerSocket serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
-            log("JdiDapServer listening on port " + port);
-            Socket client = serverSocket.accept();
+    /**
+     * Serve one DAP client on {@code address}: a loopback TCP port, or a Unix
+     * domain socket path. The AF_UNIX transport skips the TCP/IP stack
+     * entirely (no checksums, no loopback routing, no Nagle) and is only
+     * reachable through the filesystem, so it is both cheaper per frame and
+     * scoped by the socket file's permissions.
+     */
+    private void run(SocketAddress address) throws Exception {
+        boolean unix = address instanceof UnixDomainSocketAddress;
+        java.nio.file.Path socketFile = unix ? ((UnixDomainSocketAddress) address).getPath() : null;
+        if (socketFile != null) {
+            // A crashed previous bridge leaves its socket file behind; bind would fail on it
+            java.nio.file.Files.deleteIfExists(socketFile);
+        }
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open(
+                unix ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET)) {
+            serverChannel.bind(address, 1);
+            log("JdiDapServer listening on " + (unix ? "socket " + socketFile
+                    : "port " + ((InetSocketAddress) address).getPort()));
+            SocketChannel client = serverChannel.accept();
             log("Client connected");
 
             try {
-                InputStream in = client.getInputStream();
-                clientOut = client.getOutputStream();
+                if (!unix) {
+                    // Small request/response pairs dominate — don't let Nagle hold them back
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                outbound = new OutboundWriter(client, throttle::afterBatch);
+                DapFrameReader reader = new DapFrameReader(client);
 
-                // Read DAP messages
+                // Read DAP messages; each one is handled on its lane (see dispatch)
                 while (running) {
-                    Map<String, Object> msg = readDapMessage(in);
-                    if (msg == null) {
+                    DapRequest request = new DapRequest();
+                    if (!readDapMessage(reader, request)) {
                         log("Client disconnected (EOF)");
                         break;
                     }
-                    handleMessage(msg);
+                    dispatch(request);
                 }
             } finally {
+                // Let already-queued responses/events (e.g. the disconnect
+                // response) reach the client before the socket goes away
+                if (outbound != null) outbound.close(2000);
                 client.close();
             }
-        } catch (SocketException e) {
+        } catch (IOException e) {
+            // SocketException, ClosedChannelException (socket closed under a
+            // blocked read during disconnect), malformed framing
             if (running) log("Socket error: " + e.getMessage());
         } finally {
+            if (socketFile != null) {
+                try {
+                    java.nio.file.Files.deleteIfExists(socketFile);
+                } catch (IOException e) { /* best effort */ }
+            }
             cleanup();
         }
     }
 
     // ========== DAP Transport ==========
 
-    private Map<String, Object> readDapMessage(InputStream in) throws IOException {
-        // Read Content-Length header
-        String line;
-        int contentLength = -1;
-        while ((line = readLine(in)) != null) {
-            if (line.isEmpty()) break; // empty line separates header from body
-            if (line.startsWith("Content-Length:")) {
-                contentLength = Integer.parseInt(line.substring(15).trim());
-            }
-        }
-        if (contentLength < 0) return null;
-
-        // Read body
-        byte[] body = new byte[contentLength];
-        int read = 0;
-        while (read < contentLength) {
-            int n = in.read(body, read, contentLength - read);
-            if (n < 0) return null;
-            read += n;
-        }
-
-        String json = new String(body, StandardCharsets.UTF_8);
-        logVerbose("<<< " + json);
-        return parseJson(json);
-    }
-
-    private String readLine(InputStream in) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        int c;
-        while ((c = in.read()) >= 0) {
-            if (c == '\r') {
-                int next = in.read();
-                if (next == '\n') break;
-                sb.append((char) c);
-                if (next >= 0) sb.append((char) next);
-            } else if (c == '\n') {
-                break;
-            } else {
-                sb.append((char) c);
+    /** Decode the next frame into {@code into}; false at end of stream. */
+    private boolean readDapMessage(DapFrameReader reader, DapRequest into) throws IOException {
+        ByteBuffer body = reader.next();
+        if (body == null) return false;
+        if (debug) {
+            logVerbose("<<< " + StandardCharsets.UTF_8.decode(body.duplicate()));
+        }
+        into.decode(body);
+        return true;
+    }
+
+    /**
+     * Route a request to the lane that keeps the ordering DAP needs, so a slow
+     * handler (a redefineClasses scan, an evaluate invoking target code, a
+     * huge array expansion) only delays requests that genuinely depend on it:
+     * <ul>
+     *   <li>control — pause/cancel (and the statistics counters) run inline
+     *       on the reader thread, never queued behind inspection work;
+     *       continue/disconnect/terminate run inline too unless earlier
+     *       session work is still pending, in which case they queue behind
+     *       it — a continue must not resume the VM before a preceding
+     *       setBreakpoints lands, nor a disconnect dispose it under a running
+     *       launch/attach. The reader waits for a queued disconnect, so it
+     *       still stops the read loop before the next read;</li>
+     *   <li>thread:&lt;id&gt; — stackTrace, steps, exceptionInfo, and
+     *       scopes/evaluate through the thread owning their frameId;</li>
+     *   <li>var:&lt;ref&gt; — variables, serial per reference;</li>
+     *   <li>threads — the thread list, so it never waits on the session lane;</li>
+     *   <li>session — everything else (initialize, launch/attach, breakpoint
+     *       configuration, redefineClasses) in arrival order.</li>
+     * </ul>
+     */
+    private void dispatch(DapRequest req) {
+        String lane = laneFor(req);
+        if (lane == null) {
+            handleMessage(req);
+            return;
+        }
+        RequestToken token = new RequestToken();
+        inFlight.put(req.seq, token);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        lanes.submit(lane, () -> {
+            try {
+                if (token.cancelled) {
+                    sendErrorResponse(req.seq, req.command, "cancelled");
+                } else {
+                    handleMessage(req);
+                }
+            } finally {
+                inFlight.remove(req.seq);
+                done.complete(null);
             }
+        });
+        if ("disconnect".equals(req.command)) done.join();
+    }
+
+    private String laneFor(DapRequest req) {
+        if (req.command == null) return "session";
+        switch (req.command) {
+            case "continue":
+            case "disconnect":
+            case "terminate":
+                // Only the reader thread submits, so an idle session lane
+                // stays idle until this request has run inline
+                return lanes.isBusy("session") ? "session" : null;
+            case "pause":
+            case "cancel":
+            case "transportStatistics":
+            case "breakpointStatistics":
+            case "exceptionSummary":
+                return null;
+            case "stackTrace":
+            case "next":
+            case "stepIn":
+            case "stepOut":
+                return "thread:" + req.threadId;
+            case "exceptionInfo":
+                return "thread:" + longVal(req.args, "threadId");
+            case "scopes":
+                return frameLane(req.frameId);
+            case "evaluate":
+                return req.hasFrameId ? frameLane(req.frameId) : "evaluate";
+            case "variables":
+                return "var:" + req.variablesReference;
+            case "threads":
+                return "threads";
+            default:
+                return "session";
         }
-        if (c < 0 && sb.length() == 0) return null;
-        return sb.toString();
     }
 
-    private synchronized void sendDapMessage(Map<String, Object> msg) {
-        try {
-            if (clientOut == null) return;
-            String json = toJson(msg);
-            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-            String header = "Content-Length: " + bytes.length + "\r\n\r\n";
-            clientOut.write(header.getBytes(StandardCharsets.UTF_8));
-            clientOut.write(bytes);
-            clientOut.flush();
-            logVerbose(">>> " + json);
-        } catch (IOException e) {
-            log("Send error: " + e.getMessage());
+    private String frameLane(int frameId) {
+        long[] decoded = decodeFrameId(frameId);
+        return decoded != null ? "thread:" + decoded[0] : "frame:" + frameId;
+    }
+
+    /** How long an evaluator may wait on target-method invocations, and what to do after. */
+    private static final class InvocationLimits {
+        final long timeoutMs;
+        final RequestToken token; // null when there is no request (breakpoint conditions)
+        final Map<Long, CompletableFuture<Void>> abandoned;
+
+        InvocationLimits(long timeoutMs, RequestToken token, Map<Long, CompletableFuture<Void>> abandoned) {
+            this.timeoutMs = timeoutMs;
+            this.token = token;
+            this.abandoned = abandoned;
+        }
+    }
+
+    /** A target-method invocation outlived its deadline. */
+    private static final class InvocationTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        InvocationTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    /** Cancellation flag of one laned request; see {@link #handleCancel}. */
+    private static final class RequestToken {
+        volatile boolean cancelled;
+
+        void throwIfCancelled() {
+            if (cancelled) throw new RequestCancelledException();
+        }
+    }
+
+    /** Unwinds a handler whose request was cancelled; answered with message "cancelled". */
+    private static final class RequestCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RequestCancelledException() {
+            super("cancelled", null, false, false);
+        }
+    }
+
+    /**
+     * Keyed serial executors on virtual threads: tasks with the same key run
+     * one at a time in submission order, different keys run concurrently. A
+     * lane exists only while it has work, so per-reference keys don't pile up.
+     */
+    private static final class RequestLanes {
+        private final Map<String, ArrayDeque<Runnable>> active = new HashMap<>(); // guarded by itself
+
+        void submit(String key, Runnable task) {
+            synchronized (active) {
+                ArrayDeque<Runnable> queue = active.get(key);
+                if (queue != null) {
+                    queue.add(task); // the lane's thread will get to it
+                    return;
+                }
+                queue = new ArrayDeque<>();
+                queue.add(task);
+                active.put(key, queue);
+                final ArrayDeque<Runnable> lane = queue;
+                Thread.ofVirtual().name("dap-lane-" + key).start(() -> drain(key, lane));
+            }
+        }
+
+        /** Whether the lane still has a task queued or running. */
+        boolean isBusy(String key) {
+            synchronized (active) {
+                return active.containsKey(key);
+            }
+        }
+
+        private void drain(String key, ArrayDeque<Runnable> lane) {
+            while (true) {
+                Runnable task;
+                synchronized (active) {
+                    task = lane.peek();
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log("Lane " + key + " task failed: " + e);
+                }
+                synchronized (active) {
+                    lane.poll();
+                    if (lane.isEmpty()) {
+                        active.remove(key);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * One decoded DAP message. The hot commands — the ones an agent fires in
+     * bulk while stopped (stackTrace/scopes/variables/evaluate) plus continue
+     * and the step commands — are pulled straight from the frame bytes into
+     * the typed fields below: no Map tree, no boxed numbers. Every other
+     * command keeps the generic argument tree in {@link #args}. Each message
+     * gets its own instance, since it is handed to another lane's thread.
+     */
+    private static final class DapRequest {
+        private static final String[] TYPES = {"request", "response", "event"};
+        private static final String[] HOT_COMMANDS = {
+            "stackTrace", "scopes", "variables", "evaluate", "continue", "next", "stepIn", "stepOut"
+        };
+
+        String type;
+        String command;
+        int seq;
+        Map<String, Object> args; // generic commands only (never null for them)
+
+        // Typed arguments of the hot commands (unused fields keep their defaults)
+        long threadId;
+        int frameId;
+        boolean hasFrameId;
+        int variablesReference;
+        String expression;
+
+        void decode(ByteBuffer body) {
+            type = null;
+            command = null;
+            seq = 0;
+            args = null;
+            threadId = 0;
+            frameId = 0;
+            hasFrameId = false;
+            variablesReference = 0;
+            expression = null;
+
+            if (CborReader.isCborMap(body)) {
+                decodeTree(asMap(new CborReader(body).read()));
+                return;
+            }
+            JsonParser p = new JsonParser(body);
+            int argumentsAt = -1;
+            boolean argumentsDone = false;
+            if (p.beginObject()) {
+                while (p.nextKey()) {
+                    if (p.keyIs("seq")) {
+                        seq = (int) p.nextLong();
+                    } else if (p.keyIs("type")) {
+                        type = p.nextString(TYPES);
+                    } else if (p.keyIs("command")) {
+                        command = p.nextString(HOT_COMMANDS);
+                    } else if (p.keyIs("arguments")) {
+                        // Clients usually send "command" first; if not, come back for it
+                        if (command != null) {
+                            decodeArguments(p);
+                            argumentsDone = true;
+                        } else {
+                            argumentsAt = p.position();
+                            p.skipValue();
+                        }
+                    } else {
+                        p.skipValue();
+                    }
+                }
+            }
+            if (!argumentsDone && argumentsAt >= 0) {
+                p.seek(argumentsAt);
+                decodeArguments(p);
+            }
+            if (args == null && !isHot()) {
+                args = new HashMap<>();
+            }
+        }
+
+        /** Fill the fields from an already-built message tree (CBOR frames). */
+        private void decodeTree(Map<String, Object> msg) {
+            seq = intVal(msg, "seq");
+            type = known(TYPES, str(msg, "type"));
+            command = known(HOT_COMMANDS, str(msg, "command"));
+            Map<String, Object> arguments = map(msg, "arguments");
+            if (!isHot()) {
+                args = arguments != null ? arguments : new HashMap<>();
+                return;
+            }
+            threadId = longVal(arguments, "threadId");
+            Integer frame = intValOrNull(arguments, "frameId");
+            hasFrameId = frame != null;
+            frameId = frame != null ? frame : 0;
+            variablesReference = intVal(arguments, "variablesReference");
+            expression = str(arguments, "expression");
+        }
+
+        private static String known(String[] table, String value) {
+            for (String k : table) {
+                if (k.equals(value)) return k;
+            }
+            return value;
+        }
+
+        private boolean isHot() {
+            for (String hot : HOT_COMMANDS) {
+                if (hot == command) return true; // nextString hands out the table's instances
+            }
+            return false;
+        }
+
+        private void decodeArguments(JsonParser p) {
+            if (!isHot()) {
+                Object tree = p.parseValue();
+                args = tree instanceof Map ? asMap(tree) : new HashMap<>();
+                return;
+            }
+            if (!p.beginObject()) {
+                p.skipValue();
+                return;
+            }
+            while (p.nextKey()) {
+                if (p.keyIs("threadId")) {
+                    threadId = p.nextLong();
+                } else if (p.keyIs("frameId")) {
+                    hasFrameId = p.isNumberOrNumericString();
+                    frameId = (int) p.nextLong();
+                } else if (p.keyIs("variablesReference")) {
+                    variablesReference = (int) p.nextLong();
+                } else if (p.keyIs("expression")) {
+                    expression = p.nextString(null);
+                } else {
+                    p.skipValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Content-Length framing over a blocking channel, reading into one
+     * reusable direct buffer. Headers are parsed in place (no per-byte
+     * reads, no header Strings), several frames delivered by a single read
+     * are served without touching the socket again, and each body is handed
+     * out as a slice of the buffer — valid only until the next call.
+     */
+    private static final class DapFrameReader {
+        private static final int INITIAL_CAPACITY = 64 * 1024;
+        private static final byte[] CONTENT_LENGTH = "Content-Length:".getBytes(StandardCharsets.US_ASCII);
+
+        private final ReadableByteChannel channel;
+        // Kept in read mode: [position, limit) holds received, unconsumed bytes
+        private ByteBuffer buf;
+
+        DapFrameReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buf = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+            this.buf.flip();
+        }
+
+        /** Next frame body, or null at end of stream. */
+        ByteBuffer next() throws IOException {
+            while (true) {
+                ByteBuffer body = parseFrame();
+                if (body != null) return body;
+                if (!fill()) return null;
+            }
+        }
+
+        /** Slice out one complete frame at the buffer position, or null if more bytes are needed. */
+        private ByteBuffer parseFrame() throws IOException {
+            int start = buf.position();
+            int limit = buf.limit();
+            int contentLength = -1;
+            int lineStart = start;
+            for (int i = start; i < limit; i++) {
+                if (buf.get(i) != '\n') continue;
+                int lineEnd = (i > lineStart && buf.get(i - 1) == '\r') ? i - 1 : i;
+                if (lineEnd == lineStart) {
+                    // Empty line separates header from body
+                    if (contentLength < 0) {
+                        throw new IOException("DAP message header without Content-Length");
+                    }
+                    int bodyStart = i + 1;
+                    if (limit - bodyStart < contentLength) {
+                        ensureCapacity(bodyStart - start + contentLength);
+                        return null;
+                    }
+                    ByteBuffer body = buf.slice(bodyStart, contentLength);
+                    buf.position(bodyStart + contentLength);
+                    return body;
+                }
+                if (startsWith(lineStart, lineEnd, CONTENT_LENGTH)) {
+                    contentLength = parseLength(lineStart + CONTENT_LENGTH.length, lineEnd);
+                }
+                lineStart = i + 1;
+            }
+            // Header incomplete; a header that fills the whole buffer forces growth
+            if (limit - start == buf.capacity()) {
+                ensureCapacity(buf.capacity() * 2);
+            }
+            return null;
+        }
+
+        private boolean startsWith(int from, int to, byte[] prefix) {
+            if (to - from < prefix.length) return false;
+            for (int i = 0; i < prefix.length; i++) {
+                if (buf.get(from + i) != prefix[i]) return false;
+            }
+            return true;
+        }
+
+        private int parseLength(int from, int to) throws IOException {
+            long value = 0;
+            boolean digits = false;
+            for (int i = from; i < to; i++) {
+                byte b = buf.get(i);
+                if (b == ' ' || b == '\t') {
+                    if (digits) break;
+                    continue;
+                }
+                if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                    throw new IOException("Invalid Content-Length header");
+                }
+                value = value * 10 + (b - '0');
+                digits = true;
+            }
+            if (!digits || value > Integer.MAX_VALUE) throw new IOException("Invalid Content-Length header");
+            return (int) value;
+        }
+
+        /** Make room for a frame of {@code needed} bytes starting at the buffer position. */
+        private void ensureCapacity(int needed) {
+            if (needed <= buf.capacity()) return;
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(needed, buf.capacity() * 2));
+            bigger.put(buf);
+            bigger.flip();
+            buf = bigger;
+        }
+
+        /** Read more bytes after the unconsumed tail; false at end of stream. */
+        private boolean fill() throws IOException {
+            buf.compact();
+            try {
+                return channel.read(buf) >= 0;
+            } finally {
+                buf.flip();
+            }
+        }
+    }
+
+    /** Queue one encoded frame for the writer thread; never blocks on the socket. */
+    private void sendFrame(FrameWriter frame) {
+        OutboundWriter out = outbound;
+        if (out == null) {
+            FrameWriter.release(frame);
+            return;
+        }
+        out.enqueue(frame);
+    }
+
+    /**
+     * Sole consumer of outbound frames. Producers — the socket reader, the
+     * jdi-event-loop, the target-stdout/stderr forwarders — encode on their
+     * own thread and append to a lock-free queue, so a slow client never
+     * stalls the JDI event loop while the debuggee is suspended. The writer
+     * drains everything queued into one gathering write. The queue is FIFO,
+     * so each producer's frames go out in the order it sent them.
+     *
+     * <p>EventThrottle keeps the droppable events small under congestion, but
+     * responses and the other events are always queued; MAX_QUEUED_BYTES
+     * bounds the whole queue. A producer that finds it full waits for the
+     * writer to drain — a client that stops reading eventually stalls the
+     * bridge instead of growing its heap.
+     */
+    private static final class OutboundWriter {
+        private static final int MAX_BATCH = 64;
+        private static final long MAX_QUEUED_BYTES = 64L * 1024 * 1024;
+
+        private final GatheringByteChannel channel;
+        private final ConcurrentLinkedQueue<FrameWriter> queue = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private final Runnable afterBatch; // writer thread, after every write
+        private volatile boolean closing = false;
+        private boolean broken = false; // writer thread only
+
+        // Backlog and throughput, for EventThrottle and transportStatistics
+        private final AtomicInteger queuedFrames = new AtomicInteger();
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private volatile int maxQueuedFrames;
+        private volatile long framesSent; // written by the writer thread only
+        private volatile long bytesSent;
+        private final AtomicLong blockedEnqueues = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        OutboundWriter(GatheringByteChannel channel, Runnable afterBatch) {
+            this.channel = channel;
+            this.afterBatch = afterBatch;
+            this.thread = new Thread(this::drainLoop, "dap-writer");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void enqueue(FrameWriter frame) {
+            if (queuedBytes.get() >= MAX_QUEUED_BYTES) awaitRoom();
+            int depth = queuedFrames.incrementAndGet();
+            queuedBytes.addAndGet(frame.size());
+            if (depth > maxQueuedFrames) maxQueuedFrames = depth; // racy, but only ever a statistic
+            queue.offer(frame);
+            LockSupport.unpark(thread);
+        }
+
+        /**
+         * Block until the writer drains below MAX_QUEUED_BYTES. The writer's
+         * own afterBatch flushes never wait (they would wait on themselves),
+         * nor does anyone once the writer is closing.
+         */
+        private void awaitRoom() {
+            if (Thread.currentThread() == thread) return;
+            long start = System.nanoTime();
+            synchronized (this) {
+                while (queuedBytes.get() >= MAX_QUEUED_BYTES && !closing) {
+                    try {
+                        wait(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            blockedEnqueues.incrementAndGet();
+            blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        int queuedFrames() { return queuedFrames.get(); }
+
+        long queuedBytes() { return queuedBytes.get(); }
+
+        /** Stop accepting work once the queue is drained (or the timeout passes). */
+        void close(long timeoutMs) {
+            closing = true;
+            synchronized (this) {
+                notifyAll();
+            }
+            LockSupport.unpark(thread);
+            try {
+                thread.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void drainLoop() {
+            FrameWriter[] batch = new FrameWriter[MAX_BATCH];
+            ByteBuffer[] buffers = new ByteBuffer[MAX_BATCH];
+            while (true) {
+                int n = 0;
+                FrameWriter frame;
+                while (n < MAX_BATCH && (frame = queue.poll()) != null) {
+                    batch[n] = frame;
+                    buffers[n] = frame.finish();
+                    n++;
+                }
+                if (n == 0) {
+                    if (closing) return;
+                    LockSupport.park(this);
+                    continue;
+                }
+                write(buffers, n);
+                long bytes = 0;
+                for (int i = 0; i < n; i++) {
+                    if (debug) logVerbose(">>> " + batch[i].bodyAsString());
+                    bytes += batch[i].size();
+                    FrameWriter.release(batch[i]);
+                    batch[i] = null;
+                    buffers[i] = null;
+                }
+                queuedFrames.addAndGet(-n);
+                if (queuedBytes.addAndGet(-bytes) + bytes >= MAX_QUEUED_BYTES) {
+                    synchronized (this) {
+                        notifyAll(); // producers waiting in awaitRoom
+                    }
+                }
+                framesSent += n;
+                bytesSent += bytes;
+                try {
+                    afterBatch.run();
+                } catch (RuntimeException e) {
+                    log("Outbound batch hook failed: " + e);
+                }
+            }
+        }
+
+        private void write(ByteBuffer[] buffers, int n) {
+            if (broken) return; // client gone — keep draining so producers never pile up
+            try {
+                int first = 0;
+                while (first < n) {
+                    channel.write(buffers, first, n - first);
+                    while (first < n && !buffers[first].hasRemaining()) first++;
+                }
+            } catch (IOException e) {
+                broken = true;
+                log("Send error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Overflow policy for events the bridge produces without bound. While the
+     * outbound backlog is above CONGESTED_FRAMES or CONGESTED_BYTES:
+     * <ul>
+     *   <li>'output' is dropped and counted, then summarized as one
+     *       "N lines dropped" output event;</li>
+     *   <li>'thread' events are collapsed per thread (a start and exit that
+     *       both happen during congestion cancel out);</li>
+     *   <li>'breakpoint' events are collapsed per breakpoint id, latest wins.</li>
+     * </ul>
+     * Held-back state goes out once the backlog falls to a quarter of the
+     * limits, or right before an event that is never dropped (stopped,
+     * terminated, exited) so the client sees it in order. Responses and all
+     * other events are never touched; OutboundWriter's byte cap bounds them.
+     */
+    private final class EventThrottle {
+        private static final int CONGESTED_FRAMES = 1024;
+        private static final long CONGESTED_BYTES = 4L * 1024 * 1024;
+
+        private boolean congested;
+        private long pendingDroppedLines;
+        private final LinkedHashMap<Long, String> pendingThreadEvents = new LinkedHashMap<>();
+        private final LinkedHashMap<Object, Map<String, Object>> pendingBreakpointEvents = new LinkedHashMap<>();
+
+        // Totals for transportStatistics
+        private long droppedOutputEvents;
+        private long droppedOutputLines;
+        private long collapsedThreadEvents;
+        private long collapsedBreakpointEvents;
+        private long congestionEpisodes;
+
+        /** @return true if the event was dropped or held back instead of sent */
+        synchronized boolean absorb(String event, Map<String, Object> body) {
+            switch (event) {
+                case "output": {
+                    if (!isCongested()) return false;
+                    long lines = countLines(str(body, "output"));
+                    droppedOutputEvents++;
+                    droppedOutputLines += lines;
+                    pendingDroppedLines += lines;
+                    return true;
+                }
+                case "thread": {
+                    if (!isCongested()) return false;
+                    long threadId = longVal(body, "threadId");
+                    String reason = str(body, "reason");
+                    String earlier = pendingThreadEvents.remove(threadId);
+                    if (earlier != null) {
+                        collapsedThreadEvents++;
+                        // started + exited inside one congestion window: the client never needs either
+                        if ("started".equals(earlier) && "exited".equals(reason)) {
+                            collapsedThreadEvents++;
+                            return true;
+                        }
+                    }
+                    pendingThreadEvents.put(threadId, reason);
+                    return true;
+                }
+                case "breakpoint": {
+                    if (!isCongested()) return false;
+                    Map<String, Object> bp = map(body, "breakpoint");
+                    Object id = bp != null ? bp.get("id") : null;
+                    if (id == null) return false;
+                    if (pendingBreakpointEvents.put(id, body) != null) collapsedBreakpointEvents++;
+                    return true;
+                }
+                default:
+                    return false;
+            }
+        }
+
+        private boolean isCongested() {
+            OutboundWriter out = outbound;
+            if (!congested && out != null
+                    && (out.queuedFrames() >= CONGESTED_FRAMES || out.queuedBytes() >= CONGESTED_BYTES)) {
+                congested = true;
+                congestionEpisodes++;
+                log("Outbound backlog congested (" + out.queuedFrames() + " frames, "
+                        + out.queuedBytes() + " bytes); throttling output/thread/breakpoint events");
+            }
+            return congested;
+        }
+
+        /** Writer thread, after each batch: leave congestion once the backlog has drained enough. */
+        void afterBatch() {
+            OutboundWriter out = outbound;
+            synchronized (this) {
+                if (!congested || out == null) return;
+                if (out.queuedFrames() > CONGESTED_FRAMES / 4 || out.queuedBytes() > CONGESTED_BYTES / 4) return;
+                congested = false;
+            }
+            release();
+        }
+
+        /** Send everything held back, ahead of an event that must not be dropped. */
+        void release() {
+            long lines;
+            List<Map.Entry<Long, String>> threads;
+            List<Map<String, Object>> breakpoints;
+            synchronized (this) {
+                if (pendingDroppedLines == 0 && pendingThreadEvents.isEmpty() && pendingBreakpointEvents.isEmpty()) {
+                    return;
+                }
+                lines = pendingDroppedLines;
+                pendingDroppedLines = 0;
+                threads = new ArrayList<>(pendingThreadEvents.entrySet());
+                pendingThreadEvents.clear();
+                breakpoints = new ArrayList<>(pendingBreakpointEvents.values());
+                pendingBreakpointEvents.clear();
+            }
+            if (lines > 0) {
+                Map<String, Object> body = new HashMap<>();
+                body.put("category", "console");
+                body.put("output", "[" + lines + " line(s) of debuggee output dropped: the client was not keeping up]\n");
+                writeEvent("output", body);
+            }
+            for (Map.Entry<Long, String> t : threads) {
+                Map<String, Object> body = new HashMap<>();
+                body.put("reason", t.getValue());
+                body.put("threadId", t.getKey());
+                writeEvent("thread", body);
+            }
+            for (Map<String, Object> body : breakpoints) {
+                writeEvent("breakpoint", body);
+            }
+        }
+
+        synchronized Map<String, Object> statistics() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("congested", congested);
+            stats.put("congestionEpisodes", congestionEpisodes);
+            stats.put("droppedOutputEvents", droppedOutputEvents);
+            stats.put("droppedOutputLines", droppedOutputLines);
+            stats.put("collapsedThreadEvents", collapsedThreadEvents);
+            stats.put("collapsedBreakpointEvents", collapsedBreakpointEvents);
+            stats.put("heldBackEvents", pendingThreadEvents.size() + pendingBreakpointEvents.size());
+            return stats;
+        }
+
+        private long countLines(String text) {
+            if (text == null || text.isEmpty()) return 0;
+            long lines = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') lines++;
+            }
+            return text.charAt(text.length() - 1) == '\n' ? lines : lines + 1;
         }
     }
 
     // ========== Message Handling ==========
 
-    private void handleMessage(Map<String, Object> msg) {
-        String type = str(msg, "type");
-        if (!"request".equals(type)) return;
+    private void handleMessage(DapRequest req) {
+        if (!"request".equals(req.type)) return;
 
-        String command = str(msg, "command");
-        int reqSeq = intVal(msg, "seq");
-        Map<String, Object> args = map(msg, "arguments");
-        if (args == null) args = new HashMap<>();
+        String command = req.command;
+        int reqSeq = req.seq;
+        Map<String, Object> args = req.args; // generic commands only — hot ones use typed fields
 
         try {
             switch (command) {
@@ -255,24 +1036,32 @@ public class JdiDapServer {
                 case "attach": handleAttach(reqSeq, args); break;
                 case "launch": handleLaunch(reqSeq, args); break;
                 case "setBreakpoints": handleSetBreakpoints(reqSeq, args); break;
+                case "setBreakpointsBulk": handleSetBreakpointsBulk(reqSeq, args); break;
                 case "setFunctionBreakpoints": handleSetFunctionBreakpoints(reqSeq, args); break;
+                case "dataBreakpointInfo": handleDataBreakpointInfo(reqSeq, args); break;
+                case "setDataBreakpoints": handleSetDataBreakpoints(reqSeq, args); break;
                 case "configurationDone": handleConfigurationDone(reqSeq, args); break;
                 case "threads": handleThreads(reqSeq, args); break;
-                case "stackTrace": handleStackTrace(reqSeq, args); break;
-                case "scopes": handleScopes(reqSeq, args); break;
-                case "variables": handleVariables(reqSeq, args); break;
-                case "continue": handleContinue(reqSeq, args); break;
+                case "stackTrace": handleStackTrace(reqSeq, req.threadId); break;
+                case "scopes": handleScopes(reqSeq, req.frameId); break;
+                case "variables": handleVariables(reqSeq, req.variablesReference); break;
+                case "continue": handleContinue(reqSeq, req.threadId); break;
                 case "pause": handlePause(reqSeq, args); break;
-                case "next": handleStep(reqSeq, args, StepRequest.STEP_OVER); break;
-                case "stepIn": handleStep(reqSeq, args, StepRequest.STEP_INTO); break;
-                case "stepOut": handleStep(reqSeq, args, StepRequest.STEP_OUT); break;
+                case "next": handleStep(reqSeq, req.threadId, StepRequest.STEP_OVER); break;
+                case "stepIn": handleStep(reqSeq, req.threadId, StepRequest.STEP_INTO); break;
+                case "stepOut": handleStep(reqSeq, req.threadId, StepRequest.STEP_OUT); break;
                 case "disconnect": handleDisconnect(reqSeq, args); break;
                 case "terminate": handleTerminate(reqSeq, args); break;
-                case "evaluate": handleEvaluate(reqSeq, args); break;
+                case "evaluate": handleEvaluate(reqSeq, req.expression, req.hasFrameId ? req.frameId : null); break;
                 case "setExceptionBreakpoints": handleSetExceptionBreakpoints(reqSeq, args); break;
                 case "exceptionInfo": handleExceptionInfo(reqSeq, args); break;
                 case "source": sendResponse(reqSeq, command, true, mapOf("content", "")); break;
                 case "redefineClasses": handleRedefineClasses(reqSeq, args); break;
+                case "setWireFormat": handleSetWireFormat(reqSeq, args); break;
+                case "cancel": handleCancel(reqSeq, args); break;
+                case "transportStatistics": handleTransportStatistics(reqSeq); break;
+                case "breakpointStatistics": handleBreakpointStatistics(reqSeq); break;
+                case "exceptionSummary": handleExceptionSummary(reqSeq); break;
                 default:
                     log("Unhandled command: " + command);
                     sendErrorResponse(reqSeq, command, "Unsupported command: " + command);
@@ -298,30 +1087,190 @@ public class JdiDapServer {
         caps.put("supportsTerminateRequest", true);
         caps.put("supportsDelayedStackTraceLoading", false);
         caps.put("supportsExceptionInfoRequest", true);
-        caps.put("supportsHitConditionalBreakpoints", false);
-        caps.put("supportsLogPoints", false);
+        caps.put("supportsHitConditionalBreakpoints", true);
+        caps.put("supportsLogPoints", true);
+        caps.put("supportsDataBreakpoints", true);
+        caps.put("supportsCancelRequest", true);
+        // Custom: the proxy may switch this connection to CBOR bodies via setWireFormat
+        caps.put("supportsCborFraming", true);
+        // Custom: setBreakpointsBulk replays many sources' breakpoints in one request
+        caps.put("supportsBreakpointsBulk", true);
+        caps.put("supportsExceptionOptions", true);
+        caps.put("supportsExceptionFilterOptions", true);
         // Must mirror the metadata in java-debug-adapter.ts getCapabilities():
-        // handleSetExceptionBreakpoints honors exactly these two filter ids.
+        // handleSetExceptionBreakpoints honors exactly these two filter ids,
+        // with conditions as parsed by parseExceptionCondition.
         List<Map<String, Object>> exFilters = new ArrayList<>();
         Map<String, Object> caughtFilter = new HashMap<>();
         caughtFilter.put("filter", "caught");
         caughtFilter.put("label", "Caught Exceptions");
         caughtFilter.put("description", "Break on caught exceptions");
         caughtFilter.put("default", false);
-        caughtFilter.put("supportsCondition", false);
+        caughtFilter.put("supportsCondition", true);
+        caughtFilter.put("conditionDescription", EXCEPTION_CONDITION_HELP);
         exFilters.add(caughtFilter);
         Map<String, Object> uncaughtFilter = new HashMap<>();
         uncaughtFilter.put("filter", "uncaught");
         uncaughtFilter.put("label", "Uncaught Exceptions");
         uncaughtFilter.put("description", "Break on uncaught exceptions");
         uncaughtFilter.put("default", true);
-        uncaughtFilter.put("supportsCondition", false);
+        uncaughtFilter.put("supportsCondition", true);
+        uncaughtFilter.put("conditionDescription", EXCEPTION_CONDITION_HELP);
         exFilters.add(uncaughtFilter);
         caps.put("exceptionBreakpointFilters", exFilters);
         sendResponse(reqSeq, "initialize", true, caps);
         sendEvent("initialized", new HashMap<>());
     }
 
+    /**
+     * Custom request: pick the body encoding of every frame this bridge sends
+     * after the response ("json" or "cbor"). The response itself still goes
+     * out in the old encoding. Incoming frames are recognised per frame by
+     * their first byte, so the client can switch its own direction whenever
+     * it likes.
+     */
+    private void handleSetWireFormat(int reqSeq, Map<String, Object> args) {
+        String format = strOr(args, "format", "json");
+        if (!"json".equals(format) && !"cbor".equals(format)) {
+            sendErrorResponse(reqSeq, "setWireFormat", "Unsupported wire format: " + format);
+            return;
+        }
+        sendResponse(reqSeq, "setWireFormat", true, mapOf("format", format));
+        cborFraming = "cbor".equals(format);
+        log("Wire format: " + format);
+    }
+
+    /**
+     * DAP cancel: best effort, as the spec allows. A request still queued on
+     * its lane is answered "cancelled" without running; a running evaluate
+     * stops waiting on its target invocation, and
+     * variables expansion and redefineClasses stop at their next check.
+     */
+    private void handleCancel(int reqSeq, Map<String, Object> args) {
+        Integer requestId = intValOrNull(args, "requestId");
+        if (requestId != null) {
+            RequestToken token = inFlight.get(requestId);
+            if (token != null) {
+                token.cancelled = true;
+                log("Cancel requested for request " + requestId);
+            }
+        }
+        sendResponse(reqSeq, "cancel", true, new HashMap<>());
+    }
+
+    /** Custom request: outbound backlog and overflow counters (see EventThrottle). */
+    private void handleTransportStatistics(int reqSeq) {
+        Map<String, Object> body = throttle.statistics();
+        OutboundWriter out = outbound;
+        if (out != null) {
+            body.put("queuedFrames", out.queuedFrames());
+            body.put("queuedBytes", out.queuedBytes());
+            body.put("maxQueuedFrames", out.maxQueuedFrames);
+            body.put("framesSent", out.framesSent);
+            body.put("bytesSent", out.bytesSent);
+            body.put("queueCapBytes", OutboundWriter.MAX_QUEUED_BYTES);
+            body.put("blockedEnqueues", out.blockedEnqueues.get());
+            body.put("blockedMillis", TimeUnit.NANOSECONDS.toMillis(out.blockedNanos.get()));
+        }
+        sendResponse(reqSeq, "transportStatistics", true, body);
+    }
+
+    /**
+     * Custom breakpointStatistics: the runtime counters (see
+     * BreakpointStatistics) of every breakpoint, watchpoint and exception
+     * request, costliest first — condition evaluation plus suspended time —
+     * to find the breakpoints that slow the target down. Answered off the
+     * session lane.
+     */
+    private void handleBreakpointStatistics(int reqSeq) {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        if (vm != null) {
+            EventRequestManager erm = vm.eventRequestManager();
+            for (BreakpointRequest bpr : erm.breakpointRequests()) {
+                Map<String, Object> entry = statisticsEntry(bpr);
+                if (entry == null) continue;
+                LineBreakpoint lb = (LineBreakpoint) bpr.getProperty("jdi-line-bp");
+                if (lb != null) {
+                    entry.put("id", lb.id);
+                    entry.put("source", mapOf("path", bpr.getProperty("jdi-bp-source")));
+                    entry.put("line", lb.line);
+                } else {
+                    entry.put("id", bpr.getProperty("jdi-fnbp-id"));
+                    entry.put("name", bpr.getProperty("jdi-fnbp-name"));
+                }
+                Location loc = bpr.location();
+                entry.put("location", loc.declaringType().name() + ":" + loc.lineNumber());
+                LogMessage logMessage = (LogMessage) bpr.getProperty("logMessage");
+                if (logMessage != null) {
+                    entry.put("logMessage", logMessage.source);
+                    entry.put("logged", logMessage.emitted.get());
+                    entry.put("logSuppressed", logMessage.suppressed.get());
+                }
+                entries.add(entry);
+            }
+            List<WatchpointRequest> watchpoints = new ArrayList<>(erm.modificationWatchpointRequests());
+            watchpoints.addAll(erm.accessWatchpointRequests());
+            for (WatchpointRequest wr : watchpoints) {
+                Map<String, Object> entry = statisticsEntry(wr);
+                DataBreakpoint db = (DataBreakpoint) wr.getProperty("jdi-data-bp");
+                if (entry == null || db == null) continue;
+                entry.put("id", db.id);
+                entry.put("dataId", db.dataId);
+                entry.put("accessType", wr instanceof ModificationWatchpointRequest ? "write" : "read");
+                entry.put("location", wr.field().declaringType().name() + "." + wr.field().name());
+                entries.add(entry);
+            }
+            for (ExceptionRequest er : erm.exceptionRequests()) {
+                Map<String, Object> entry = statisticsEntry(er);
+                if (entry == null) continue;
+                entry.put("exception", er.exception() != null ? er.exception().name() : "*");
+                entry.put("caught", er.notifyCaught());
+                entry.put("uncaught", er.notifyUncaught());
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparingLong((Map<String, Object> e) ->
+                (Long) e.get("conditionNanos") + (Long) e.get("suspendedNanos")).reversed());
+        sendResponse(reqSeq, "breakpointStatistics", true, mapOf("breakpoints", entries));
+    }
+
+    /** The counters and condition settings every kind of request reports; null without "jdi-stats". */
+    private static Map<String, Object> statisticsEntry(EventRequest request) {
+        BreakpointStatistics stats = (BreakpointStatistics) request.getProperty("jdi-stats");
+        if (stats == null) return null;
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("enabled", request.isEnabled());
+        BreakpointCondition condition = (BreakpointCondition) request.getProperty("condition");
+        if (condition != null) {
+            entry.put("condition", condition.source);
+            entry.put("pushedDown", condition.pushedDown);
+        }
+        HitCondition hitCondition = (HitCondition) request.getProperty("hitCondition");
+        if (hitCondition != null) entry.put("hitCount", hitCondition.hits.get());
+        entry.put("hits", stats.hits.get());
+        entry.put("conditionTrue", stats.conditionTrue.get());
+        entry.put("conditionFalse", stats.conditionFalse.get());
+        entry.put("conditionErrors", stats.conditionErrors.get());
+        entry.put("conditionNanos", stats.conditionNanos.get());
+        entry.put("stops", stats.stops.get());
+        entry.put("suspendedNanos", stats.suspendedNanos.get());
+        return entry;
+    }
+
+    private InvocationLimits invocationLimits(RequestToken token) {
+        return new InvocationLimits(invocationTimeoutMs, token, abandonedInvocations);
+    }
+
+    private void applyInvocationTimeout(Map<String, Object> args) {
+        long timeout = longVal(args, "invocationTimeoutMs");
+        if (timeout > 0) invocationTimeoutMs = timeout;
+    }
+
+    private void applyLogpointRateLimit(Map<String, Object> args) {
+        long rate = longVal(args, "logpointRateLimit");
+        if (rate > 0) logpointRateLimit = rate;
+    }
+
     private void handleAttach(int reqSeq, Map<String, Object> args) throws Exception {
         String host = strOr(args, "host", strOr(args, "hostName", "localhost"));
         int port = intVal(args, "port");
@@ -330,6 +1279,8 @@ public class JdiDapServer {
             return;
         }
 
+        applyInvocationTimeout(args);
+        applyLogpointRateLimit(args);
         log("Attaching to " + host + ":" + port);
         AttachingConnector connector = findAttachConnector();
         Map<String, Connector.Argument> connArgs = connector.defaultArguments();
@@ -345,9 +1296,12 @@ public class JdiDapServer {
             log("VM suspended (stopOnEntry=true)");
         }
 
+        buildClassIndex();
         startEventLoop();
         registerPendingBreakpoints();
         registerPendingFunctionBreakpoints();
+        registerPendingDataBreakpoints();
+        registerPendingExceptionBreakpoints();
         sendResponse(reqSeq, "attach", true, new HashMap<>());
     }
 
@@ -360,6 +1314,8 @@ public class JdiDapServer {
 
         String classpath = strOr(args, "classpath", ".");
         this.stopOnEntry = boolVal(args, "stopOnEntry", true);
+        applyInvocationTimeout(args);
+        applyLogpointRateLimit(args);
 
         // Fresh exit tracking per launch (issue #368) — defensive in case a
         // bridge process ever services more than one launch.
@@ -429,27 +1385,14 @@ public class JdiDapServer {
         exitWatcher.start();
 
         // Read stderr to find JDWP listen port (and forward output)
-        Thread stderrThread = new Thread(() -> {
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(launchedProcess.getErrorStream()))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    log("[target stderr] " + line);
-                    sendOutputEvent("stderr", line + "\n");
-                }
-            } catch (IOException e) { /* ignore */ }
-        }, "target-stderr");
+        final InputStream targetStderr = launchedProcess.getErrorStream();
+        Thread stderrThread = new Thread(() -> forwardTargetOutput(targetStderr, "stderr"), "target-stderr");
         stderrThread.setDaemon(true);
         stderrThread.start();
 
         // Forward stdout
-        Thread stdoutThread = new Thread(() -> {
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(launchedProcess.getInputStream()))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    sendOutputEvent("stdout", line + "\n");
-                }
-            } catch (IOException e) { /* ignore */ }
-        }, "target-stdout");
+        final InputStream targetStdout = launchedProcess.getInputStream();
+        Thread stdoutThread = new Thread(() -> forwardTargetOutput(targetStdout, "stdout"), "target-stdout");
         stdoutThread.setDaemon(true);
         stdoutThread.start();
 
@@ -477,9 +1420,12 @@ public class JdiDapServer {
         log("Attached to launched VM on port " + jdwpPort);
         launchSuspended = true;
 
+        buildClassIndex();
         startEventLoop();
         registerPendingBreakpoints();
         registerPendingFunctionBreakpoints();
+        registerPendingDataBreakpoints();
+        registerPendingExceptionBreakpoints();
 
         // If stopOnEntry: VM is already suspended from suspend=y
         // We'll send stopped event after configurationDone
@@ -488,107 +1434,452 @@ public class JdiDapServer {
     }
 
     /**
-     * Register ClassPrepareRequests for any breakpoints that were set before the VM connected.
-     * Also resolves breakpoints for classes that are already loaded.
+     * Pump one debuggee stream into {@link #targetOutput} until EOF. Reads
+     * whatever is available rather than whole lines, so a prompt without a
+     * trailing newline is forwarded too.
      */
-    private void registerPendingBreakpoints() {
-        if (vm == null || deferredBreakpoints.isEmpty()) return;
-
-        for (Map.Entry<String, Map<String, Object>> entry : deferredBreakpoints.entrySet()) {
-            String sourcePath = entry.getKey();
-            Map<String, Object> bpInfo = entry.getValue();
-            String className = str(bpInfo, "className");
-            if (className == null) className = str(bpInfo, "sourcePath");
-            List<Object> breakpointSpecs = list(bpInfo, "breakpoints");
-            if (breakpointSpecs == null) continue;
-
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-            String fileName = simpleClassName + ".java";
-
-            // Check if the class is already loaded (by simple name or source file)
-            ReferenceType found = findLoadedClass(className, fileName);
-
-            if (found != null) {
-                // Class already loaded — set breakpoints directly
-                log("Setting pending breakpoints on already-loaded " + found.name());
-                boolean hasUnresolved = false;
-                for (Object bpObj : breakpointSpecs) {
-                    Map<String, Object> bpSpec = asMap(bpObj);
-                    int line = intVal(bpSpec, "line");
-                    String condition = str(bpSpec, "condition");
-                    String suspendPol = str(bpSpec, "suspendPolicy");
-                    Map<String, Object> bp = setBreakpointOnClass(found, line, condition, sourcePath, suspendPol);
-                    if (!Boolean.TRUE.equals(bp.get("verified"))) {
-                        hasUnresolved = true;
-                    }
-                }
-                // Some breakpoints may be on inner class lines — register CPR for inner classes
-                if (hasUnresolved) {
-                    EventRequestManager erm = vm.eventRequestManager();
-                    ClassPrepareRequest innerCpr = erm.createClassPrepareRequest();
-                    innerCpr.addClassFilter(className + "$*");
-                    innerCpr.putProperty("jdi-bp-source", sourcePath);
-                    innerCpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                    innerCpr.enable();
-                    log("Registered ClassPrepareRequest for inner classes " + className + "$* (some breakpoints unresolved)");
+    private void forwardTargetOutput(InputStream stream, String category) {
+        char[] buf = new char[8192];
+        try (Reader reader = new InputStreamReader(stream)) {
+            int n;
+            while ((n = reader.read(buf)) >= 0) {
+                if ("stderr".equals(category)) {
+                    log("[target stderr] " + new String(buf, 0, n).stripTrailing());
                 }
-            } else {
-                // Not loaded — register ClassPrepareRequest
-                EventRequestManager erm = vm.eventRequestManager();
-                ClassPrepareRequest cpr = erm.createClassPrepareRequest();
-                cpr.addClassFilter("*" + className);
-                cpr.putProperty("jdi-bp-source", sourcePath);
-                cpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                cpr.enable();
-                log("Registered deferred ClassPrepareRequest for *" + className);
-
-                // Also register for inner classes (e.g. Outer$Inner)
-                ClassPrepareRequest innerCpr = erm.createClassPrepareRequest();
-                innerCpr.addClassFilter(className + "$*");
-                innerCpr.putProperty("jdi-bp-source", sourcePath);
-                innerCpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                innerCpr.enable();
-                log("Registered deferred ClassPrepareRequest for " + className + "$*");
+                targetOutput.append(category, buf, 0, n);
             }
-        }
-    }
-
-    /**
-     * Checks if the given string looks like a Java class name (simple or
-     * fully-qualified) rather than a file path. A class name has no path
-     * separators and does not end with ".java".
-     */
-    private boolean isJavaFqcn(String s) {
-        return s != null && !s.contains("/") && !s.contains("\\") && !s.endsWith(".java");
+        } catch (IOException e) { /* ignore */ }
+        targetOutput.flush();
     }
 
     /**
-     * Find a loaded class by simple name or source file name.
-     * Handles package-qualified classes (e.g., com.example.MyClass) that
-     * won't be found by vm.classesByName("MyClass").
+     * Coalesces launched-debuggee stdout/stderr into few DAP 'output' events
+     * instead of one per line — a service logging 50k lines/s would otherwise
+     * cost 50k messages through the bridge and the proxy. Text is kept exactly
+     * as read (partial lines included) and flushed once a batch reaches
+     * MAX_BATCH_CHARS or its oldest text has waited MAX_DELAY_MS. Both
+     * streams share one batch: a category switch flushes the other category
+     * first, so stdout and stderr keep their relative order.
      */
-    private ReferenceType findLoadedClass(String className, String fileName) {
-        // Try exact name first (works for default package)
-        List<ReferenceType> classes = vm.classesByName(className);
-        if (!classes.isEmpty()) return classes.get(0);
-
-        // Search by source file name (handles package-qualified classes)
-        for (ReferenceType rt : vm.allClasses()) {
-            try {
-                if (fileName.equals(rt.sourceName())) {
-                    return rt;
+    private final class OutputAggregator {
+        private static final int MAX_BATCH_CHARS = 64 * 1024;
+        private static final long MAX_DELAY_MS = 20;
+
+        private final StringBuilder pending = new StringBuilder();
+        private String pendingCategory;
+        private long pendingSince; // System.nanoTime() when the batch started
+        private Thread flusher;
+
+        synchronized void append(String category, char[] chars, int off, int len) {
+            while (len > 0) {
+                if (pendingCategory != null && !pendingCategory.equals(category)) {
+                    flushLocked();
                 }
-            } catch (AbsentInformationException e) {
-                // Skip classes without source info
+                if (pending.length() == 0) {
+                    pendingCategory = category;
+                    pendingSince = System.nanoTime();
+                    notifyAll(); // start the flusher's deadline
+                }
+                int take = Math.min(len, MAX_BATCH_CHARS - pending.length());
+                pending.append(chars, off, take);
+                off += take;
+                len -= take;
+                if (pending.length() >= MAX_BATCH_CHARS) {
+                    flushLocked();
+                }
+            }
+            if (flusher == null) {
+                flusher = new Thread(this::flushLoop, "target-output-flusher");
+                flusher.setDaemon(true);
+                flusher.start();
             }
         }
-        return null;
-    }
 
-    private void handleSetBreakpoints(int reqSeq, Map<String, Object> args) {
-        Map<String, Object> source = map(args, "source");
-        String sourcePath = source != null ? str(source, "path") : null;
-        List<Object> breakpointSpecs = list(args, "breakpoints");
+        void append(String category, String text) {
+            append(category, text.toCharArray(), 0, text.length());
+        }
+
+        synchronized void flush() {
+            flushLocked();
+        }
+
+        private void flushLocked() {
+            if (pending.length() == 0) return;
+            String category = pendingCategory;
+            String text = pending.toString();
+            pending.setLength(0);
+            pendingCategory = null;
+            sendOutputEvent(category, text);
+        }
+
+        private synchronized void flushLoop() {
+            try {
+                while (true) {
+                    if (pending.length() == 0) {
+                        wait();
+                        continue;
+                    }
+                    long waitMs = MAX_DELAY_MS - (System.nanoTime() - pendingSince) / 1_000_000;
+                    if (waitMs > 0) {
+                        wait(waitMs);
+                        continue;
+                    }
+                    flushLocked();
+                }
+            } catch (InterruptedException e) {
+                // shutting down
+            }
+        }
+    }
+
+    // ========== Line Breakpoints ==========
+
+    /**
+     * The line breakpoints of one DAP source as last set by the client, keyed
+     * by requested line, each with the BreakpointRequests planted for it.
+     * setBreakpoints diffs new specs against this registry instead of
+     * deleting and re-creating every request of the source: unchanged lines
+     * keep their requests, ids and hit counts, and only added, removed or
+     * edited lines touch JDWP. Guarded by its own monitor — request lanes
+     * edit it while the event loop binds newly prepared classes.
+     */
+    private static final class SourceBreakpoints {
+        final String sourcePath;
+        final String className;
+        final String fileName;
+        final Map<Integer, LineBreakpoint> lines = new LinkedHashMap<>();
+        // ClassPrepareRequests watching for this source's unloaded classes
+        final List<ClassPrepareRequest> watches = new ArrayList<>();
+        // Package the source names: exact for an FQCN or a readable file's
+        // package declaration, else the directories its package must end with
+        private final String[] packageHint;
+        final boolean exactPackage;
+        // A type whose package fits the hint has been bound this connection
+        volatile boolean packageConfirmed;
+        // Reported with every verified line when binding had to guess the package
+        volatile String bindingNote;
+
+        SourceBreakpoints(String sourcePath, String className, String fileName, boolean fqcn) {
+            this.sourcePath = sourcePath;
+            this.className = className;
+            this.fileName = fileName;
+            String[] declared = null;
+            if (fqcn) {
+                int dot = className.lastIndexOf('.');
+                declared = dot > 0 ? className.substring(0, dot).split("\\.") : new String[0];
+            } else {
+                declared = declaredPackage(sourcePath);
+            }
+            if (declared != null) {
+                this.packageHint = declared;
+                this.exactPackage = true;
+            } else {
+                String parent = new File(sourcePath).getParent();
+                this.packageHint = parent == null ? new String[0]
+                        : Arrays.stream(parent.split("[/\\\\]")).filter(d -> !d.isEmpty()).toArray(String[]::new);
+                this.exactPackage = false;
+            }
+        }
+
+        private static final java.util.regex.Pattern PACKAGE_DECLARATION = java.util.regex.Pattern.compile(
+                "^\\s*package\\s+([\\w.]+)\\s*;", java.util.regex.Pattern.MULTILINE);
+        private static final java.util.regex.Pattern COMMENT = java.util.regex.Pattern.compile(
+                "/\\*.*?\\*/|//[^\\n]*", java.util.regex.Pattern.DOTALL);
+
+        /** Package declared by a readable .java file (empty: default package), or null if unreadable. */
+        private static String[] declaredPackage(String sourcePath) {
+            String text;
+            try (InputStream in = new FileInputStream(sourcePath)) {
+                text = new String(in.readNBytes(16 * 1024), StandardCharsets.UTF_8);
+            } catch (IOException | SecurityException e) {
+                return null;
+            }
+            java.util.regex.Matcher m = PACKAGE_DECLARATION.matcher(COMMENT.matcher(text).replaceAll(" "));
+            return m.find() ? m.group(1).split("\\.") : new String[0];
+        }
+
+        /**
+         * How well a loaded type's package fits the source: -1 if it cannot
+         * be the source's type (com.b.Foo for /src/com/a/Foo.java), else the
+         * number of package segments matched, so the most specific wins.
+         */
+        int packageMatch(String typeName) {
+            int dot = typeName.lastIndexOf('.');
+            String[] pkg = dot > 0 ? typeName.substring(0, dot).split("\\.") : new String[0];
+            if (exactPackage) return Arrays.equals(pkg, packageHint) ? pkg.length : -1;
+            if (pkg.length > packageHint.length) return -1;
+            for (int i = 1; i <= pkg.length; i++) {
+                if (!pkg[pkg.length - i].equals(packageHint[packageHint.length - i])) return -1;
+            }
+            return pkg.length;
+        }
+
+        boolean hasUnbound() {
+            for (LineBreakpoint lb : lines.values()) {
+                if (lb.requests.isEmpty()) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One DAP source breakpoint: its spec, parsed once, and a request per
+     * loaded type with code at the line (classloader copies, nested types).
+     */
+    private static final class LineBreakpoint {
+        final int id;
+        final int line;
+        final String condition;
+        final String hitConditionText;
+        final String logMessageText;
+        final String suspendPolicy;
+        final HitCondition hitCondition;
+        final LogMessage logMessage;
+        final List<BreakpointRequest> requests = new CopyOnWriteArrayList<>();
+        volatile int boundLine;
+        volatile String message = "Class not yet loaded, breakpoint pending";
+
+        LineBreakpoint(int id, int line, String condition, String hitConditionText, String logMessageText,
+                String suspendPolicy, HitCondition hitCondition) {
+            this.id = id;
+            this.line = line;
+            this.condition = condition;
+            this.hitConditionText = hitConditionText;
+            this.logMessageText = logMessageText;
+            this.suspendPolicy = suspendPolicy;
+            this.hitCondition = hitCondition;
+            this.logMessage = logMessageText != null ? new LogMessage(logMessageText) : null;
+        }
+
+        boolean sameSpec(LineBreakpoint other) {
+            return Objects.equals(condition, other.condition)
+                    && Objects.equals(hitConditionText, other.hitConditionText)
+                    && Objects.equals(logMessageText, other.logMessageText)
+                    && Objects.equals(suspendPolicy, other.suspendPolicy);
+        }
+
+        Map<String, Object> result(SourceBreakpoints source) {
+            Map<String, Object> bp = new HashMap<>();
+            bp.put("id", id);
+            boolean verified = !requests.isEmpty();
+            bp.put("verified", verified);
+            bp.put("line", verified && boundLine > 0 ? boundLine : line);
+            bp.put("source", mapOf("path", source.sourcePath));
+            if (!verified) {
+                bp.put("message", message);
+            } else if (source.bindingNote != null) {
+                bp.put("message", source.bindingNote);
+            }
+            return bp;
+        }
+    }
+
+    private LineBreakpoint newLineBreakpoint(int id, Map<String, Object> bpSpec) {
+        String condition = str(bpSpec, "condition");
+        String hitCondition = str(bpSpec, "hitCondition");
+        return new LineBreakpoint(id, intVal(bpSpec, "line"),
+                condition != null && !condition.isEmpty() ? condition : null,
+                hitCondition, str(bpSpec, "logMessage"), str(bpSpec, "suspendPolicy"),
+                parseHitCondition(hitCondition));
+    }
+
+    /**
+     * Register ClassPrepareRequests for any breakpoints that were set before the VM connected.
+     * Also resolves breakpoints for classes that are already loaded.
+     */
+    private void registerPendingBreakpoints() {
+        if (vm == null || sourceBreakpoints.isEmpty()) return;
+
+        for (SourceBreakpoints source : sourceBreakpoints.values()) {
+            synchronized (source) {
+                // A fresh connection: nothing planted yet, whatever an earlier VM had
+                for (LineBreakpoint lb : source.lines.values()) lb.requests.clear();
+                source.watches.clear();
+                source.packageConfirmed = false;
+                // Watch first, as in applyBreakpointSpecs, then look up what is loaded
+                ensureSourceWatch(source);
+                // Check if the class is already loaded (by simple name or source file)
+                List<ReferenceType> found = findLoadedClasses(source);
+                if (!found.isEmpty()) {
+                    // Class already loaded — set breakpoints directly
+                    log("Setting pending breakpoints on already-loaded " + found.get(0).name()
+                            + (found.size() > 1 ? " (+" + (found.size() - 1) + " more)" : ""));
+                    for (LineBreakpoint lb : source.lines.values()) {
+                        for (ReferenceType refType : found) {
+                            plantLineBreakpoint(refType, source, lb);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the given string looks like a Java class name (simple or
+     * fully-qualified) rather than a file path. A class name has no path
+     * separators and does not end with ".java".
+     */
+    private boolean isJavaFqcn(String s) {
+        return s != null && !s.contains("/") && !s.contains("\\") && !s.endsWith(".java");
+    }
+
+    /** The loaded types a source's breakpoints bind on; see {@link #narrowToSourcePackage}. */
+    private List<ReferenceType> findLoadedClasses(SourceBreakpoints source) {
+        return narrowToSourcePackage(source, lookupLoadedClasses(source));
+    }
+
+    /**
+     * Find loaded classes by exact name or source file name, answered from
+     * the class index (no JDWP scan). Handles package-qualified classes
+     * (e.g., com.example.MyClass) that an exact lookup of "MyClass" misses,
+     * and returns every classloader's copy so breakpoints bind in all of them.
+     * A file path looks up its file name first, since the simple name only
+     * finds default-package classes; the result may span packages.
+     */
+    private List<ReferenceType> lookupLoadedClasses(SourceBreakpoints source) {
+        boolean fqcn = isJavaFqcn(source.sourcePath);
+        List<ReferenceType> classes = fqcn
+                ? classIndex.byName(source.className) : classIndex.bySourceName(source.fileName);
+        if (!classes.isEmpty()) return classes;
+        classes = fqcn ? classIndex.bySourceName(source.fileName) : classIndex.byName(source.className);
+        if (!classes.isEmpty()) return classes;
+        return loadedClassesFromVm(source);
+    }
+
+    /**
+     * Index miss: ask the VM. The index only learns of a class when the
+     * event loop handles its SUSPEND_NONE prepare event, which lags while the
+     * loop is busy (a condition, a full outbound queue); the source watch
+     * only sees classes prepared after it exists. A class prepared in
+     * between would otherwise stay unbound for good. Looks up the top-level
+     * names the source can declare, then their loaded nested types, and
+     * indexes what it finds. Secondary top-level classes of the file are
+     * left to the index.
+     */
+    private List<ReferenceType> loadedClassesFromVm(SourceBreakpoints source) {
+        if (vm == null) return Collections.emptyList();
+        List<String> names = new ArrayList<>(2);
+        if (isJavaFqcn(source.sourcePath)) {
+            names.add(source.className);
+        } else {
+            // The declared package, or every package the directories could end with
+            String[] hint = source.packageHint;
+            for (int i = source.exactPackage ? hint.length : 0; i <= hint.length; i++) {
+                String pkg = String.join(".", Arrays.copyOfRange(hint, hint.length - i, hint.length));
+                names.add(pkg.isEmpty() ? source.className : pkg + "." + source.className);
+            }
+        }
+        List<ReferenceType> found = new ArrayList<>();
+        try {
+            for (String name : names) {
+                for (ReferenceType rt : vm.classesByName(name)) {
+                    if (!rt.isPrepared()) continue;
+                    found.add(rt);
+                    for (ReferenceType nested : rt.nestedTypes()) {
+                        if (nested.isPrepared()) found.add(nested);
+                    }
+                }
+            }
+        } catch (VMDisconnectedException e) {
+            return Collections.emptyList();
+        }
+        for (ReferenceType rt : found) classIndex.add(rt); // its own prepare event is then a no-op
+        if (!found.isEmpty()) log("Class index missed " + source.fileName + "; found " + found.size() + " type(s) in the VM");
+        return found;
+    }
+
+    /**
+     * Keep the candidates whose package the source names, so a breakpoint in
+     * /src/com/a/Foo.java never binds com.b.Foo: an FQCN's own package or the
+     * file's package declaration. A file that can't be read implies its
+     * package by directory instead — the longest package its directories
+     * end with wins. When no candidate fits that (a source tree that doesn't
+     * mirror packages), a single package is still taken as the source's,
+     * while several are ambiguous: all of them are bound and the breakpoints
+     * say so.
+     */
+    private List<ReferenceType> narrowToSourcePackage(SourceBreakpoints source, List<ReferenceType> candidates) {
+        source.bindingNote = null;
+        if (candidates.isEmpty()) return candidates;
+        if (source.exactPackage) {
+            List<ReferenceType> narrowed = new ArrayList<>(candidates.size());
+            for (ReferenceType rt : candidates) {
+                if (source.packageMatch(rt.name()) >= 0) narrowed.add(rt);
+            }
+            return narrowed;
+        }
+        int best = -1;
+        for (ReferenceType rt : candidates) best = Math.max(best, source.packageMatch(rt.name()));
+        if (best >= 0) {
+            List<ReferenceType> narrowed = new ArrayList<>(candidates.size());
+            for (ReferenceType rt : candidates) {
+                if (source.packageMatch(rt.name()) == best) narrowed.add(rt);
+            }
+            source.packageConfirmed = true;
+            return narrowed;
+        }
+        Set<String> packages = new TreeSet<>();
+        for (ReferenceType rt : candidates) {
+            int dot = rt.name().lastIndexOf('.');
+            packages.add(dot > 0 ? rt.name().substring(0, dot) : "(default package)");
+        }
+        if (packages.size() > 1) {
+            source.bindingNote = "Source path matches none of the loaded packages of " + source.fileName
+                    + "; bound in all of them: " + String.join(", ", packages);
+        }
+        return new ArrayList<>(candidates);
+    }
+
+    /**
+     * Watch future loads of a pending source's classes with ONE
+     * ClassPrepareRequest, replacing the per-source pair of "*Name" and
+     * "Name$*" class filters. A source-name filter matches the outer class,
+     * every nested/anonymous class and secondary top-level classes of the
+     * file alike; FQCN sources also keep a class-name prefix so same-named
+     * files in other packages don't fire. The event is routed through the
+     * deferred-breakpoint index (handleClassPrepared), and only the loading
+     * thread is suspended — the event loop resumes it right after binding,
+     * so pending breakpoints no longer freeze the whole VM per class load.
+     * VMs without source-name filters fall back to the class-name pair.
+     */
+    private List<ClassPrepareRequest> registerSourceWatch(String sourcePath, String className, String fileName) {
+        EventRequestManager erm = vm.eventRequestManager();
+        List<ClassPrepareRequest> watches = new ArrayList<>(2);
+        if (vm.canUseSourceNameFilters()) {
+            ClassPrepareRequest cpr = erm.createClassPrepareRequest();
+            cpr.addSourceNameFilter(fileName);
+            if (isJavaFqcn(sourcePath) && className.contains(".")) {
+                cpr.addClassFilter(className + "*");
+            }
+            cpr.putProperty("jdi-bp-source", sourcePath);
+            cpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+            cpr.enable();
+            watches.add(cpr);
+            log("Registered ClassPrepareRequest for source " + fileName + " (" + sourcePath + ")");
+            return watches;
+        }
+        for (String filter : new String[] { "*" + className, className + "$*" }) {
+            ClassPrepareRequest cpr = erm.createClassPrepareRequest();
+            cpr.addClassFilter(filter);
+            cpr.putProperty("jdi-bp-source", sourcePath);
+            cpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+            cpr.enable();
+            watches.add(cpr);
+            log("Registered ClassPrepareRequest for " + filter);
+        }
+        return watches;
+    }
+
+    /** Watch for a source's unloaded classes while any of its lines is unbound. Caller holds the source. */
+    private void ensureSourceWatch(SourceBreakpoints source) {
+        if (vm == null || !source.watches.isEmpty() || !source.hasUnbound()) return;
+        source.watches.addAll(registerSourceWatch(source.sourcePath, source.className, source.fileName));
+    }
+
+    private void handleSetBreakpoints(int reqSeq, Map<String, Object> args) {
+        Map<String, Object> sourceArg = map(args, "source");
+        String sourcePath = sourceArg != null ? str(sourceArg, "path") : null;
+        List<Object> breakpointSpecs = list(args, "breakpoints");
 
         List<Map<String, Object>> results = new ArrayList<>();
 
@@ -597,6 +1888,79 @@ public class JdiDapServer {
             return;
         }
 
+        SourceBreakpoints source = registerSource(sourcePath);
+        synchronized (source) {
+            applyBreakpointSpecs(source, breakpointSpecs,
+                    this::findLoadedClasses);
+            for (Object bpObj : breakpointSpecs) {
+                results.add(source.lines.get(intVal(asMap(bpObj), "line")).result(source));
+            }
+        }
+
+        sendResponse(reqSeq, "setBreakpoints", true, mapOf("breakpoints", results));
+    }
+
+    /**
+     * Custom setBreakpointsBulk: setBreakpoints for many sources in one
+     * request, {sources: [{source, breakpoints}, ...]}, answered positionally
+     * with {sources: [{source, breakpoints}, ...]}. Each entry has exactly
+     * the semantics of its own setBreakpoints call (an empty list clears the
+     * source). All sources are registered up front, then diffed and planted
+     * back to back, with the loaded classes looked up once per distinct
+     * class/file name across the whole batch. Replaces the per-file replay
+     * of a launch or reconnect — one round trip instead of one per file.
+     */
+    private void handleSetBreakpointsBulk(int reqSeq, Map<String, Object> args) {
+        List<Object> entries = list(args, "sources");
+        List<Map<String, Object>> responses = new ArrayList<>();
+        if (entries == null) {
+            sendResponse(reqSeq, "setBreakpointsBulk", true, mapOf("sources", responses));
+            return;
+        }
+
+        List<SourceBreakpoints> sources = new ArrayList<>(entries.size());
+        for (Object entryObj : entries) {
+            Map<String, Object> entry = asMap(entryObj);
+            Map<String, Object> sourceArg = map(entry, "source");
+            String sourcePath = sourceArg != null ? str(sourceArg, "path") : null;
+            sources.add(sourcePath != null && list(entry, "breakpoints") != null ? registerSource(sourcePath) : null);
+        }
+
+        Map<String, List<ReferenceType>> loaded = new HashMap<>();
+        java.util.function.Function<SourceBreakpoints, List<ReferenceType>> resolver = s -> narrowToSourcePackage(s,
+                loaded.computeIfAbsent((isJavaFqcn(s.sourcePath) ? "class:" : "file:") + s.className + "/" + s.fileName,
+                        k -> lookupLoadedClasses(s)));
+        int total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Map<String, Object> entry = asMap(entries.get(i));
+            SourceBreakpoints source = sources.get(i);
+            List<Map<String, Object>> results = new ArrayList<>();
+            if (source != null) {
+                List<Object> breakpointSpecs = list(entry, "breakpoints");
+                synchronized (source) {
+                    applyBreakpointSpecs(source, breakpointSpecs, resolver);
+                    for (Object bpObj : breakpointSpecs) {
+                        results.add(source.lines.get(intVal(asMap(bpObj), "line")).result(source));
+                    }
+                }
+                total += results.size();
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("source", map(entry, "source"));
+            response.put("breakpoints", results);
+            responses.add(response);
+        }
+        log("setBreakpointsBulk: " + total + " breakpoint(s) in " + entries.size() + " source(s), "
+                + loaded.size() + " class lookup(s)");
+
+        sendResponse(reqSeq, "setBreakpointsBulk", true, mapOf("sources", responses));
+    }
+
+    /**
+     * The registry entry of a DAP source path, created (with its class and
+     * file-name index entries) on first use.
+     */
+    private SourceBreakpoints registerSource(String sourcePath) {
         // Extract class name from source path or FQCN
         String fileName;
         String className;
@@ -615,161 +1979,429 @@ public class JdiDapServer {
             className = fileName.replace(".java", "");
         }
 
-        // Clear existing breakpoints for this source path.
-        // Match by the "jdi-bp-source" property we tag on each BreakpointRequest.
-        // This avoids collisions between same-named classes in different packages
-        // (e.g. com.a.Foo vs com.b.Foo) since sourcePath is the exact DAP value.
-        if (vm != null) {
-            EventRequestManager erm = vm.eventRequestManager();
-            List<BreakpointRequest> toRemove = new ArrayList<>();
-            for (BreakpointRequest br : erm.breakpointRequests()) {
-                Object prop = br.getProperty("jdi-bp-source");
-                if (sourcePath.equals(prop)) {
-                    toRemove.add(br);
-                }
+        // Registry keyed by the exact DAP sourcePath, so same-named classes in
+        // different packages (com.a.Foo vs com.b.Foo) never share requests
+        SourceBreakpoints source = sourceBreakpoints.computeIfAbsent(sourcePath,
+                k -> new SourceBreakpoints(sourcePath, className, fileName, isJavaFqcn(sourcePath)));
+        deferredByClassName.computeIfAbsent(className, k -> new CopyOnWriteArraySet<>()).add(sourcePath);
+        if (!isJavaFqcn(sourcePath)) {
+            // FQCN sources name their class exactly; only file paths match by file
+            deferredByFileName.computeIfAbsent(fileName, k -> new CopyOnWriteArraySet<>()).add(sourcePath);
+        }
+        sourcePathMap.put(className, sourcePath);
+        return source;
+    }
+
+    /**
+     * Diff a setBreakpoints spec list against the source's registry. Lines
+     * with an identical spec are left alone. Removed lines lose their
+     * requests. Edited lines keep their id and are re-configured in place
+     * when neither the old nor the new spec needs request filters;
+     * otherwise (filters are fixed once a request exists) their requests
+     * are re-created on the same types. New lines bind on the loaded
+     * classes (looked up through the resolver, and only when something was
+     * added), or wait for the source watch. Caller holds the source.
+     */
+    private void applyBreakpointSpecs(SourceBreakpoints source, List<Object> breakpointSpecs,
+            java.util.function.Function<SourceBreakpoints, List<ReferenceType>> loadedClasses) {
+        Map<Integer, LineBreakpoint> previous = new HashMap<>(source.lines);
+        Map<Integer, LineBreakpoint> next = new LinkedHashMap<>();
+        List<LineBreakpoint> added = new ArrayList<>();
+        int kept = 0;
+        int edited = 0;
+        for (Object bpObj : breakpointSpecs) {
+            Map<String, Object> bpSpec = asMap(bpObj);
+            int line = intVal(bpSpec, "line");
+            if (next.containsKey(line)) continue; // the same line twice is one breakpoint
+            LineBreakpoint old = previous.remove(line);
+            LineBreakpoint lb = newLineBreakpoint(old != null ? old.id : nextBreakpointId.getAndIncrement(), bpSpec);
+            if (old != null && old.sameSpec(lb)) {
+                next.put(line, old);
+                kept++;
+                continue;
             }
-            for (BreakpointRequest br : toRemove) {
-                erm.deleteEventRequest(br);
+            next.put(line, lb);
+            if (old == null) {
+                added.add(lb);
+                continue;
+            }
+            edited++;
+            lb.boundLine = old.boundLine;
+            lb.message = old.message;
+            for (BreakpointRequest bpr : old.requests) {
+                if (reconfigureRequest(bpr, lb)) {
+                    lb.requests.add(bpr);
+                } else {
+                    ReferenceType refType = bpr.location().declaringType();
+                    deleteRequest(bpr);
+                    plantLineBreakpoint(refType, source, lb);
+                }
             }
         }
+        for (LineBreakpoint removed : previous.values()) {
+            for (BreakpointRequest bpr : removed.requests) deleteRequest(bpr);
+        }
+        source.lines.clear();
+        source.lines.putAll(next);
 
-        // Remove any existing class prepare requests for this source path
-        if (vm != null) {
-            EventRequestManager erm = vm.eventRequestManager();
-            List<ClassPrepareRequest> toRemove = new ArrayList<>();
-            for (ClassPrepareRequest cpr : erm.classPrepareRequests()) {
-                Object prop = cpr.getProperty("jdi-bp-source");
-                if (sourcePath.equals(prop)) {
-                    toRemove.add(cpr);
+        if (vm != null && !added.isEmpty()) {
+            // Watch before looking up: a class prepared after the lookup is
+            // then seen by the watch, one prepared before it by the lookup
+            ensureSourceWatch(source);
+            List<ReferenceType> refTypes = loadedClasses.apply(source);
+            for (LineBreakpoint lb : added) {
+                for (ReferenceType refType : refTypes) {
+                    plantLineBreakpoint(refType, source, lb);
                 }
             }
-            for (ClassPrepareRequest cpr : toRemove) {
-                erm.deleteEventRequest(cpr);
-            }
         }
+        if (source.lines.isEmpty()) {
+            for (ClassPrepareRequest cpr : source.watches) deleteRequest(cpr);
+            source.watches.clear();
+        } else {
+            ensureSourceWatch(source);
+        }
+        log("setBreakpoints " + source.sourcePath + ": " + added.size() + " added, " + edited + " changed, "
+                + previous.size() + " removed, " + kept + " unchanged");
+    }
 
-        // Store breakpoint specs for deferred setting (keyed by sourcePath for uniqueness)
-        Map<String, Object> bpInfo = new HashMap<>();
-        bpInfo.put("sourcePath", sourcePath);
-        bpInfo.put("className", className);
-        bpInfo.put("breakpoints", breakpointSpecs);
-        deferredBreakpoints.put(sourcePath, bpInfo);
-        sourcePathMap.put(className, sourcePath);
+    private void deleteRequest(EventRequest request) {
+        if (vm == null) return;
+        try {
+            vm.eventRequestManager().deleteEventRequest(request);
+        } catch (RuntimeException e) {
+            // already gone with its class, or the VM is disconnecting
+        }
+    }
 
-        // Try to set breakpoints on already-loaded classes
-        boolean classLoaded = false;
-        boolean hasUnresolvedBreakpoints = false;
-        if (vm != null) {
-            ReferenceType refType = findLoadedClass(className, fileName);
-
-            if (refType != null) {
-                classLoaded = true;
-                for (Object bpObj : breakpointSpecs) {
-                    Map<String, Object> bpSpec = asMap(bpObj);
-                    int line = intVal(bpSpec, "line");
-                    String condition = str(bpSpec, "condition");
-                    String suspendPol = str(bpSpec, "suspendPolicy");
-                    Map<String, Object> bp = setBreakpointOnClass(refType, line, condition, sourcePath, suspendPol);
-                    results.add(bp);
-                    if (!Boolean.TRUE.equals(bp.get("verified"))) {
-                        hasUnresolvedBreakpoints = true;
-                    }
-                }
+    /**
+     * Plant a line breakpoint on one type — at most one request per type.
+     * @return whether a new request was planted
+     */
+    private boolean plantLineBreakpoint(ReferenceType refType, SourceBreakpoints source, LineBreakpoint lb) {
+        for (BreakpointRequest existing : lb.requests) {
+            if (refType.equals(existing.location().declaringType())) return false;
+        }
+        try {
+            List<Location> locs = refType.locationsOfLine(lb.line);
+            if (locs.isEmpty()) {
+                if (lb.requests.isEmpty()) lb.message = "No executable code at line " + lb.line;
+                return false;
             }
+            Location loc = locs.get(0);
+            BreakpointRequest bpr = vm.eventRequestManager().createBreakpointRequest(loc);
+            // Tag with sourcePath for precise cleanup (avoids collisions between
+            // same-named classes in different packages, e.g. com.a.Foo vs com.b.Foo)
+            bpr.putProperty("jdi-bp-source", source.sourcePath);
+            bpr.putProperty("jdi-line-bp", lb);
+            bpr.putProperty("jdi-stats", new BreakpointStatistics());
+            BreakpointCondition condition = null;
+            boolean filtered = false;
+            if (lb.condition != null) {
+                // JDI doesn't support conditional breakpoints natively,
+                // but we store the compiled condition and evaluate it on hit
+                condition = compileCondition(lb.condition);
+                List<java.util.function.Consumer<BreakpointRequest>> filters = planPushdown(loc, condition);
+                for (java.util.function.Consumer<BreakpointRequest> filter : filters) filter.accept(bpr);
+                filtered = !filters.isEmpty();
+            }
+            configureRequest(bpr, lb, condition);
+            if (lb.hitCondition != null && armHitCondition(bpr, lb.hitCondition)) filtered = true;
+            // Filters are fixed for the request's lifetime; edits must re-create it
+            bpr.putProperty("jdi-filtered", filtered);
+            // A spent native count (re-planted after a redefine) must not fire again
+            if (lb.hitCondition == null || !lb.hitCondition.fired) {
+                bpr.enable();
+            }
+            if (lb.requests.isEmpty()) lb.boundLine = loc.lineNumber();
+            lb.requests.add(bpr);
+            log("Breakpoint set at " + refType.name() + ":" + lb.line);
+            return true;
+        } catch (AbsentInformationException e) {
+            if (lb.requests.isEmpty()) lb.message = "No debug info for class (compile with -g)";
+            return false;
         }
+    }
 
-        if (!classLoaded) {
-            // Class not loaded — register ClassPrepareRequest
-            if (vm != null) {
-                EventRequestManager erm = vm.eventRequestManager();
-                ClassPrepareRequest cpr = erm.createClassPrepareRequest();
-                cpr.addClassFilter("*" + className);
-                cpr.putProperty("jdi-bp-source", sourcePath);
-                cpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                cpr.enable();
-                log("Registered ClassPrepareRequest for *" + className);
+    /**
+     * The spec-dependent, filter-free part of a request: condition, hit
+     * condition and logpoint properties plus the suspend policy. The request
+     * must be disabled.
+     */
+    private void configureRequest(BreakpointRequest bpr, LineBreakpoint lb, BreakpointCondition condition) {
+        bpr.putProperty("condition", condition);
+        bpr.putProperty("hitCondition", lb.hitCondition);
+        bpr.putProperty("logMessage", lb.logMessage);
+        // "thread" = only suspend the event thread; default = suspend all threads.
+        // Logpoints hold only the hitting thread, for as long as the message takes.
+        if ("thread".equals(lb.suspendPolicy) || lb.logMessage != null) {
+            bpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+        } else {
+            bpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+        }
+    }
+
+    /**
+     * Apply an edited spec to an existing request without a JDWP delete and
+     * create — possible only when the request has no filters and the new
+     * spec needs none (no pushed-down conjunct, no native hit count).
+     * @return false if the request has to be re-created instead
+     */
+    private boolean reconfigureRequest(BreakpointRequest bpr, LineBreakpoint lb) {
+        if (Boolean.TRUE.equals(bpr.getProperty("jdi-filtered"))) return false;
+        BreakpointCondition condition = null;
+        try {
+            if (lb.condition != null) {
+                condition = compileCondition(lb.condition);
+                if (!planPushdown(bpr.location(), condition).isEmpty()) return false;
+            }
+            if (lb.hitCondition != null && usesCountFilter(lb.hitCondition, condition)) return false;
+            bpr.disable();
+            bpr.putProperty("jdi-line-bp", lb);
+            configureRequest(bpr, lb, condition);
+            if (lb.hitCondition == null || !lb.hitCondition.fired) bpr.enable();
+            return true;
+        } catch (RuntimeException e) {
+            return false; // request or its class is gone — re-create
+        }
+    }
+
+    // ========== Loaded Class Index ==========
 
-                // Also register for inner classes (e.g. Outer$Inner)
-                ClassPrepareRequest innerCpr = erm.createClassPrepareRequest();
-                innerCpr.addClassFilter(className + "$*");
-                innerCpr.putProperty("jdi-bp-source", sourcePath);
-                innerCpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                innerCpr.enable();
-                log("Registered ClassPrepareRequest for " + className + "$*");
+    /**
+     * Snapshot the loaded classes once per VM connection and keep the index
+     * current from SUSPEND_NONE ClassPrepare/ClassUnload watches, so
+     * breakpoint binding never falls back to an allClasses() pass with a
+     * sourceName() round trip per type. The watches are enabled before the
+     * snapshot so no class slips between the two (duplicates are ignored).
+     * Source names are fetched lazily, off the event loop: a background
+     * resolver starts right away and lookups by file name finish its work.
+     */
+    private void buildClassIndex() {
+        EventRequestManager erm = vm.eventRequestManager();
+        ClassPrepareRequest cpr = erm.createClassPrepareRequest();
+        cpr.putProperty("jdi-class-index", Boolean.TRUE);
+        cpr.setSuspendPolicy(EventRequest.SUSPEND_NONE);
+        cpr.enable();
+        ClassUnloadRequest cur = erm.createClassUnloadRequest();
+        cur.putProperty("jdi-class-index", Boolean.TRUE);
+        cur.setSuspendPolicy(EventRequest.SUSPEND_NONE);
+        cur.enable();
+
+        int count = 0;
+        for (ReferenceType rt : vm.allClasses()) {
+            // Unprepared types have no methods/locations yet; they arrive via the watch
+            if (rt.isPrepared()) {
+                classIndex.add(rt);
+                count++;
             }
+        }
+        log("Class index: " + count + " loaded classes");
+        Thread.ofVirtual().name("class-index").start(() -> {
+            try {
+                classIndex.resolvePending();
+            } catch (VMDisconnectedException e) {
+                // session ended mid-resolve
+            }
+        });
+    }
 
-            // Return unverified breakpoints
-            for (Object bpObj : breakpointSpecs) {
-                Map<String, Object> bpSpec = asMap(bpObj);
-                int line = intVal(bpSpec, "line");
-                Map<String, Object> bp = new HashMap<>();
-                bp.put("id", nextBreakpointId.getAndIncrement());
-                bp.put("verified", false);
-                bp.put("line", line);
-                bp.put("message", "Class not yet loaded, breakpoint pending");
-                bp.put("source", mapOf("path", sourcePath));
-                results.add(bp);
-            }
-        } else if (hasUnresolvedBreakpoints && vm != null) {
-            // Outer class is loaded but some breakpoints couldn't be set on it
-            // (e.g. breakpoints on lines inside inner classes). Register a
-            // ClassPrepareRequest for inner classes so they resolve when loaded.
-            EventRequestManager erm = vm.eventRequestManager();
-            ClassPrepareRequest innerCpr = erm.createClassPrepareRequest();
-            innerCpr.addClassFilter(className + "$*");
-            innerCpr.putProperty("jdi-bp-source", sourcePath);
-            innerCpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-            innerCpr.enable();
-            log("Registered ClassPrepareRequest for inner classes " + className + "$* (some breakpoints unresolved on outer class)");
+    /**
+     * Loaded ReferenceTypes keyed by FQCN, simple name and source file name.
+     * The simple-name key is the innermost one (pkg.Outer$Inner → Inner), the
+     * last segment of a DAP-style qualified name like Outer.Inner. Every key
+     * maps to all matching types, so a class defined by several
+     * classloaders keeps one entry per copy. Name keys are derived locally
+     * (JDI knows a type's signature without a round trip); source names cost
+     * one JDWP round trip per type and are resolved lazily by
+     * {@link #resolvePending}, each at most once. Non-JDK types are also
+     * keyed by the names of the methods they declare, for bare-name function
+     * breakpoints; that key costs a methods() round trip per type and is
+     * only built once a lookup needs it (see {@link #byMethodName}).
+     */
+    private static final class LoadedClassIndex {
+        private final Map<String, List<ReferenceType>> byName = new HashMap<>();
+        private final Map<String, List<ReferenceType>> bySimpleName = new HashMap<>();
+        private final Map<String, List<ReferenceType>> bySourceName = new HashMap<>();
+        private final Map<ReferenceType, String> sourceNames = new HashMap<>();
+        private final ArrayDeque<ReferenceType> unresolved = new ArrayDeque<>();
+        /** Serialises resolvers so a lookup returns only after every earlier add is resolved. */
+        private final Object resolveLock = new Object();
+        // Method name -> declaring non-JDK types; null until the first lookup
+        private Map<String, List<ReferenceType>> byMethodName;
+        private final Map<ReferenceType, Set<String>> methodNames = new HashMap<>();
+        private final ArrayDeque<ReferenceType> methodsPending = new ArrayDeque<>();
+        private final Object methodLock = new Object();
+
+        synchronized void add(ReferenceType rt) {
+            List<ReferenceType> copies = byName.computeIfAbsent(rt.name(), k -> new ArrayList<>(1));
+            if (copies.contains(rt)) return;
+            copies.add(rt);
+            bySimpleName.computeIfAbsent(innermostName(rt.name()), k -> new ArrayList<>(1)).add(rt);
+            unresolved.add(rt);
+            if (byMethodName != null && !isJdkClassName(rt.name())) methodsPending.add(rt);
+        }
+
+        /** A class was unloaded: keep only the copies the VM still reports live. */
+        synchronized void unload(String name, List<ReferenceType> live) {
+            List<ReferenceType> copies = byName.get(name);
+            if (copies == null) return;
+            for (ReferenceType rt : new ArrayList<>(copies)) {
+                if (live.contains(rt)) continue;
+                copies.remove(rt);
+                removeFrom(bySimpleName, innermostName(name), rt);
+                String sourceName = sourceNames.remove(rt);
+                if (sourceName != null) removeFrom(bySourceName, sourceName, rt);
+                unresolved.remove(rt);
+                Set<String> declared = methodNames.remove(rt);
+                if (declared != null) {
+                    for (String method : declared) removeFrom(byMethodName, method, rt);
+                }
+                methodsPending.remove(rt);
+            }
+            if (copies.isEmpty()) byName.remove(name);
         }
 
-        sendResponse(reqSeq, "setBreakpoints", true, mapOf("breakpoints", results));
-    }
+        synchronized List<ReferenceType> byName(String name) {
+            List<ReferenceType> copies = byName.get(name);
+            return copies == null ? Collections.emptyList() : new ArrayList<>(copies);
+        }
 
-    private Map<String, Object> setBreakpointOnClass(ReferenceType refType, int line, String condition, String sourcePath, String suspendPolicy) {
-        Map<String, Object> bp = new HashMap<>();
-        bp.put("id", nextBreakpointId.getAndIncrement());
-        try {
-            List<Location> locs = refType.locationsOfLine(line);
-            if (locs.isEmpty()) {
-                bp.put("verified", false);
-                bp.put("line", line);
-                bp.put("message", "No executable code at line " + line);
-                return bp;
+        synchronized List<ReferenceType> bySimpleName(String simpleName) {
+            List<ReferenceType> types = bySimpleName.get(simpleName);
+            return types == null ? Collections.emptyList() : new ArrayList<>(types);
+        }
+
+        List<ReferenceType> bySourceName(String fileName) {
+            resolvePending();
+            synchronized (this) {
+                List<ReferenceType> types = bySourceName.get(fileName);
+                return types == null ? Collections.emptyList() : new ArrayList<>(types);
             }
+        }
 
-            EventRequestManager erm = vm.eventRequestManager();
-            BreakpointRequest bpr = erm.createBreakpointRequest(locs.get(0));
-            if (condition != null && !condition.isEmpty()) {
-                // JDI doesn't support conditional breakpoints natively,
-                // but we store the condition and evaluate it on hit
-                bpr.putProperty("condition", condition);
+        /** Fetch source names for queued types; JDWP calls run outside the index monitor. */
+        void resolvePending() {
+            synchronized (resolveLock) {
+                while (true) {
+                    ReferenceType rt;
+                    synchronized (this) {
+                        rt = unresolved.poll();
+                    }
+                    if (rt == null) return;
+                    String sourceName;
+                    try {
+                        sourceName = rt.sourceName();
+                    } catch (AbsentInformationException | ObjectCollectedException e) {
+                        continue; // no source attribute, or unloaded meanwhile
+                    }
+                    synchronized (this) {
+                        List<ReferenceType> copies = byName.get(rt.name());
+                        if (copies == null || !copies.contains(rt)) continue; // unloaded meanwhile
+                        sourceNames.put(rt, sourceName);
+                        bySourceName.computeIfAbsent(sourceName, k -> new ArrayList<>(1)).add(rt);
+                    }
+                }
             }
-            // Tag with sourcePath for precise cleanup (avoids collisions between
-            // same-named classes in different packages, e.g. com.a.Foo vs com.b.Foo)
-            if (sourcePath != null) {
-                bpr.putProperty("jdi-bp-source", sourcePath);
+        }
+
+        /**
+         * Non-JDK types declaring a method of that name. The first call
+         * indexes every loaded non-JDK type (one methods() round trip each);
+         * later calls only index types prepared since.
+         */
+        List<ReferenceType> byMethodName(String methodName) {
+            indexMethods();
+            synchronized (this) {
+                List<ReferenceType> types = byMethodName.get(methodName);
+                return types == null ? Collections.emptyList() : new ArrayList<>(types);
+            }
+        }
+
+        /**
+         * Names of the methods {@code rt} declares. Costs at most one methods()
+         * round trip, for {@code rt} only: types queued by {@link #add} are left
+         * for the next {@link #byMethodName} lookup, which runs on a request
+         * lane rather than the event loop.
+         */
+        Set<String> methodNamesOf(ReferenceType rt) {
+            synchronized (this) {
+                Set<String> declared = methodNames.get(rt);
+                if (declared != null) return declared;
+            }
+            Set<String> declared = declaredMethodNames(rt);
+            synchronized (this) {
+                // Save it if the index is live and already holds rt; otherwise
+                // rt's index event may still follow in the same event set
+                List<ReferenceType> copies = byName.get(rt.name());
+                if (byMethodName != null && copies != null && copies.contains(rt)
+                        && methodNames.putIfAbsent(rt, declared) == null) {
+                    methodsPending.remove(rt);
+                    for (String method : declared) {
+                        byMethodName.computeIfAbsent(method, k -> new ArrayList<>(1)).add(rt);
+                    }
+                }
             }
-            // "thread" = only suspend the event thread; default = suspend all threads
-            if ("thread".equals(suspendPolicy)) {
-                bpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
-            } else {
-                bpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+            return declared;
+        }
+
+        private void indexMethods() {
+            synchronized (methodLock) {
+                List<ReferenceType> batch;
+                synchronized (this) {
+                    if (byMethodName == null) {
+                        byMethodName = new HashMap<>();
+                        for (List<ReferenceType> copies : byName.values()) {
+                            for (ReferenceType rt : copies) {
+                                if (!isJdkClassName(rt.name())) methodsPending.add(rt);
+                            }
+                        }
+                    }
+                    if (methodsPending.isEmpty()) return;
+                    batch = new ArrayList<>(methodsPending);
+                    methodsPending.clear();
+                }
+                for (ReferenceType rt : batch) {
+                    Set<String> declared = declaredMethodNames(rt);
+                    synchronized (this) {
+                        List<ReferenceType> copies = byName.get(rt.name());
+                        if (copies == null || !copies.contains(rt)) continue; // unloaded meanwhile
+                        if (methodNames.putIfAbsent(rt, declared) != null) continue; // saved by methodNamesOf
+                        for (String method : declared) {
+                            byMethodName.computeIfAbsent(method, k -> new ArrayList<>(1)).add(rt);
+                        }
+                    }
+                }
             }
-            bpr.enable();
+        }
 
-            bp.put("verified", true);
-            bp.put("line", locs.get(0).lineNumber());
-            if (sourcePath != null) {
-                bp.put("source", mapOf("path", sourcePath));
+        private static Set<String> declaredMethodNames(ReferenceType rt) {
+            Set<String> names = new HashSet<>();
+            try {
+                for (Method m : rt.methods()) names.add(m.name());
+            } catch (ClassNotPreparedException | ObjectCollectedException e) {
+                // not prepared yet, or unloaded — nothing declared as far as we can tell
             }
-            log("Breakpoint set at " + refType.name() + ":" + line);
-        } catch (AbsentInformationException e) {
-            bp.put("verified", false);
-            bp.put("line", line);
-            bp.put("message", "No debug info for class (compile with -g)");
+            return names;
+        }
+
+        private static void removeFrom(Map<String, List<ReferenceType>> index, String key, ReferenceType rt) {
+            List<ReferenceType> types = index.get(key);
+            if (types == null) return;
+            types.remove(rt);
+            if (types.isEmpty()) index.remove(key);
+        }
+
+        static String innermostName(String name) {
+            return name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1);
+        }
+
+        /** JDK internals, which bare function-breakpoint names never target. */
+        static boolean isJdkClassName(String name) {
+            return name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("sun.") || name.startsWith("jdk.")
+                || name.startsWith("com.sun.");
         }
-        return bp;
     }
 
     // ========== Function Breakpoints (issue #292) ==========
@@ -814,6 +2446,10 @@ public class JdiDapServer {
                         if (condition != null && !condition.isEmpty()) {
                             record.put("condition", condition);
                         }
+                        HitCondition hitCondition = parseHitCondition(str(spec, "hitCondition"));
+                        if (hitCondition != null) {
+                            record.put("hitCondition", hitCondition);
+                        }
                     }
                     functionBreakpoints.add(record);
                 }
@@ -836,26 +2472,42 @@ public class JdiDapServer {
      *  jdi-bp-source tag, so neither cleanup can touch the other's requests. */
     private void clearFunctionBreakpointRequests() {
         functionBreakpoints.clear();
-        if (vm == null) return;
-        EventRequestManager erm = vm.eventRequestManager();
         List<EventRequest> toRemove = new ArrayList<>();
-        for (BreakpointRequest br : erm.breakpointRequests()) {
-            if (br.getProperty("jdi-fnbp-name") != null) toRemove.add(br);
+        for (Map<Location, BreakpointRequest> bound : fnBpRequests.values()) {
+            toRemove.addAll(bound.values());
         }
+        fnBpRequests.clear();
+        if (vm == null) return;
+        EventRequestManager erm = vm.eventRequestManager();
         for (ClassPrepareRequest cpr : erm.classPrepareRequests()) {
             if (cpr.getProperty("jdi-fnbp-name") != null) toRemove.add(cpr);
         }
         for (EventRequest req : toRemove) {
-            erm.deleteEventRequest(req);
+            try {
+                erm.deleteEventRequest(req);
+            } catch (RuntimeException e) { /* gone with its class */ }
         }
     }
 
-    /** One pass over loaded classes, binding every matching record. */
+    /**
+     * Bind every record on the loaded classes it names. Qualified records only
+     * look at types sharing the qualifier's innermost simple name; bare names
+     * only at the non-JDK types that declare a method of that name, from the
+     * index's method-name key (see LoadedClassIndex#byMethodName).
+     */
     private void bindFunctionBreakpointsOnLoadedClasses() {
-        for (ReferenceType rt : vm.allClasses()) {
-            for (Map<String, Object> record : functionBreakpoints) {
-                if (record.containsKey("invalid")) continue;
-                if (fnBpClassMatches(str(record, "classPart"), rt)) {
+        for (Map<String, Object> record : functionBreakpoints) {
+            if (record.containsKey("invalid")) continue;
+            String classPart = str(record, "classPart");
+            List<ReferenceType> candidates;
+            if (classPart == null) {
+                // Only the types that declare the method, not every loaded class
+                candidates = classIndex.byMethodName(str(record, "methodName"));
+            } else {
+                candidates = classIndex.bySimpleName(LoadedClassIndex.innermostName(classPart));
+            }
+            for (ReferenceType rt : candidates) {
+                if (fnBpClassMatches(classPart, rt)) {
                     bindFunctionBreakpointOnType(record, rt);
                 }
             }
@@ -870,9 +2522,7 @@ public class JdiDapServer {
     private boolean fnBpClassMatches(String classPart, ReferenceType rt) {
         String rtName = rt.name();
         if (classPart == null) {
-            return !rtName.startsWith("java.") && !rtName.startsWith("javax.")
-                && !rtName.startsWith("sun.") && !rtName.startsWith("jdk.")
-                && !rtName.startsWith("com.sun.");
+            return !LoadedClassIndex.isJdkClassName(rtName);
         }
         if (rtName.equals(classPart) || rtName.endsWith("." + classPart)) return true;
         // Inner classes: JDI reports Outer$Inner, the DAP name says Outer.Inner
@@ -896,16 +2546,25 @@ public class JdiDapServer {
                 if (m.isAbstract() || m.isNative()) continue;
                 Location loc = m.location();
                 if (loc == null) continue;
-                if (hasFunctionBreakpointAt(erm, name, loc)) continue;
+                Map<Location, BreakpointRequest> bound = fnBpRequests.computeIfAbsent(name, k -> new HashMap<>());
+                if (bound.containsKey(loc)) continue;
                 BreakpointRequest bpr = erm.createBreakpointRequest(loc);
+                bound.put(loc, bpr);
                 bpr.putProperty("jdi-fnbp-name", name);
                 bpr.putProperty("jdi-fnbp-id", record.get("id"));
+                bpr.putProperty("jdi-stats", new BreakpointStatistics());
                 String condition = str(record, "condition");
                 if (condition != null && !condition.isEmpty()) {
-                    bpr.putProperty("condition", condition);
+                    attachCondition(bpr, condition);
+                }
+                HitCondition hitCondition = (HitCondition) record.get("hitCondition");
+                if (hitCondition != null) {
+                    armHitCondition(bpr, hitCondition);
                 }
                 bpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                bpr.enable();
+                if (hitCondition == null || !hitCondition.fired) {
+                    bpr.enable();
+                }
                 if (!Boolean.TRUE.equals(record.get("verified"))) {
                     record.put("verified", true);
                     if (loc.lineNumber() > 0) {
@@ -926,15 +2585,6 @@ public class JdiDapServer {
         }
     }
 
-    private boolean hasFunctionBreakpointAt(EventRequestManager erm, String name, Location loc) {
-        for (BreakpointRequest br : erm.breakpointRequests()) {
-            if (name != null && name.equals(br.getProperty("jdi-fnbp-name")) && loc.equals(br.location())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Watch future class loads so unbound (and multi-classloader) records keep
      * binding for the whole session, mirroring the line-breakpoint CPRs.
@@ -961,7 +2611,7 @@ public class JdiDapServer {
             ClassPrepareRequest cpr = erm.createClassPrepareRequest();
             cpr.addClassFilter("*" + lastSegment);
             cpr.putProperty("jdi-fnbp-name", str(record, "name"));
-            cpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+            cpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
             cpr.enable();
         }
         if (needBareWatch) {
@@ -972,7 +2622,7 @@ public class JdiDapServer {
             cpr.addClassExclusionFilter("jdk.*");
             cpr.addClassExclusionFilter("com.sun.*");
             cpr.putProperty("jdi-fnbp-name", "*");
-            cpr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+            cpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
             cpr.enable();
             log("Registered shared bare-name function-breakpoint watch");
         }
@@ -1009,9 +2659,15 @@ public class JdiDapServer {
     private void handleClassPreparedForFunctionBreakpoints(ReferenceType refType) {
         synchronized (fnBpLock) {
             if (functionBreakpoints.isEmpty()) return;
+            Set<String> declared = null; // fetched once, for this type only
             for (Map<String, Object> record : functionBreakpoints) {
                 if (record.containsKey("invalid")) continue;
-                if (!fnBpClassMatches(str(record, "classPart"), refType)) continue;
+                String classPart = str(record, "classPart");
+                if (!fnBpClassMatches(classPart, refType)) continue;
+                if (classPart == null) {
+                    if (declared == null) declared = classIndex.methodNamesOf(refType);
+                    if (!declared.contains(str(record, "methodName"))) continue; // no methodsByName per record
+                }
                 boolean wasVerified = Boolean.TRUE.equals(record.get("verified"));
                 bindFunctionBreakpointOnType(record, refType);
                 if (!wasVerified && Boolean.TRUE.equals(record.get("verified"))) {
@@ -1119,8 +2775,7 @@ public class JdiDapServer {
         sendResponse(reqSeq, "threads", true, mapOf("threads", threads));
     }
 
-    private void handleStackTrace(int reqSeq, Map<String, Object> args) {
-        long threadId = longVal(args, "threadId");
+    private void handleStackTrace(int reqSeq, long threadId) {
         List<Map<String, Object>> frames = new ArrayList<>();
         String message = null;
 
@@ -1198,8 +2853,7 @@ public class JdiDapServer {
         }
     }
 
-    private void handleScopes(int reqSeq, Map<String, Object> args) {
-        int frameId = intVal(args, "frameId");
+    private void handleScopes(int reqSeq, int frameId) {
         List<Map<String, Object>> scopes = new ArrayList<>();
 
         // Decode frameId to get threadId and frameIndex
@@ -1227,13 +2881,19 @@ public class JdiDapServer {
         sendResponse(reqSeq, "scopes", true, mapOf("scopes", scopes));
     }
 
-    private void handleVariables(int reqSeq, Map<String, Object> args) {
-        int varRef = intVal(args, "variablesReference");
+    private void handleVariables(int reqSeq, int varRef) {
         List<Map<String, Object>> variables = new ArrayList<>();
+        RequestToken token = inFlight.get(reqSeq);
 
         if (vm != null) {
             try {
+                StackFrame sf = null;
+                ObjectReference objRef = null;
+                long generation;
+                // Only the lookup holds the lock: a continue (clearFrameCache)
+                // must not wait behind one JDWP call per array element
                 synchronized (threadFrameCache) {
+                    generation = frameGeneration;
                     // Check if this is a scope reference (locals for a frame)
                     long[] scopeInfo = scopeRefMap.get(varRef);
                     if (scopeInfo != null) {
@@ -1244,20 +2904,29 @@ public class JdiDapServer {
                         if (thread != null) {
                             List<StackFrame> cachedFrames = threadFrameCache.get(thread.uniqueID());
                             if (cachedFrames != null && frameIndex < cachedFrames.size()) {
-                                StackFrame sf = cachedFrames.get(frameIndex);
-                                variables = getFrameVariables(sf);
+                                sf = cachedFrames.get(frameIndex);
                             }
                         }
                     } else {
                         // Expandable object or array reference
-                        ObjectReference objRef = varRefMap.get(varRef);
-                        if (objRef instanceof ArrayReference) {
-                            variables = getArrayElements((ArrayReference) objRef);
-                        } else if (objRef != null) {
-                            variables = getObjectFields(objRef);
-                        }
+                        objRef = varRefMap.get(varRef);
                     }
                 }
+                if (sf != null) {
+                    variables = getFrameVariables(sf);
+                } else if (objRef instanceof ArrayReference) {
+                    variables = getArrayElements((ArrayReference) objRef, token);
+                } else if (objRef != null) {
+                    variables = getObjectFields(objRef, token);
+                }
+                if (generation != frameGeneration) {
+                    // Resumed mid-walk: the values (and the refs handed out) are stale
+                    sendErrorResponse(reqSeq, "variables", "The program resumed while variables were being read");
+                    return;
+                }
+            } catch (RequestCancelledException e) {
+                sendErrorResponse(reqSeq, "variables", "cancelled");
+                return;
             } catch (Exception e) {
                 log("Error getting variables: " + e.getMessage());
             }
@@ -1295,11 +2964,12 @@ public class JdiDapServer {
         return vars;
     }
 
-    private List<Map<String, Object>> getArrayElements(ArrayReference arr) {
+    private List<Map<String, Object>> getArrayElements(ArrayReference arr, RequestToken token) {
         List<Map<String, Object>> vars = new ArrayList<>();
         try {
             int length = arr.length();
             for (int i = 0; i < length; i++) {
+                if (token != null) token.throwIfCancelled();
                 Value val = arr.getValue(i);
                 String valStr = val == null ? "null" : val.toString();
                 String typeName = val == null ? "null" : val.type().name();
@@ -1316,21 +2986,26 @@ public class JdiDapServer {
                 }
                 vars.add(v);
             }
+        } catch (RequestCancelledException e) {
+            throw e;
         } catch (Exception e) {
             // Ignore errors accessing array elements
         }
         return vars;
     }
 
-    private List<Map<String, Object>> getObjectFields(ObjectReference objRef) {
+    private List<Map<String, Object>> getObjectFields(ObjectReference objRef, RequestToken token) {
         List<Map<String, Object>> vars = new ArrayList<>();
         try {
             ReferenceType type = objRef.referenceType();
             for (Field field : type.allFields()) {
+                if (token != null) token.throwIfCancelled();
                 if (field.isStatic()) continue; // skip static fields by default
                 Value val = objRef.getValue(field);
                 vars.add(makeVariable(field.name(), field.typeName(), val));
             }
+        } catch (RequestCancelledException e) {
+            throw e;
         } catch (Exception e) {
             log("Error getting object fields: " + e.getMessage());
         }
@@ -1374,13 +3049,12 @@ public class JdiDapServer {
         return v;
     }
 
-    private void handleContinue(int reqSeq, Map<String, Object> args) {
+    private void handleContinue(int reqSeq, long threadId) {
         clearFrameCache();
         if (vm == null) {
             sendErrorResponse(reqSeq, "continue", "No active debug session");
             return;
         }
-        long threadId = longVal(args, "threadId");
         boolean allContinued;
         try {
             if (!lastStopAllThreads && threadId > 0) {
@@ -1396,6 +3070,8 @@ public class JdiDapServer {
                 vm.resume();
                 allContinued = true;
             }
+            resumeAfterAbandonedInvocations(lastStopAllThreads ? 0 : threadId);
+            endSuspension(allContinued ? 0 : threadId);
         } catch (VMDisconnectedException e) {
             allContinued = true;
         }
@@ -1404,6 +3080,26 @@ public class JdiDapServer {
         sendResponse(reqSeq, "continue", true, body);
     }
 
+    /**
+     * An abandoned invocation still running in the target restores its
+     * thread's suspension when it returns, undoing this continue for that
+     * thread — so resume it again once the invocation is over.
+     *
+     * @param threadId only this thread (0 = every thread)
+     */
+    private void resumeAfterAbandonedInvocations(long threadId) {
+        for (Map.Entry<Long, CompletableFuture<Void>> entry : abandonedInvocations.entrySet()) {
+            if (threadId != 0 && entry.getKey() != threadId) continue;
+            ThreadReference thread = findThread(entry.getKey());
+            if (thread == null) continue;
+            entry.getValue().thenRun(() -> {
+                try {
+                    thread.resume();
+                } catch (RuntimeException e) { /* VM gone or thread dead */ }
+            });
+        }
+    }
+
     private void handlePause(int reqSeq, Map<String, Object> args) {
         if (vm == null) {
             sendErrorResponse(reqSeq, "pause", "No active debug session");
@@ -1438,8 +3134,7 @@ public class JdiDapServer {
         }
     }
 
-    private void handleStep(int reqSeq, Map<String, Object> args, int depth) {
-        long threadId = longVal(args, "threadId");
+    private void handleStep(int reqSeq, long threadId, int depth) {
         String cmdName = stepCommandName(depth);
         clearFrameCache();
 
@@ -1460,6 +3155,7 @@ public class JdiDapServer {
             stepReq.setSuspendPolicy(EventRequest.SUSPEND_ALL);
             stepReq.enable();
             vm.resume();
+            endSuspension(0);
         } catch (Exception e) {
             sendErrorResponse(reqSeq, cmdName, "Step error: " + e.getMessage());
             return;
@@ -1478,9 +3174,7 @@ public class JdiDapServer {
         sendResponse(reqSeq, "terminate", true, new HashMap<>());
     }
 
-    private void handleEvaluate(int reqSeq, Map<String, Object> args) {
-        String expression = str(args, "expression");
-        Integer frameIdObj = intValOrNull(args, "frameId");
+    private void handleEvaluate(int reqSeq, String expression, Integer frameIdObj) {
 
         if (vm == null || expression == null) {
             sendErrorResponse(reqSeq, "evaluate", "No active debug session");
@@ -1511,7 +3205,13 @@ public class JdiDapServer {
             }
 
             StackFrame sf = frames.get(frameIndex);
-            ExprEvaluator evaluator = new ExprEvaluator(expression, vm, thread, sf);
+            if (abandonedInvocations.containsKey(threadId)) {
+                sendErrorResponse(reqSeq, "evaluate",
+                        "Thread is still running an earlier method invocation that timed out or was cancelled");
+                return;
+            }
+            ExprEvaluator evaluator = new ExprEvaluator(expression, vm, thread, sf,
+                    invocationLimits(inFlight.get(reqSeq)));
             Value result = evaluator.evaluate();
 
             String typeName = result != null ? result.type().name() : "null";
@@ -1522,37 +3222,13 @@ public class JdiDapServer {
             body.put("variablesReference", varInfo.get("variablesReference"));
             sendResponse(reqSeq, "evaluate", true, body);
 
+        } catch (RequestCancelledException e) {
+            sendErrorResponse(reqSeq, "evaluate", "cancelled");
         } catch (Exception e) {
             sendErrorResponse(reqSeq, "evaluate", "Evaluation error: " + e.getMessage());
         }
     }
 
-    private void handleSetExceptionBreakpoints(int reqSeq, Map<String, Object> args) {
-        // Basic exception breakpoint support
-        List<Object> filters = list(args, "filters");
-        if (vm != null) {
-            EventRequestManager erm = vm.eventRequestManager();
-            // Remove existing exception requests
-            for (ExceptionRequest er : new ArrayList<>(erm.exceptionRequests())) {
-                erm.deleteEventRequest(er);
-            }
-
-            if (filters != null) {
-                for (Object f : filters) {
-                    String filter = String.valueOf(f);
-                    boolean caught = "caught".equals(filter);
-                    boolean uncaught = "uncaught".equals(filter);
-                    if (caught || uncaught) {
-                        ExceptionRequest er = erm.createExceptionRequest(null, caught, uncaught);
-                        er.setSuspendPolicy(EventRequest.SUSPEND_ALL);
-                        er.enable();
-                    }
-                }
-            }
-        }
-        sendResponse(reqSeq, "setExceptionBreakpoints", true, new HashMap<>());
-    }
-
     private void handleExceptionInfo(int reqSeq, Map<String, Object> args) {
         ExceptionStop ex = lastException;
         if (vm == null || ex == null) {
@@ -1632,14 +3308,893 @@ public class JdiDapServer {
                 sb.append("\n\tat ").append(loc.declaringType().name()).append('.')
                   .append(loc.method().name()).append('(').append(source).append(')');
             }
-            return sb.toString();
-        } catch (IncompatibleThreadStateException e) {
-            return null; // thread resumed between stop and request — omit stackTrace
-        } catch (RuntimeException e) {
-            return null;
+            return sb.toString();
+        } catch (IncompatibleThreadStateException e) {
+            return null; // thread resumed between stop and request — omit stackTrace
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ========== Exception Breakpoints ==========
+
+    /**
+     * One exception breakpoint, from a DAP filter ("caught"/"uncaught", with
+     * an optional filterOptions condition) or an exceptionOptions entry.
+     * Planted as an ExceptionRequest per loaded copy of its exception type
+     * (JDWP reports subclasses too), or one type-less request. Throw-site
+     * patterns become JDWP class filters on the throw location, so the
+     * target never reports those throws. Catch-site patterns and excluded
+     * types, which JDWP cannot filter, are checked by the event loop before
+     * any stopped event goes out. A de-duplicating breakpoint ("once",
+     * "every:N") stops once per throw site, or once per N seconds, and only
+     * counts the other throws.
+     */
+    private static final class ExceptionBreakpoint {
+        final String typeName; // null: any exception
+        final boolean caught;
+        final boolean uncaught;
+        final List<String> throwIn = new ArrayList<>();
+        final List<String> throwNotIn = new ArrayList<>();
+        final List<String> caughtNotIn = new ArrayList<>();
+        final List<String> excludedTypes = new ArrayList<>();
+        final List<ExceptionRequest> requests = new CopyOnWriteArrayList<>();
+        // -1: stop on every throw; 0: first throw per site; else per site per interval
+        long dedupNanos = -1;
+        ThrowSites throwSites; // set with dedupNanos >= 0
+        // Typed breakpoints: the setExceptionBreakpoints entry reporting them, until bound
+        Map<String, Object> result;
+
+        ExceptionBreakpoint(String typeName, boolean caught, boolean uncaught) {
+            this.typeName = typeName;
+            this.caught = caught;
+            this.uncaught = uncaught;
+        }
+
+        ExceptionBreakpoint withFilters(String typeName, ExceptionBreakpoint filters) {
+            ExceptionBreakpoint eb = new ExceptionBreakpoint(typeName, caught, uncaught);
+            eb.throwIn.addAll(filters.throwIn);
+            eb.throwNotIn.addAll(filters.throwNotIn);
+            eb.caughtNotIn.addAll(filters.caughtNotIn);
+            eb.excludedTypes.addAll(filters.excludedTypes);
+            eb.setDedup(filters.dedupNanos);
+            return eb;
+        }
+
+        void setDedup(long nanos) {
+            dedupNanos = nanos;
+            throwSites = nanos >= 0 ? new ThrowSites() : null;
+        }
+
+        /** Whether a throw that passed every filter stops; always counted. */
+        boolean shouldStop(ReferenceType exceptionType, Location throwLocation) {
+            if (throwSites == null) return true;
+            ThrowSite site = throwSites.record(exceptionType, throwLocation);
+            long now = System.nanoTime();
+            synchronized (site) {
+                if (site.stops == 0 || (dedupNanos > 0 && now - site.lastStopNanos >= dedupNanos)) {
+                    site.stops++;
+                    site.lastStopNanos = now;
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        /** Whether a reported exception must still be dropped by the bridge. */
+        boolean suppresses(ObjectReference exception, Location catchLocation) {
+            if (catchLocation != null && !caughtNotIn.isEmpty()) {
+                String catcher = catchLocation.declaringType().name();
+                for (String pattern : caughtNotIn) {
+                    if (matchesClassPattern(pattern, catcher)) return true;
+                }
+            }
+            if (!excludedTypes.isEmpty() && exception.referenceType() instanceof ClassType) {
+                for (ClassType t = (ClassType) exception.referenceType(); t != null; t = t.superclass()) {
+                    if (excludedTypes.contains(t.name())) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** One (exception type, throw location) pair and its counters. */
+    private static final class ThrowSite {
+        final ReferenceType exceptionType;
+        final Location location;
+        final AtomicLong thrown = new AtomicLong();
+        long stops; // guarded by the site
+        long lastStopNanos;
+
+        ThrowSite(ReferenceType exceptionType, Location location) {
+            this.exceptionType = exceptionType;
+            this.location = location;
+        }
+    }
+
+    /**
+     * Throw sites of one de-duplicating exception breakpoint. A compact
+     * open-addressing table keyed by a 64-bit hash of the exception type
+     * and throw location — the per-event check is a few array probes on
+     * mirrors the event already holds, with no strings and no boxing; a
+     * probe hit is confirmed with equals, so hash collisions never merge
+     * two sites. Insertions come from the event loop only; the summary
+     * request reads {@link #snapshot()}.
+     */
+    private static final class ThrowSites {
+        private long[] hashes = new long[64];
+        private ThrowSite[] slots = new ThrowSite[64];
+        private int size;
+
+        synchronized ThrowSite record(ReferenceType exceptionType, Location location) {
+            long hash = ((long) exceptionType.hashCode() << 32) ^ (location.hashCode() & 0xFFFFFFFFL);
+            int mask = slots.length - 1;
+            int i = (int) (hash ^ (hash >>> 29)) & mask;
+            while (slots[i] != null) {
+                ThrowSite site = slots[i];
+                if (hashes[i] == hash && site.location.equals(location) && site.exceptionType.equals(exceptionType)) {
+                    site.thrown.incrementAndGet();
+                    return site;
+                }
+                i = (i + 1) & mask;
+            }
+            ThrowSite site = new ThrowSite(exceptionType, location);
+            site.thrown.incrementAndGet();
+            hashes[i] = hash;
+            slots[i] = site;
+            if (++size * 2 > slots.length) grow();
+            return site;
+        }
+
+        private void grow() {
+            long[] oldHashes = hashes;
+            ThrowSite[] oldSlots = slots;
+            hashes = new long[oldSlots.length * 2];
+            slots = new ThrowSite[oldSlots.length * 2];
+            int mask = slots.length - 1;
+            for (int j = 0; j < oldSlots.length; j++) {
+                if (oldSlots[j] == null) continue;
+                long hash = oldHashes[j];
+                int i = (int) (hash ^ (hash >>> 29)) & mask;
+                while (slots[i] != null) i = (i + 1) & mask;
+                hashes[i] = hash;
+                slots[i] = oldSlots[j];
+            }
+        }
+
+        synchronized List<ThrowSite> snapshot() {
+            List<ThrowSite> sites = new ArrayList<>(size);
+            for (ThrowSite site : slots) {
+                if (site != null) sites.add(site);
+            }
+            return sites;
+        }
+    }
+
+    /**
+     * Custom exceptionSummary: every throw site a de-duplicating exception
+     * breakpoint has seen, with how often it threw and how many of those
+     * throws stopped, busiest first. Answered off the session lane.
+     */
+    private void handleExceptionSummary(int reqSeq) {
+        List<ExceptionBreakpoint> current;
+        synchronized (exceptionBpLock) {
+            current = new ArrayList<>(exceptionBreakpoints);
+        }
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (ExceptionBreakpoint eb : current) {
+            if (eb.throwSites == null) continue;
+            for (ThrowSite site : eb.throwSites.snapshot()) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("exceptionType", site.exceptionType.name());
+                Location loc = site.location;
+                entry.put("location", loc.declaringType().name() + "." + loc.method().name() + ":" + loc.lineNumber());
+                long thrown = site.thrown.get();
+                long stops;
+                synchronized (site) {
+                    stops = site.stops;
+                }
+                entry.put("thrown", thrown);
+                entry.put("stopped", stops);
+                entry.put("suppressed", thrown - stops);
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparingLong((Map<String, Object> e) -> (Long) e.get("thrown")).reversed());
+        sendResponse(reqSeq, "exceptionSummary", true, mapOf("sites", entries));
+    }
+
+    /** A setExceptionBreakpoints response entry; verified unless there is a message. */
+    private static Map<String, Object> exceptionResult(String message) {
+        Map<String, Object> bp = mapOf("verified", message == null);
+        if (message != null) bp.put("message", message);
+        return bp;
+    }
+
+    /** JDI class-pattern match: exact, "prefix.*", "*.suffix" or "*". */
+    private static boolean matchesClassPattern(String pattern, String className) {
+        if (pattern.equals("*")) return true;
+        if (pattern.endsWith("*")) return className.startsWith(pattern.substring(0, pattern.length() - 1));
+        if (pattern.startsWith("*")) return className.endsWith(pattern.substring(1));
+        return className.equals(pattern);
+    }
+
+    /**
+     * DAP setExceptionBreakpoints. "filters" and "filterOptions" select the
+     * caught/uncaught filters, the latter with a condition (see
+     * parseExceptionCondition); "exceptionOptions" name exception types
+     * with a break mode — "never" excludes its types from every other
+     * breakpoint. Replaces all exception requests; types not loaded yet
+     * are planted when their class is prepared, and their entries stay
+     * unverified until then (see refreshExceptionResults).
+     */
+    private void handleSetExceptionBreakpoints(int reqSeq, Map<String, Object> args) {
+        List<ExceptionBreakpoint> next = new ArrayList<>();
+        List<String> neverTypes = new ArrayList<>();
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<Object> filters = list(args, "filters");
+        if (filters != null) {
+            for (Object f : filters) {
+                results.add(addExceptionFilter(next, String.valueOf(f), null));
+            }
+        }
+        List<Object> filterOptions = list(args, "filterOptions");
+        if (filterOptions != null) {
+            for (Object o : filterOptions) {
+                Map<String, Object> option = asMap(o);
+                results.add(addExceptionFilter(next, str(option, "filterId"), str(option, "condition")));
+            }
+        }
+        List<Object> exceptionOptions = list(args, "exceptionOptions");
+        if (exceptionOptions != null) {
+            for (Object o : exceptionOptions) {
+                results.add(addExceptionOption(next, neverTypes, asMap(o)));
+            }
+        }
+        for (ExceptionBreakpoint eb : next) eb.excludedTypes.addAll(neverTypes);
+
+        synchronized (exceptionBpLock) {
+            clearExceptionRequests();
+            exceptionBreakpoints.clear();
+            exceptionBreakpoints.addAll(next);
+            if (vm != null) bindExceptionBreakpoints();
+            refreshExceptionResults(false);
+            // Copies: the event loop updates pending entries once their type is prepared
+            results.replaceAll(HashMap::new);
+        }
+        sendResponse(reqSeq, "setExceptionBreakpoints", true, mapOf("breakpoints", results));
+    }
+
+    private Map<String, Object> addExceptionFilter(List<ExceptionBreakpoint> into, String filterId, String condition) {
+        boolean caught = "caught".equals(filterId);
+        boolean uncaught = "uncaught".equals(filterId);
+        if (!caught && !uncaught) {
+            return exceptionResult("Unknown exception filter '" + filterId + "'");
+        }
+        try {
+            return reportedBy(into, parseExceptionCondition(new ExceptionBreakpoint(null, caught, uncaught), condition));
+        } catch (IllegalArgumentException e) {
+            return exceptionResult(e.getMessage());
+        }
+    }
+
+    /**
+     * Parse a filter condition into breakpoints sharing base's caught/uncaught
+     * flags. Comma-separated terms:
+     * <ul>
+     *   <li>Type — only this exception type and its subclasses; several types
+     *       make one breakpoint each, with the same filters;</li>
+     *   <li>!Type — not this type, nor its subclasses;</li>
+     *   <li>in:pattern — only throws in classes matching pattern;</li>
+     *   <li>!in:pattern — no throws in classes matching pattern;</li>
+     *   <li>!caughtIn:pattern — nothing caught in classes matching pattern;</li>
+     *   <li>once — stop only on the first throw at each throw site (exception
+     *       type and location); later ones are counted for exceptionSummary;</li>
+     *   <li>every:N — the same, but stop again once N seconds have passed.</li>
+     * </ul>
+     * Patterns are JDI class patterns (see matchesClassPattern).
+     */
+    private static List<ExceptionBreakpoint> parseExceptionCondition(ExceptionBreakpoint base, String condition) {
+        List<String> types = new ArrayList<>();
+        if (condition != null) {
+            for (String raw : condition.split(",")) {
+                String term = raw.trim();
+                if (term.isEmpty()) continue;
+                if (term.startsWith("in:")) {
+                    base.throwIn.add(classPattern(term, 3));
+                } else if (term.startsWith("!in:")) {
+                    base.throwNotIn.add(classPattern(term, 4));
+                } else if (term.startsWith("!caughtIn:")) {
+                    base.caughtNotIn.add(classPattern(term, 10));
+                } else if (term.equals("once")) {
+                    base.setDedup(0);
+                } else if (term.startsWith("every:")) {
+                    base.setDedup(TimeUnit.SECONDS.toNanos(dedupSeconds(term)));
+                } else if (term.startsWith("!")) {
+                    base.excludedTypes.add(typeName(term.substring(1).trim()));
+                } else {
+                    types.add(typeName(term));
+                }
+            }
+        }
+        if (types.isEmpty()) return List.of(base);
+        List<ExceptionBreakpoint> typed = new ArrayList<>(types.size());
+        for (String type : types) typed.add(base.withFilters(type, base));
+        return typed;
+    }
+
+    private static long dedupSeconds(String term) {
+        String value = term.substring(6).trim();
+        if (value.endsWith("s")) value = value.substring(0, value.length() - 1);
+        try {
+            long seconds = Long.parseLong(value);
+            if (seconds > 0) return seconds;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid interval in '" + term + "' (use every:N, N seconds)");
+    }
+
+    private static String classPattern(String term, int prefixLength) {
+        String pattern = term.substring(prefixLength).trim();
+        if (pattern.isEmpty() || pattern.indexOf('*') != pattern.lastIndexOf('*')
+                || (pattern.contains("*") && !pattern.startsWith("*") && !pattern.endsWith("*"))) {
+            throw new IllegalArgumentException("Invalid class pattern in '" + term + "' (use Name, prefix.* or *.suffix)");
+        }
+        return pattern;
+    }
+
+    private static String typeName(String name) {
+        if (name.isEmpty() || name.contains("*") || name.contains(" ") || name.contains(":")) {
+            throw new IllegalArgumentException("Invalid exception type '" + name + "'");
+        }
+        return name;
+    }
+
+    /**
+     * One DAP ExceptionOptions entry. Only the first path segment is used —
+     * Java exceptions have a single category level — and its names are
+     * exception types; "negate" means every exception but those. "always"
+     * breaks on caught and uncaught throws, "unhandled"/"userUnhandled" on
+     * uncaught ones, "never" suppresses the types everywhere.
+     */
+    private Map<String, Object> addExceptionOption(List<ExceptionBreakpoint> into, List<String> neverTypes,
+            Map<String, Object> option) {
+        String breakMode = strOr(option, "breakMode", "always");
+        List<Object> path = list(option, "path");
+        Map<String, Object> segment = path != null && !path.isEmpty() ? asMap(path.get(0)) : null;
+        boolean negate = segment != null && boolVal(segment, "negate", false);
+        List<String> names = new ArrayList<>();
+        try {
+            List<Object> rawNames = segment != null ? list(segment, "names") : null;
+            if (rawNames != null) {
+                for (Object n : rawNames) names.add(typeName(String.valueOf(n).trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            return exceptionResult(e.getMessage());
+        }
+        if ("never".equals(breakMode)) {
+            if (negate) {
+                return exceptionResult("breakMode 'never' with a negated path is not supported");
+            }
+            neverTypes.addAll(names);
+            return exceptionResult(null);
+        }
+        boolean caught = "always".equals(breakMode);
+        if (!caught && !"unhandled".equals(breakMode) && !"userUnhandled".equals(breakMode)) {
+            return exceptionResult("Unknown breakMode '" + breakMode + "'");
+        }
+        ExceptionBreakpoint base = new ExceptionBreakpoint(null, caught, true);
+        if (names.isEmpty() || negate) {
+            base.excludedTypes.addAll(names);
+            into.add(base);
+            return exceptionResult(null);
+        }
+        List<ExceptionBreakpoint> typed = new ArrayList<>(names.size());
+        for (String name : names) typed.add(base.withFilters(name, base));
+        return reportedBy(into, typed);
+    }
+
+    /** Add breakpoints to {@code into} behind one response entry, which typed ones update once bound. */
+    private static Map<String, Object> reportedBy(List<ExceptionBreakpoint> into, List<ExceptionBreakpoint> added) {
+        Map<String, Object> result = exceptionResult(null);
+        for (ExceptionBreakpoint eb : added) {
+            if (eb.typeName != null) eb.result = result;
+        }
+        into.addAll(added);
+        return result;
+    }
+
+    /**
+     * Bring each typed response entry up to date: unverified while any of
+     * its types has no request yet. Exception requests match one binary
+     * name, so "IOException" or "Outer.Inner" stays pending for good — the
+     * message says so. Entries that became verified are announced with a
+     * "changed" event when {@code announce} is set. Caller holds
+     * exceptionBpLock.
+     */
+    private void refreshExceptionResults(boolean announce) {
+        // Response entries by identity, in request order, with their unbound types
+        Map<Map<String, Object>, List<String>> pending = new IdentityHashMap<>();
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (ExceptionBreakpoint eb : exceptionBreakpoints) {
+            if (eb.result == null) continue;
+            List<String> names = pending.get(eb.result);
+            if (names == null) {
+                names = new ArrayList<>(1);
+                pending.put(eb.result, names);
+                entries.add(eb.result);
+            }
+            if (eb.requests.isEmpty()) names.add(eb.typeName);
+        }
+        for (Map<String, Object> result : entries) {
+            List<String> names = pending.get(result);
+            boolean wasVerified = Boolean.TRUE.equals(result.get("verified"));
+            if (names.isEmpty()) {
+                result.put("verified", true);
+                result.remove("message");
+                if (!wasVerified && announce) {
+                    Map<String, Object> bpEvent = new HashMap<>();
+                    bpEvent.put("reason", "changed");
+                    bpEvent.put("breakpoint", new HashMap<>(result));
+                    sendEvent("breakpoint", bpEvent);
+                }
+                continue;
+            }
+            result.put("verified", false);
+            result.computeIfAbsent("id", k -> nextBreakpointId.getAndIncrement());
+            result.put("message", vm == null
+                ? "VM not started, exception breakpoint pending"
+                : "Exception type " + String.join(", ", names) + " not loaded, breakpoint pending"
+                    + " (binds on a class of exactly that binary name; use e.g. java.io.IOException"
+                    + " or pkg.Outer$Inner)");
+        }
+    }
+
+    /** Delete every exception request and pending exception-type watch. Caller holds exceptionBpLock. */
+    private void clearExceptionRequests() {
+        for (ExceptionBreakpoint eb : exceptionBreakpoints) eb.requests.clear();
+        if (vm == null) return;
+        EventRequestManager erm = vm.eventRequestManager();
+        for (ExceptionRequest er : new ArrayList<>(erm.exceptionRequests())) deleteRequest(er);
+        for (ClassPrepareRequest cpr : erm.classPrepareRequests()) {
+            if (cpr.getProperty("jdi-exception-type") != null) deleteRequest(cpr);
+        }
+    }
+
+    /**
+     * Plant every exception breakpoint on the loaded copies of its type, and
+     * watch for the types not loaded yet. Caller holds exceptionBpLock.
+     */
+    private void bindExceptionBreakpoints() {
+        Set<String> watched = new HashSet<>();
+        for (ExceptionBreakpoint eb : exceptionBreakpoints) {
+            if (eb.typeName == null) {
+                plantExceptionRequest(eb, null);
+                continue;
+            }
+            List<ReferenceType> types = classIndex.byName(eb.typeName);
+            for (ReferenceType refType : types) plantExceptionRequest(eb, refType);
+            if (types.isEmpty() && watched.add(eb.typeName)) {
+                ClassPrepareRequest cpr = vm.eventRequestManager().createClassPrepareRequest();
+                cpr.addClassFilter(eb.typeName);
+                cpr.putProperty("jdi-exception-type", eb.typeName);
+                cpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+                cpr.enable();
+                log("Registered ClassPrepareRequest for exception type " + eb.typeName);
+            }
+        }
+    }
+
+    private void plantExceptionRequest(ExceptionBreakpoint eb, ReferenceType refType) {
+        for (ExceptionRequest existing : eb.requests) {
+            if (Objects.equals(refType, existing.exception())) return;
+        }
+        ExceptionRequest er = vm.eventRequestManager().createExceptionRequest(refType, eb.caught, eb.uncaught);
+        for (String pattern : eb.throwIn) er.addClassFilter(pattern);
+        for (String pattern : eb.throwNotIn) er.addClassExclusionFilter(pattern);
+        er.putProperty("jdi-exception-bp", eb);
+        er.putProperty("jdi-stats", new BreakpointStatistics());
+        er.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+        er.enable();
+        eb.requests.add(er);
+        log("Exception breakpoint on " + (refType != null ? refType.name() : "any exception")
+                + (eb.caught ? " (caught" + (eb.uncaught ? ", uncaught)" : ")") : " (uncaught)"));
+    }
+
+    /** Deferred exception-type binding; called for every ClassPrepareEvent. */
+    private void handleClassPreparedForExceptionBreakpoints(ReferenceType refType) {
+        synchronized (exceptionBpLock) {
+            boolean planted = false;
+            for (ExceptionBreakpoint eb : exceptionBreakpoints) {
+                if (refType.name().equals(eb.typeName)) {
+                    plantExceptionRequest(eb, refType);
+                    planted = true;
+                }
+            }
+            if (planted) refreshExceptionResults(true);
+        }
+    }
+
+    /** Plant exception breakpoints set before the VM connected. */
+    private void registerPendingExceptionBreakpoints() {
+        synchronized (exceptionBpLock) {
+            if (exceptionBreakpoints.isEmpty() || vm == null) return;
+            for (ExceptionBreakpoint eb : exceptionBreakpoints) eb.requests.clear();
+            bindExceptionBreakpoints();
+            refreshExceptionResults(true);
+        }
+    }
+
+    // ========== Data Breakpoints ==========
+
+    /**
+     * One DAP data breakpoint: a field watched for writes, reads or both. A
+     * dataId names the field's declaring type and, for a breakpoint on one
+     * object's field, that object's uniqueID:
+     * "com.example.Foo#count" or "com.example.Foo#count@1234". Planted as
+     * JDI watchpoint requests on the declaring type — at most one per
+     * access kind and type, so "readWrite" plants two — with an instance
+     * filter for object-bound dataIds.
+     */
+    private static final class DataBreakpoint {
+        final int id;
+        final String dataId;
+        final String className;
+        final String fieldName;
+        final long objectId; // 0: every instance, or a static field
+        final String accessType; // "write", "read" or "readWrite"
+        final String condition;
+        final HitCondition hitCondition;
+        final List<WatchpointRequest> requests = new CopyOnWriteArrayList<>();
+        volatile String message; // why it is not bound, when it is not
+
+        DataBreakpoint(int id, String dataId, String className, String fieldName, long objectId,
+                String accessType, String condition, HitCondition hitCondition) {
+            this.id = id;
+            this.dataId = dataId;
+            this.className = className;
+            this.fieldName = fieldName;
+            this.objectId = objectId;
+            this.accessType = accessType;
+            this.condition = condition;
+            this.hitCondition = hitCondition;
+        }
+
+        String fieldLabel() {
+            return className + "." + fieldName;
+        }
+
+        Map<String, Object> result(boolean vmRunning) {
+            Map<String, Object> bp = new HashMap<>();
+            bp.put("id", id);
+            boolean verified = !requests.isEmpty();
+            bp.put("verified", verified);
+            if (!verified) {
+                bp.put("message", message != null ? message
+                        : vmRunning ? "Class " + className + " not loaded yet, data breakpoint pending"
+                        : "VM not started, data breakpoint pending");
+            }
+            return bp;
+        }
+    }
+
+    private static String dataId(String className, String fieldName, long objectId) {
+        return className + "#" + fieldName + (objectId != 0 ? "@" + objectId : "");
+    }
+
+    /**
+     * DAP dataBreakpointInfo: can the named variable be watched, and under
+     * which dataId. Fields of an expanded object (variablesReference from
+     * the variables response) watch that object only; static fields and
+     * names of the form "Class.field" without a container watch the field
+     * on every instance, and may name a class that is not loaded yet (a
+     * nested class as Outer$Inner or Outer.Inner).
+     * Locals and array elements cannot be watched — JDWP watches fields.
+     */
+    private void handleDataBreakpointInfo(int reqSeq, Map<String, Object> args) {
+        String name = str(args, "name");
+        int varRef = intVal(args, "variablesReference");
+        Map<String, Object> body = new HashMap<>();
+        body.put("dataId", null);
+        String className = null;
+        String fieldName = null;
+        long objectId = 0;
+        String description = null;
+
+        if (name == null || name.isEmpty()) {
+            description = "No variable name";
+        } else if (varRef > 0 && scopeRefMap.containsKey(varRef)) {
+            description = "Local variables cannot be watched, only fields";
+        } else if (varRef > 0) {
+            ObjectReference container = varRefMap.get(varRef);
+            if (container == null) {
+                description = "Unknown variablesReference (the program has resumed since)";
+            } else if (container instanceof ArrayReference) {
+                description = "Array elements cannot be watched, only fields";
+            } else {
+                Field field = container.referenceType().fieldByName(name);
+                if (field == null) {
+                    description = "No field '" + name + "' in " + container.referenceType().name();
+                } else {
+                    className = field.declaringType().name();
+                    fieldName = field.name();
+                    if (!field.isStatic()) {
+                        objectId = container.uniqueID();
+                        watchedObjects.put(objectId, container);
+                    }
+                }
+            }
+        } else {
+            int lastDot = name.lastIndexOf('.');
+            if (lastDot <= 0 || lastDot == name.length() - 1) {
+                description = "Name a field as Class.field, or expand its object in variables";
+            } else {
+                String classPart = name.substring(0, lastDot);
+                fieldName = name.substring(lastDot + 1);
+                ReferenceType type = vm != null ? uniqueLoadedType(classPart) : null;
+                if (type == null) {
+                    // Not loaded (or ambiguous): bind by binary name once it is prepared
+                    className = classPart;
+                } else {
+                    Field field = type.fieldByName(fieldName);
+                    if (field == null) {
+                        description = "No field '" + fieldName + "' in " + type.name();
+                        fieldName = null;
+                    } else {
+                        className = field.declaringType().name();
+                    }
+                }
+            }
+        }
+
+        if (className != null && fieldName != null) {
+            body.put("dataId", dataId(className, fieldName, objectId));
+            description = className + "." + fieldName + (objectId != 0 ? " of object @" + objectId : "");
+            List<String> accessTypes = new ArrayList<>(3);
+            boolean writes = vm == null || vm.canWatchFieldModification();
+            boolean reads = vm == null || vm.canWatchFieldAccess();
+            if (writes) accessTypes.add("write");
+            if (reads) accessTypes.add("read");
+            if (writes && reads) accessTypes.add("readWrite");
+            body.put("accessTypes", accessTypes);
+            // An object-bound watch dies with its object (and its VM)
+            body.put("canPersist", objectId == 0);
+        }
+        body.put("description", description);
+        sendResponse(reqSeq, "dataBreakpointInfo", true, body);
+    }
+
+    /**
+     * DAP setDataBreakpoints: replace-all, like setFunctionBreakpoints.
+     * Fields of loaded classes are watched at once; the rest through a
+     * ClassPrepareRequest on the class, reporting "changed" events when
+     * they bind. Conditions and hit conditions work as on line breakpoints
+     * and are evaluated in the frame that accessed the field.
+     */
+    private void handleSetDataBreakpoints(int reqSeq, Map<String, Object> args) {
+        List<Object> specs = list(args, "breakpoints");
+        List<Map<String, Object>> results = new ArrayList<>();
+        synchronized (dataBpLock) {
+            clearDataBreakpoints();
+            Set<Long> objectIds = new HashSet<>();
+            if (specs != null) {
+                for (Object specObj : specs) {
+                    DataBreakpoint db = newDataBreakpoint(asMap(specObj));
+                    dataBreakpoints.add(db);
+                    if (db.objectId != 0) objectIds.add(db.objectId);
+                }
+            }
+            // Objects offered by dataBreakpointInfo but not watched now are let go
+            watchedObjects.keySet().retainAll(objectIds);
+            if (vm != null) bindDataBreakpoints();
+            for (DataBreakpoint db : dataBreakpoints) {
+                results.add(db.result(vm != null));
+            }
+        }
+        sendResponse(reqSeq, "setDataBreakpoints", true, mapOf("breakpoints", results));
+    }
+
+    private DataBreakpoint newDataBreakpoint(Map<String, Object> spec) {
+        String dataId = strOr(spec, "dataId", "");
+        String accessType = strOr(spec, "accessType", "write");
+        String condition = str(spec, "condition");
+        int hash = dataId.indexOf('#');
+        int at = dataId.indexOf('@', hash + 1);
+        String className = hash > 0 ? dataId.substring(0, hash) : null;
+        String fieldName = hash > 0 ? dataId.substring(hash + 1, at > 0 ? at : dataId.length()) : null;
+        long objectId = 0;
+        if (at > 0) {
+            try {
+                objectId = Long.parseLong(dataId.substring(at + 1));
+            } catch (NumberFormatException e) {
+                className = null;
+            }
+        }
+        DataBreakpoint db = new DataBreakpoint(nextBreakpointId.getAndIncrement(), dataId, className, fieldName,
+                objectId, accessType, condition != null && !condition.isEmpty() ? condition : null,
+                parseHitCondition(str(spec, "hitCondition")));
+        if (className == null || fieldName == null || fieldName.isEmpty()) {
+            db.message = "Invalid dataId '" + dataId + "' (use dataBreakpointInfo)";
+        } else if (!accessType.equals("write") && !accessType.equals("read") && !accessType.equals("readWrite")) {
+            db.message = "Unsupported access type '" + accessType + "'";
+        }
+        return db;
+    }
+
+    /** Replace-all cleanup: every watchpoint and class-prepare watch of the
+     *  current data breakpoints. Caller holds dataBpLock. */
+    private void clearDataBreakpoints() {
+        for (DataBreakpoint db : dataBreakpoints) {
+            for (WatchpointRequest wr : db.requests) deleteRequest(wr);
+        }
+        dataBreakpoints.clear();
+        if (vm == null) return;
+        for (ClassPrepareRequest cpr : vm.eventRequestManager().classPrepareRequests()) {
+            if (cpr.getProperty("jdi-data-bp") != null) deleteRequest(cpr);
+        }
+    }
+
+    /**
+     * Watch every valid data breakpoint on the loaded copies of its class,
+     * and register one class-prepare watch per class still missing. Caller
+     * holds dataBpLock.
+     */
+    private void bindDataBreakpoints() {
+        Set<String> watched = new HashSet<>();
+        for (DataBreakpoint db : dataBreakpoints) {
+            if (db.message != null) continue;
+            for (ReferenceType refType : loadedDataBreakpointTypes(db.className)) {
+                bindDataBreakpointOnType(db, refType);
+            }
+            // Object-bound watches have their (loaded) class already
+            if (db.objectId == 0 && db.requests.isEmpty() && db.message == null && watched.add(db.className)) {
+                ClassPrepareRequest cpr = vm.eventRequestManager().createClassPrepareRequest();
+                // A dotted name may be Outer.Inner for binary Outer$Inner, which an
+                // exact filter never matches: over-match on the innermost name and
+                // refilter in dataBpClassMatches (same trick as the function-breakpoint CPRs)
+                cpr.addClassFilter(db.className.indexOf('.') < 0
+                    ? db.className : "*" + LoadedClassIndex.innermostName(db.className));
+                cpr.putProperty("jdi-data-bp", db.className);
+                cpr.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+                cpr.enable();
+                log("Registered ClassPrepareRequest for data breakpoints on " + db.className);
+            }
+        }
+    }
+
+    /** Loaded types a data breakpoint's class name denotes, by binary or source (Outer.Inner) name. */
+    private List<ReferenceType> loadedDataBreakpointTypes(String className) {
+        List<ReferenceType> types = classIndex.byName(className);
+        if (!types.isEmpty()) return types;
+        types = new ArrayList<>();
+        for (ReferenceType rt : classIndex.bySimpleName(LoadedClassIndex.innermostName(className))) {
+            if (dataBpClassMatches(className, rt)) types.add(rt);
+        }
+        return types;
+    }
+
+    /**
+     * Does the type match a data breakpoint's class name? The whole name must
+     * match, either as the binary name or with nested-class '$' written as '.'.
+     */
+    private static boolean dataBpClassMatches(String className, ReferenceType rt) {
+        String rtName = rt.name();
+        return rtName.equals(className) || rtName.replace('$', '.').equals(className);
+    }
+
+    /**
+     * Plant a data breakpoint's watchpoint request(s) on one type that
+     * declares its field — at most once per type.
+     * @return whether requests were planted
+     */
+    private boolean bindDataBreakpointOnType(DataBreakpoint db, ReferenceType refType) {
+        for (WatchpointRequest existing : db.requests) {
+            if (refType.equals(existing.field().declaringType())) return false;
+        }
+        Field field = refType.fieldByName(db.fieldName);
+        if (field == null || !refType.equals(field.declaringType())) {
+            db.message = "No field '" + db.fieldName + "' declared in " + refType.name();
+            return false;
+        }
+        ObjectReference instance = null;
+        if (db.objectId != 0) {
+            instance = watchedObjects.get(db.objectId);
+            if (instance == null || isCollected(instance)) {
+                db.message = "The watched object no longer exists";
+                return false;
+            }
+        }
+        boolean writes = !db.accessType.equals("read");
+        boolean reads = !db.accessType.equals("write");
+        // Both checks before any request exists: readWrite must not leave a lone write watch behind
+        if (writes && !vm.canWatchFieldModification()) {
+            db.message = "This VM cannot watch field writes";
+            return false;
+        }
+        if (reads && !vm.canWatchFieldAccess()) {
+            db.message = "This VM cannot watch field reads";
+            return false;
+        }
+        EventRequestManager erm = vm.eventRequestManager();
+        List<WatchpointRequest> created = new ArrayList<>(2);
+        if (writes) created.add(erm.createModificationWatchpointRequest(field));
+        if (reads) created.add(erm.createAccessWatchpointRequest(field));
+        for (WatchpointRequest wr : created) {
+            wr.putProperty("jdi-data-bp", db);
+            wr.putProperty("jdi-stats", new BreakpointStatistics());
+            if (instance != null) wr.addInstanceFilter(instance);
+            if (db.condition != null) wr.putProperty("condition", compileCondition(db.condition));
+            if (db.hitCondition != null) {
+                if (created.size() == 1) {
+                    armHitCondition(wr, db.hitCondition);
+                } else {
+                    // Reads and writes share one count; per-request count filters can't
+                    wr.putProperty("hitCondition", db.hitCondition);
+                }
+            }
+            wr.setSuspendPolicy(EventRequest.SUSPEND_ALL);
+            if (db.hitCondition == null || !db.hitCondition.fired) {
+                wr.enable();
+            }
+            db.requests.add(wr);
+        }
+        db.message = null;
+        log("Data breakpoint on " + db.fieldLabel() + " (" + db.accessType + ") bound on " + refType.name());
+        return true;
+    }
+
+    private static boolean isCollected(ObjectReference obj) {
+        try {
+            return obj.isCollected();
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Deferred data-breakpoint binding. Called for every ClassPrepareEvent,
+     * like the function-breakpoint counterpart; a class-name comparison per
+     * data breakpoint rules out the rest.
+     */
+    private void handleClassPreparedForDataBreakpoints(ReferenceType refType) {
+        synchronized (dataBpLock) {
+            if (dataBreakpoints.isEmpty()) return;
+            for (DataBreakpoint db : dataBreakpoints) {
+                if (db.objectId != 0 || !dataBpClassMatches(db.className, refType)) continue;
+                boolean wasVerified = !db.requests.isEmpty();
+                if (bindDataBreakpointOnType(db, refType) && !wasVerified) {
+                    Map<String, Object> bpEvent = new HashMap<>();
+                    bpEvent.put("reason", "changed");
+                    bpEvent.put("breakpoint", db.result(true));
+                    sendEvent("breakpoint", bpEvent);
+                }
+            }
+        }
+    }
+
+    /** Bind data breakpoints set before the VM connected. */
+    private void registerPendingDataBreakpoints() {
+        synchronized (dataBpLock) {
+            if (dataBreakpoints.isEmpty() || vm == null) return;
+            for (DataBreakpoint db : dataBreakpoints) {
+                db.requests.clear(); // a fresh connection: nothing planted yet
+            }
+            bindDataBreakpoints();
         }
     }
 
+    /** Short rendering of a watched value for stop descriptions — no target invocation. */
+    private static String watchValuePreview(Value value) {
+        if (value == null) return "null";
+        if (value instanceof StringReference) return "\"" + ((StringReference) value).value() + "\"";
+        if (value instanceof ObjectReference) {
+            ObjectReference obj = (ObjectReference) value;
+            return obj.referenceType().name() + "@" + obj.uniqueID();
+        }
+        return value.toString();
+    }
+
     // ========== Hot Reload (redefineClasses) ==========
 
     private void handleRedefineClasses(int reqSeq, Map<String, Object> args) {
@@ -1661,6 +4216,7 @@ public class JdiDapServer {
             return;
         }
 
+        RequestToken token = inFlight.get(reqSeq);
         try {
             // 1. Scan for .class files, filter by mtime
             List<java.nio.file.Path> classFiles = new ArrayList<>();
@@ -1672,6 +4228,7 @@ public class JdiDapServer {
                 try (java.nio.file.DirectoryStream<java.nio.file.Path> stream =
                         java.nio.file.Files.newDirectoryStream(current)) {
                     for (java.nio.file.Path entry : stream) {
+                        if (token != null) token.throwIfCancelled();
                         if (java.nio.file.Files.isDirectory(entry)) {
                             stack.push(entry);
                         } else if (entry.toString().endsWith(".class")) {
@@ -1692,6 +4249,8 @@ public class JdiDapServer {
             int replantedBreakpoints = 0;
 
             for (java.nio.file.Path classFile : classFiles) {
+                // Classes already redefined stay redefined; stop before the next one
+                if (token != null) token.throwIfCancelled();
                 // Convert path to FQCN: com/example/Foo$Bar.class -> com.example.Foo$Bar
                 String relative = dir.relativize(classFile).toString();
                 String fqcn = relative.replace(java.io.File.separatorChar, '.')
@@ -1735,6 +4294,8 @@ public class JdiDapServer {
             body.put("replantedBreakpoints", replantedBreakpoints);
             sendResponse(reqSeq, "redefineClasses", true, body);
 
+        } catch (RequestCancelledException e) {
+            sendErrorResponse(reqSeq, "redefineClasses", "cancelled");
         } catch (Exception e) {
             sendErrorResponse(reqSeq, "redefineClasses",
                     "Scan/redefine error: " + e.getClass().getSimpleName() + ": " + e.getMessage());
@@ -1776,6 +4337,15 @@ public class JdiDapServer {
             }
         }
         for (BreakpointRequest br : stale) {
+            LineBreakpoint lb = (LineBreakpoint) br.getProperty("jdi-line-bp");
+            if (lb != null) lb.requests.remove(br);
+            Object fnBpName = br.getProperty("jdi-fnbp-name");
+            if (fnBpName != null) {
+                synchronized (fnBpLock) {
+                    Map<Location, BreakpointRequest> bound = fnBpRequests.get(fnBpName);
+                    if (bound != null) bound.remove(br.location());
+                }
+            }
             try {
                 erm.deleteEventRequest(br);
             } catch (RuntimeException e) { /* already gone */ }
@@ -1797,9 +4367,14 @@ public class JdiDapServer {
                 EventQueue queue = vm.eventQueue();
                 while (running && vm != null) {
                     EventSet eventSet = queue.remove(); // blocks
+                    long arrived = System.nanoTime();
                     boolean resume = true;
+                    // Statistics of the breakpoints this set holds threads for
+                    List<BreakpointStatistics> charged = null;
+                    long stoppedThread = 0;
 
                     boolean stopped = false; // true once a stopping event (breakpoint/step/exception) is seen
+                    boolean exceptionStopped = false; // overlapping exception breakpoints share one stop
 
                     for (Event event : eventSet) {
                         if (event instanceof BreakpointEvent) {
@@ -1807,21 +4382,82 @@ public class JdiDapServer {
 
                             // Check conditional breakpoint
                             BreakpointRequest bpr = (BreakpointRequest) bpe.request();
-                            String condition = bpr != null ? (String) bpr.getProperty("condition") : null;
-                            if (condition != null && !condition.isEmpty()) {
+                            BreakpointStatistics stats = bpr != null ? (BreakpointStatistics) bpr.getProperty("jdi-stats") : null;
+                            if (stats != null) {
+                                stats.hits.incrementAndGet();
+                                if (charged == null) charged = new ArrayList<>(1);
+                                charged.add(stats);
+                            }
+                            BreakpointCondition condition = bpr != null ? (BreakpointCondition) bpr.getProperty("condition") : null;
+                            if (condition != null) {
                                 // Evaluate condition
-                                boolean condResult = evaluateCondition(bpe.thread(), condition);
+                                boolean condResult = evaluateCondition(bpe.thread(), condition, stats);
                                 if (!condResult) {
                                     // Condition false, resume
                                     continue;
                                 }
                             }
+                            // Hit counts apply to hits that passed the condition
+                            HitCondition hitCondition = bpr != null ? (HitCondition) bpr.getProperty("hitCondition") : null;
+                            if (hitCondition != null
+                                    && !hitCondition.onHit(Boolean.TRUE.equals(bpr.getProperty("jdi-count-filter")))) {
+                                continue;
+                            }
+                            if (hitCondition != null && hitCondition.fired) disableFiredRequests(hitCondition);
+                            LogMessage logMessage = bpr != null ? (LogMessage) bpr.getProperty("logMessage") : null;
+                            if (logMessage != null) {
+                                // Logpoint: emit and resume the thread, never a stop
+                                emitLogpoint(bpe.thread(), bpr, logMessage);
+                                continue;
+                            }
 
                             log("Breakpoint hit: " + bpe.location());
                             boolean allStopped = bpr == null || bpr.suspendPolicy() == EventRequest.SUSPEND_ALL;
                             // Function breakpoints report their own DAP stop reason
                             boolean isFnBp = bpr != null && bpr.getProperty("jdi-fnbp-name") != null;
+                            // Counted first: a client may ask for statistics as soon as it sees the stop
+                            if (stats != null) stats.stops.incrementAndGet();
                             sendStoppedEvent(isFnBp ? "function breakpoint" : "breakpoint", bpe.thread().uniqueID(), allStopped);
+                            stoppedThread = bpe.thread().uniqueID();
+                            resume = false;
+                            stopped = true;
+
+                        } else if (event instanceof WatchpointEvent) {
+                            WatchpointEvent we = (WatchpointEvent) event;
+                            EventRequest wr = we.request();
+                            BreakpointStatistics stats = wr != null ? (BreakpointStatistics) wr.getProperty("jdi-stats") : null;
+                            if (stats != null) {
+                                stats.hits.incrementAndGet();
+                                if (charged == null) charged = new ArrayList<>(1);
+                                charged.add(stats);
+                            }
+                            BreakpointCondition condition = wr != null ? (BreakpointCondition) wr.getProperty("condition") : null;
+                            if (condition != null && !evaluateCondition(we.thread(), condition, stats)) {
+                                continue;
+                            }
+                            HitCondition hitCondition = wr != null ? (HitCondition) wr.getProperty("hitCondition") : null;
+                            if (hitCondition != null
+                                    && !hitCondition.onHit(Boolean.TRUE.equals(wr.getProperty("jdi-count-filter")))) {
+                                continue;
+                            }
+                            if (hitCondition != null && hitCondition.fired) disableFiredRequests(hitCondition);
+                            DataBreakpoint db = wr != null ? (DataBreakpoint) wr.getProperty("jdi-data-bp") : null;
+                            String field = we.field().declaringType().name() + "." + we.field().name();
+                            String description = we instanceof ModificationWatchpointEvent
+                                    ? field + ": " + watchValuePreview(we.valueCurrent()) + " -> "
+                                            + watchValuePreview(((ModificationWatchpointEvent) we).valueToBe())
+                                    : "read " + field + " = " + watchValuePreview(we.valueCurrent());
+                            log("Data breakpoint hit: " + description + " at " + we.location());
+                            lastStopAllThreads = true; // watchpoint requests are SUSPEND_ALL
+                            Map<String, Object> body = new HashMap<>();
+                            body.put("reason", "data breakpoint");
+                            body.put("threadId", we.thread().uniqueID());
+                            body.put("description", description);
+                            body.put("allThreadsStopped", true);
+                            if (db != null) body.put("hitBreakpointIds", List.of(db.id));
+                            if (stats != null) stats.stops.incrementAndGet();
+                            sendEvent("stopped", body);
+                            stoppedThread = we.thread().uniqueID();
                             resume = false;
                             stopped = true;
 
@@ -1837,14 +4473,25 @@ public class JdiDapServer {
                         } else if (event instanceof ClassPrepareEvent) {
                             ClassPrepareEvent cpe = (ClassPrepareEvent) event;
                             ReferenceType refType = cpe.referenceType();
+                            if (cpe.request() != null && cpe.request().getProperty("jdi-class-index") != null) {
+                                // SUSPEND_NONE index watch: bookkeeping only
+                                classIndex.add(refType);
+                                continue;
+                            }
                             log("Class prepared: " + refType.name());
                             handleClassPrepared(refType);
                             handleClassPreparedForFunctionBreakpoints(refType);
+                            handleClassPreparedForDataBreakpoints(refType);
+                            handleClassPreparedForExceptionBreakpoints(refType);
                             // Only resume if no stopping event was seen in this EventSet
                             if (!stopped) {
                                 resume = true;
                             }
 
+                        } else if (event instanceof ClassUnloadEvent) {
+                            String name = ((ClassUnloadEvent) event).className();
+                            classIndex.unload(name, vm.classesByName(name));
+
                         } else if (event instanceof VMStartEvent) {
                             // VMStartEvent represents the initial VM suspension (suspend=y).
                             // Do NOT resume — configurationDone will resume when client is ready.
@@ -1876,6 +4523,25 @@ public class JdiDapServer {
                         } else if (event instanceof ExceptionEvent) {
                             ExceptionEvent ee = (ExceptionEvent) event;
                             ObjectReference exObj = ee.exception();
+                            ExceptionBreakpoint eb = ee.request() != null
+                                    ? (ExceptionBreakpoint) ee.request().getProperty("jdi-exception-bp") : null;
+                            BreakpointStatistics stats = ee.request() != null
+                                    ? (BreakpointStatistics) ee.request().getProperty("jdi-stats") : null;
+                            if (stats != null) {
+                                stats.hits.incrementAndGet();
+                                if (charged == null) charged = new ArrayList<>(1);
+                                charged.add(stats);
+                            }
+                            if (eb != null && eb.suppresses(exObj, ee.catchLocation())) {
+                                continue; // excluded catch site or type: never reaches the client
+                            }
+                            if (eb != null && !eb.shouldStop(exObj.referenceType(), ee.location())) {
+                                continue; // seen at this site: counted for exceptionSummary only
+                            }
+                            if (exceptionStopped) {
+                                continue; // another request already reported this throw
+                            }
+                            exceptionStopped = true;
                             String fqcn = exObj.referenceType().name();
                             log("Exception: " + fqcn + " at " + ee.location());
                             lastException = new ExceptionStop(exObj, ee.thread().uniqueID(), ee.catchLocation() != null);
@@ -1887,7 +4553,9 @@ public class JdiDapServer {
                             body.put("text", fqcn);
                             body.put("description", message != null ? fqcn + ": " + message : fqcn);
                             body.put("allThreadsStopped", true);
+                            if (stats != null) stats.stops.incrementAndGet();
                             sendEvent("stopped", body);
+                            stoppedThread = ee.thread().uniqueID();
                             resume = false;
                             stopped = true;
                         }
@@ -1895,6 +4563,13 @@ public class JdiDapServer {
 
                     if (resume) {
                         eventSet.resume();
+                        if (charged != null) {
+                            long held = System.nanoTime() - arrived;
+                            for (BreakpointStatistics stats : charged) stats.suspendedNanos.addAndGet(held);
+                        }
+                    } else if (charged != null && stoppedThread != 0) {
+                        // Held until the user resumes; charged by endSuspension
+                        suspendedHits.put(stoppedThread, new SuspendedHit(charged, arrived));
                     }
                 }
             } catch (VMDisconnectedException e) {
@@ -1920,77 +4595,632 @@ public class JdiDapServer {
 
     /** @return the number of breakpoints set (verified) on the prepared type */
     private int handleClassPrepared(ReferenceType refType) {
-        // Look up deferred breakpoints by scanning all deferred entries whose className matches
-        // the prepared ReferenceType (full name or simple name).
-        // The CPR property is set in handleSetBreakpoints / registerPendingBreakpoints.
-        Map<String, Object> bpInfo = null;
+        SourceBreakpoints source = findDeferredBreakpoints(refType);
+        if (source == null) return 0;
 
-        // Primary lookup: scan deferredBreakpoints for an entry whose className matches this type
+        int planted = 0;
+        synchronized (source) {
+            if (source.packageMatch(refType.name()) >= 0) {
+                source.packageConfirmed = true;
+            } else if (source.exactPackage || source.packageConfirmed) {
+                return 0; // another package's same-named file (see narrowToSourcePackage)
+            } else if (!source.lines.isEmpty()) {
+                source.bindingNote = "Source path matches no package of " + source.fileName
+                        + "; bound in " + refType.name();
+            }
+            log("Setting deferred breakpoints on " + refType.name());
+            for (LineBreakpoint lb : source.lines.values()) {
+                if (!plantLineBreakpoint(refType, source, lb)) continue;
+                planted++;
+                // Send breakpoint verified event (the id is the one setBreakpoints reported)
+                Map<String, Object> bpEvent = new HashMap<>();
+                bpEvent.put("reason", "changed");
+                bpEvent.put("breakpoint", lb.result(source));
+                sendEvent("breakpoint", bpEvent);
+            }
+        }
+        return planted;
+    }
+
+    /**
+     * Deferred-breakpoint entry for a prepared type, most specific key first:
+     * FQCN, outer FQCN (for Outer$Inner), simple name, outer simple name, then
+     * the type's source file name. Each probe is a hash lookup, so the cost
+     * no longer grows with the number of files holding breakpoints; only the
+     * file-name fallback costs a JDWP round trip (sourceName()). An entry
+     * whose package fits the type beats one that doesn't (com/a/Foo.java
+     * and com/b/Foo.java share every key but the FQCN).
+     */
+    private SourceBreakpoints findDeferredBreakpoints(ReferenceType refType) {
         String className = refType.name();
         String simpleName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-        for (Map<String, Object> entry : deferredBreakpoints.values()) {
-            String entryClassName = str(entry, "className");
-            if (entryClassName == null) continue;
-            if (entryClassName.equals(className) || entryClassName.equals(simpleName)) {
-                bpInfo = entry;
-                break;
+        int dollar = className.indexOf('$');
+        int simpleDollar = simpleName.indexOf('$');
+        String[] keys = {
+            className,
+            dollar > 0 ? className.substring(0, dollar) : null,
+            simpleName,
+            simpleDollar > 0 ? simpleName.substring(0, simpleDollar) : null
+        };
+        SourceBreakpoints[] found = new SourceBreakpoints[2]; // {fitting, any}
+        for (String key : keys) {
+            if (key == null) continue;
+            if (scanDeferredEntries(deferredByClassName.get(key), className, found)) return found[0];
+        }
+        if (!deferredByFileName.isEmpty()) {
+            try {
+                if (scanDeferredEntries(deferredByFileName.get(refType.sourceName()), className, found)) return found[0];
+            } catch (AbsentInformationException e) {
+                // no source attribute: only the name keys apply
             }
-            // Inner class: strip "$..." and check outer
-            if (simpleName.contains("$")) {
-                String outerName = simpleName.substring(0, simpleName.indexOf('$'));
-                if (entryClassName.equals(outerName)) { bpInfo = entry; break; }
+        }
+        return found[1];
+    }
+
+    /** @return true once found[0] holds an entry whose package fits the type; found[1] keeps the first entry seen */
+    private boolean scanDeferredEntries(Set<String> sourcePaths, String typeName, SourceBreakpoints[] found) {
+        if (sourcePaths == null) return false;
+        for (String sourcePath : sourcePaths) {
+            SourceBreakpoints entry = sourceBreakpoints.get(sourcePath);
+            if (entry == null) continue;
+            if (found[1] == null) found[1] = entry;
+            if (entry.packageMatch(typeName) >= 0) {
+                found[0] = entry;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A breakpoint condition, parsed once when its BreakpointRequest is
+     * created and kept as the request's "condition" property; its outcomes
+     * are counted in the request's BreakpointStatistics. Name/field/method
+     * resolution is cached inside the compiled tree, keyed by the
+     * breakpoint's Location.
+     */
+    private static final class BreakpointCondition {
+        final String source;
+        final ExprEvaluator.Compiled compiled; // null when the condition does not parse
+        final String compileError;
+        // What the bridge still evaluates after pushdown (null: nothing left)
+        volatile ExprEvaluator.Compiled residual;
+        // Conjuncts turned into JDWP filters, for logs and statistics
+        volatile List<String> pushedDown = Collections.emptyList();
+
+        BreakpointCondition(String source) {
+            this.source = source;
+            ExprEvaluator.Compiled parsed = null;
+            String failure = null;
+            try {
+                parsed = ExprEvaluator.compile(source);
+            } catch (RuntimeException e) {
+                failure = e.getMessage();
             }
-            if (className.contains("$")) {
-                String outerFqn = className.substring(0, className.indexOf('$'));
-                if (entryClassName.equals(outerFqn)) { bpInfo = entry; break; }
+            this.compiled = parsed;
+            this.compileError = failure;
+            this.residual = parsed;
+        }
+    }
+
+    /**
+     * Runtime counters of one breakpoint, watchpoint or exception request,
+     * kept as its "jdi-stats" property and updated by the event loop: hits
+     * JDWP reported (after any native filters), condition outcomes and
+     * evaluation time, stops, and the time threads were held for it — from
+     * the event's arrival until its set was resumed, or until the
+     * continue/step that ended its stop.
+     * Served by the breakpointStatistics request.
+     */
+    private static final class BreakpointStatistics {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong conditionTrue = new AtomicLong();
+        final AtomicLong conditionFalse = new AtomicLong();
+        final AtomicLong conditionErrors = new AtomicLong(); // counted in conditionTrue too: errors stop
+        final AtomicLong conditionNanos = new AtomicLong();
+        final AtomicLong stops = new AtomicLong();
+        final AtomicLong suspendedNanos = new AtomicLong();
+    }
+
+    /** A breakpoint stop awaiting its resume, and the statistics to charge. */
+    private static final class SuspendedHit {
+        final List<BreakpointStatistics> stats;
+        final long since;
+
+        SuspendedHit(List<BreakpointStatistics> stats, long since) {
+            this.stats = stats;
+            this.since = since;
+        }
+    }
+
+    /**
+     * Charge the suspension of stops that a continue or step just resumed.
+     * @param threadId the resumed thread (0 = every thread)
+     */
+    private void endSuspension(long threadId) {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Long, SuspendedHit>> it = suspendedHits.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, SuspendedHit> entry = it.next();
+            if (threadId != 0 && entry.getKey() != threadId) continue;
+            it.remove();
+            for (BreakpointStatistics stats : entry.getValue().stats) {
+                stats.suspendedNanos.addAndGet(now - entry.getValue().since);
             }
         }
-        if (bpInfo == null) return 0;
+    }
 
-        String sourcePath = str(bpInfo, "sourcePath");
-        List<Object> breakpointSpecs = list(bpInfo, "breakpoints");
-        if (breakpointSpecs == null) return 0;
+    /**
+     * Compile a breakpoint's condition, push what JDWP can filter natively
+     * onto the request, and store the rest as its "condition" property.
+     * Must run before the request is enabled.
+     */
+    private void attachCondition(BreakpointRequest bpr, String condition) {
+        BreakpointCondition compiled = compileCondition(condition);
+        for (java.util.function.Consumer<BreakpointRequest> filter : planPushdown(bpr.location(), compiled)) {
+            filter.accept(bpr);
+        }
+        bpr.putProperty("condition", compiled);
+    }
 
-        int planted = 0;
-        log("Setting deferred breakpoints on " + className);
-        for (Object bpObj : breakpointSpecs) {
-            Map<String, Object> bpSpec = asMap(bpObj);
-            int line = intVal(bpSpec, "line");
-            String condition = str(bpSpec, "condition");
-            String suspendPol = str(bpSpec, "suspendPolicy");
-            Map<String, Object> bp = setBreakpointOnClass(refType, line, condition, sourcePath, suspendPol);
+    private BreakpointCondition compileCondition(String condition) {
+        BreakpointCondition compiled = new BreakpointCondition(condition);
+        if (compiled.compileError != null) {
+            log("Breakpoint condition does not parse (will stop on every hit): " + compiled.compileError);
+        }
+        return compiled;
+    }
 
-            // Send breakpoint verified event
-            if (Boolean.TRUE.equals(bp.get("verified"))) {
-                planted++;
-                Map<String, Object> bpEvent = new HashMap<>();
-                bpEvent.put("reason", "changed");
-                Map<String, Object> bpBody = new HashMap<>();
-                bpBody.put("id", bp.get("id"));
-                bpBody.put("verified", true);
-                bpBody.put("line", bp.get("line"));
-                if (sourcePath != null) {
-                    bpBody.put("source", mapOf("path", sourcePath));
-                }
-                bpEvent.put("breakpoint", bpBody);
-                sendEvent("breakpoint", bpEvent);
+    /**
+     * A DAP hitCondition: "N" (or "== N") stops on the Nth hit only,
+     * ">= N" (or "> N") on every hit from the Nth on, "% N" on every Nth hit.
+     * One instance is shared by every request planted for the same DAP
+     * breakpoint — each classloader copy, and re-plants after a redefine —
+     * so counting survives them, as it does a setBreakpoints that leaves the
+     * breakpoint unchanged; an edited breakpoint counts from zero.
+     */
+    private static final class HitCondition {
+        enum Kind { EQUAL, AT_LEAST, MODULO }
+
+        private static final java.util.regex.Pattern SYNTAX =
+                java.util.regex.Pattern.compile("(==|>=|>|%)?\\s*(\\d+)");
+
+        final Kind kind;
+        final int count;
+        final AtomicLong hits = new AtomicLong();
+        // An EQUAL count has stopped; its requests must never stop again
+        volatile boolean fired;
+
+        private HitCondition(Kind kind, int count) {
+            this.kind = kind;
+            this.count = count;
+        }
+
+        /** @throws IllegalArgumentException for anything but the three forms */
+        static HitCondition parse(String text) {
+            java.util.regex.Matcher m = SYNTAX.matcher(text.trim());
+            int n;
+            try {
+                if (!m.matches()) throw new NumberFormatException();
+                n = Integer.parseInt(m.group(2));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unsupported hit condition '" + text + "' (use N, >= N or % N)");
+            }
+            String op = m.group(1);
+            if (">".equals(op)) {
+                if (n == Integer.MAX_VALUE) throw new IllegalArgumentException("Hit condition out of range: " + text);
+                return new HitCondition(Kind.AT_LEAST, n + 1);
+            }
+            if (n <= 0) throw new IllegalArgumentException("Hit condition needs a positive count: " + text);
+            if (">=".equals(op)) return new HitCondition(Kind.AT_LEAST, n);
+            if ("%".equals(op)) return new HitCondition(Kind.MODULO, n);
+            return new HitCondition(Kind.EQUAL, n);
+        }
+
+        /**
+         * Count one hit that passed the breakpoint's condition.
+         * @param counted true when a JDWP count filter already skipped the
+         *                first N-1 hits in the target, so this is hit N
+         * @return whether to stop
+         */
+        boolean onHit(boolean counted) {
+            if (counted) {
+                // Each request (classloader copy, re-plant) has its own count
+                // filter; only the first to reach N stops
+                if (fired) return false;
+                hits.addAndGet(count);
+                fired = true;
+                return true;
+            }
+            long n = hits.incrementAndGet();
+            switch (kind) {
+                case EQUAL:
+                    if (n != count) return false;
+                    fired = true;
+                    return true;
+                case AT_LEAST:
+                    return n >= count;
+                default:
+                    return n % count == 0;
             }
         }
-        return planted;
     }
 
-    private boolean evaluateCondition(ThreadReference thread, String condition) {
+    /** Parse a breakpoint's hitCondition; a bad one is logged and ignored, like a bad condition. */
+    private HitCondition parseHitCondition(String text) {
+        if (text == null || text.trim().isEmpty()) return null;
         try {
-            List<StackFrame> frames = thread.frames();
-            if (frames.isEmpty()) return true;
-            StackFrame sf = frames.get(0);
+            return HitCondition.parse(text);
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage() + " — ignoring it, the breakpoint stops on every hit");
+            return null;
+        }
+    }
 
-            ExprEvaluator evaluator = new ExprEvaluator(condition, vm, thread, sf);
-            Value result = evaluator.evaluate();
-            return isTruthy(result);
+    /**
+     * Attach a hit condition to a request before it is enabled. An exact
+     * count with nothing left for the bridge to evaluate becomes a JDWP count
+     * filter: the target skips the first N-1 hits without suspending, and
+     * the request never reports again after the Nth. The filter goes after
+     * any pushed-down condition filters, so only matching hits are counted.
+     * A re-plant after a redefine re-arms the full count — the target never
+     * tells how far the old request got. Other forms count in the bridge.
+     * @return whether a count filter was added
+     */
+    private boolean armHitCondition(EventRequest request, HitCondition hitCondition) {
+        request.putProperty("hitCondition", hitCondition);
+        if (!usesCountFilter(hitCondition, (BreakpointCondition) request.getProperty("condition"))) return false;
+        request.addCountFilter(hitCondition.count);
+        request.putProperty("jdi-count-filter", Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * An exact hit count has stopped: disable every request sharing it — the
+     * other classloader copies and re-plants, whose own count filters would
+     * otherwise each stop once more. Runs once per breakpoint, so a scan of
+     * the request lists is fine.
+     */
+    private void disableFiredRequests(HitCondition hitCondition) {
+        EventRequestManager erm = vm.eventRequestManager();
+        List<EventRequest> requests = new ArrayList<>(erm.breakpointRequests());
+        requests.addAll(erm.modificationWatchpointRequests());
+        requests.addAll(erm.accessWatchpointRequests());
+        for (EventRequest request : requests) {
+            if (request.getProperty("hitCondition") != hitCondition || !request.isEnabled()) continue;
+            try {
+                request.disable();
+            } catch (InvalidRequestStateException e) {
+                // deleted meanwhile
+            }
+        }
+    }
+
+    private static boolean usesCountFilter(HitCondition hitCondition, BreakpointCondition condition) {
+        return hitCondition.kind == HitCondition.Kind.EQUAL && !hitCondition.fired
+                && (condition == null || (condition.compiled != null && condition.residual == null));
+    }
+
+    /**
+     * A logpoint's DAP logMessage, split once when the breakpoint is set into
+     * literal text and compiled {expression} segments ("{{" and "}}" are
+     * literal braces). Shared by every request planted for the breakpoint,
+     * like {@link HitCondition}, and so is its token bucket: at most
+     * {@code rate} messages per second with bursts of the same size.
+     */
+    private static final class LogMessage {
+        final String source;
+        // String (literal text), ExprEvaluator.Compiled, or LogMessage.Invalid
+        final List<Object> parts = new ArrayList<>();
+        final AtomicLong emitted = new AtomicLong();
+        final AtomicLong suppressed = new AtomicLong();
+
+        private double tokens = -1; // -1: full bucket on first use
+        private long refilledAt;
+        private boolean paused; // tripped; the breakpoint's requests are disabled until the bucket refills
+
+        /** An {expression} that does not parse; rendered as its error. */
+        private static final class Invalid {
+            final String message;
+            Invalid(String message) {
+                this.message = message;
+            }
+        }
+
+        LogMessage(String source) {
+            this.source = source;
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                if ((c == '{' || c == '}') && i + 1 < source.length() && source.charAt(i + 1) == c) {
+                    literal.append(c);
+                    i += 2;
+                    continue;
+                }
+                int close = c == '{' ? matchingBrace(source, i) : -1;
+                if (close < 0) {
+                    literal.append(c);
+                    i++;
+                    continue;
+                }
+                if (literal.length() > 0) {
+                    parts.add(literal.toString());
+                    literal.setLength(0);
+                }
+                String expr = source.substring(i + 1, close);
+                try {
+                    parts.add(ExprEvaluator.compile(expr));
+                } catch (RuntimeException e) {
+                    parts.add(new Invalid(e.getMessage()));
+                }
+                i = close + 1;
+            }
+            if (literal.length() > 0) parts.add(literal.toString());
+        }
+
+        /** Index of the '}' closing the '{' at {@code open}, honouring nesting and string literals; -1 if none. */
+        private static int matchingBrace(String s, int open) {
+            int depth = 0;
+            char quote = 0;
+            for (int i = open; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') i++;
+                    else if (c == quote) quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return 0 if a message may be emitted now; -1 if the logpoint is
+         *         already paused (a hit queued before its requests were
+         *         disabled); else it trips now, and this is the nanoseconds
+         *         until the bucket is full again — pausing that long lets a
+         *         hot line emit in bursts instead of tripping once per token
+         */
+        synchronized long acquire(long rate) {
+            if (paused) return -1;
+            long now = System.nanoTime();
+            if (tokens < 0) {
+                tokens = rate;
+            } else {
+                tokens = Math.min(rate, tokens + (now - refilledAt) * rate / 1e9);
+            }
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            paused = true;
+            return (long) Math.ceil((rate - tokens) * 1e9 / rate);
+        }
+
+        synchronized void unpause() {
+            paused = false;
+        }
+    }
+
+    /**
+     * Render a logpoint hit on the (alone suspended) event thread and queue
+     * it as console output; the event loop resumes the thread right after.
+     * Messages join the debuggee-output batches, so a busy logpoint costs a
+     * few output events rather than one per hit. Past its rate limit every
+     * request of the breakpoint (each classloader copy) is disabled until the
+     * bucket is full again — skipped hits cost the target nothing — and one
+     * notice per pause says so; hits already queued count as skipped.
+     */
+    private void emitLogpoint(ThreadReference thread, BreakpointRequest bpr, LogMessage logMessage) {
+        long rate = logpointRateLimit;
+        long waitNanos = logMessage.acquire(rate);
+        if (waitNanos != 0) {
+            logMessage.suppressed.incrementAndGet();
+            if (waitNanos < 0) return;
+            LineBreakpoint lb = (LineBreakpoint) bpr.getProperty("jdi-line-bp");
+            List<BreakpointRequest> requests = lb != null ? lb.requests : List.of(bpr);
+            for (BreakpointRequest request : requests) {
+                try {
+                    request.disable();
+                } catch (RuntimeException e) {
+                    // deleted by a newer setBreakpoints
+                }
+            }
+            targetOutput.append("console", "[logpoint " + bpr.location() + "] more than " + rate
+                    + " messages/s; skipping hits for " + Math.max(1, waitNanos / 1_000_000) + " ms\n");
+            Thread.ofVirtual().name("logpoint-rearm").start(() -> {
+                LockSupport.parkNanos(waitNanos);
+                logMessage.unpause();
+                HitCondition hitCondition = lb != null ? lb.hitCondition : null;
+                if (hitCondition != null && hitCondition.fired) return; // an exact count is spent
+                for (BreakpointRequest request : requests) {
+                    try {
+                        request.enable();
+                    } catch (RuntimeException e) {
+                        // deleted by a newer setBreakpoints, or the VM is gone
+                    }
+                }
+            });
+            return;
+        }
+        StringBuilder out = new StringBuilder();
+        for (Object part : logMessage.parts) {
+            if (part instanceof String) {
+                out.append((String) part);
+                continue;
+            }
+            if (part instanceof LogMessage.Invalid) {
+                out.append("<error: ").append(((LogMessage.Invalid) part).message).append('>');
+                continue;
+            }
+            try {
+                // Fresh frame per segment: a method call in the previous one invalidates it
+                ExprEvaluator evaluator = new ExprEvaluator((ExprEvaluator.Compiled) part, vm, thread, thread.frame(0),
+                        invocationLimits(null));
+                out.append(evaluator.valueToString(evaluator.evaluate()));
+            } catch (Exception e) {
+                out.append("<error: ").append(e.getMessage()).append('>');
+            }
+        }
+        logMessage.emitted.incrementAndGet();
+        targetOutput.append("console", out.append('\n').toString());
+    }
+
+    /**
+     * Condition pushdown: turn top-level {@code &&} conjuncts that JDWP can
+     * test itself into request filters, so the target VM drops
+     * non-matching hits without suspending or a round trip to the bridge.
+     * <ul>
+     *   <li>{@code this == Cls.FIELD} with a static final object field →
+     *       addInstanceFilter on the field's value;</li>
+     *   <li>{@code this instanceof T} where the breakpoint's declaring type
+     *       already is a T → dropped, always true in an instance method.
+     *       JDI breakpoint requests take no class filter, so other instanceof
+     *       tests stay in the bridge.</li>
+     * </ul>
+     * The remaining conjuncts are re-assembled into the residual condition.
+     * Thread-name tests stay there too: a thread filter names one thread
+     * object, while the name matches whichever thread has it at each hit.
+     * Filters are returned rather than applied, so a caller can tell
+     * whether a request needs any before touching it.
+     */
+    private List<java.util.function.Consumer<BreakpointRequest>> planPushdown(Location loc, BreakpointCondition condition) {
+        List<java.util.function.Consumer<BreakpointRequest>> filters = new ArrayList<>();
+        if (condition.compiled == null) return filters;
+        List<ExprEvaluator.Node> conjuncts = new ArrayList<>();
+        flattenConjuncts(condition.compiled.root, conjuncts);
+        List<String> pushed = new ArrayList<>();
+        ExprEvaluator.Node residual = null;
+        for (ExprEvaluator.Node conjunct : conjuncts) {
+            String filter;
+            try {
+                filter = pushDownConjunct(loc, conjunct, filters);
+            } catch (RuntimeException e) {
+                filter = null; // e.g. the field's class unloaded meanwhile — evaluate it instead
+            }
+            if (filter != null) {
+                pushed.add(filter);
+            } else {
+                residual = residual == null ? conjunct : new ExprEvaluator.Logical(conjunct.pos, true, residual, conjunct);
+            }
+        }
+        if (pushed.isEmpty()) return filters;
+        condition.pushedDown = pushed;
+        condition.residual = residual == null ? null : new ExprEvaluator.Compiled(condition.source, residual);
+        log("Condition pushdown at " + loc + ": " + pushed
+                + (residual == null ? "" : " (rest evaluated on hit)"));
+        return filters;
+    }
+
+    private static void flattenConjuncts(ExprEvaluator.Node node, List<ExprEvaluator.Node> out) {
+        if (node instanceof ExprEvaluator.Logical && ((ExprEvaluator.Logical) node).isAnd) {
+            flattenConjuncts(((ExprEvaluator.Logical) node).left, out);
+            flattenConjuncts(((ExprEvaluator.Logical) node).right, out);
+        } else {
+            out.add(node);
+        }
+    }
+
+    /** @return a description of the filter added to {@code filters}, or null if the conjunct stays in the bridge */
+    private String pushDownConjunct(Location loc, ExprEvaluator.Node node,
+            List<java.util.function.Consumer<BreakpointRequest>> filters) {
+        if (loc.method().isStatic()) return null; // no 'this' below
+
+        if (node instanceof ExprEvaluator.Binary && ((ExprEvaluator.Binary) node).op == ExprEvaluator.TT.EQ
+                && vm.canUseInstanceFilters()) {
+            ExprEvaluator.Binary eq = (ExprEvaluator.Binary) node;
+            ExprEvaluator.Node other = eq.left instanceof ExprEvaluator.This ? eq.right
+                    : eq.right instanceof ExprEvaluator.This ? eq.left : null;
+            String path = other != null ? dottedName(other) : null;
+            ObjectReference instance = path != null ? staticFinalObject(path) : null;
+            if (instance == null) return null;
+            filters.add(bpr -> bpr.addInstanceFilter(instance));
+            return "this == " + path;
+        }
+
+        if (node instanceof ExprEvaluator.InstanceOf
+                && ((ExprEvaluator.InstanceOf) node).operand instanceof ExprEvaluator.This) {
+            String typeName = ((ExprEvaluator.InstanceOf) node).typeName;
+            ReferenceType type = uniqueLoadedType(typeName);
+            if (type != null && ExprEvaluator.isSubtypeOf(loc.declaringType(), type)) {
+                return "this instanceof " + typeName + " (always true here)";
+            }
+        }
+        return null;
+    }
+
+    /** "a.b.C" for a chain of bare names and field accesses, else null. */
+    private static String dottedName(ExprEvaluator.Node node) {
+        if (node instanceof ExprEvaluator.Name) return ((ExprEvaluator.Name) node).name;
+        if (node instanceof ExprEvaluator.FieldAccess) {
+            String prefix = dottedName(((ExprEvaluator.FieldAccess) node).target);
+            return prefix == null ? null : prefix + "." + ((ExprEvaluator.FieldAccess) node).name;
+        }
+        return null;
+    }
+
+    /**
+     * Value of the static final object field {@code Cls.FIELD} — final, so
+     * the snapshot taken for an instance filter can never go stale. Null if
+     * the class is not loaded and initialized, or the field is not a
+     * static final non-null reference.
+     */
+    private ObjectReference staticFinalObject(String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot <= 0) return null;
+        ReferenceType type = uniqueLoadedType(path.substring(0, dot));
+        if (type == null || !type.isInitialized()) return null;
+        Field field = type.fieldByName(path.substring(dot + 1));
+        if (field == null || !field.isStatic() || !field.isFinal()) return null;
+        Value value = type.getValue(field);
+        return value instanceof ObjectReference ? (ObjectReference) value : null;
+    }
+
+    /** The single loaded type a source-level name denotes (FQCN or unambiguous simple name). */
+    private ReferenceType uniqueLoadedType(String name) {
+        List<ReferenceType> types = classIndex.byName(name);
+        if (types.isEmpty()) {
+            types = new ArrayList<>();
+            for (ReferenceType rt : classIndex.bySimpleName(LoadedClassIndex.innermostName(name))) {
+                String binary = rt.name().replace('$', '.');
+                if (binary.equals(name) || binary.endsWith("." + name)) types.add(rt);
+            }
+        }
+        return types.size() == 1 ? types.get(0) : null;
+    }
+
+    /** @param stats the request's counters, or null */
+    private boolean evaluateCondition(ThreadReference thread, BreakpointCondition condition, BreakpointStatistics stats) {
+        long start = System.nanoTime();
+        boolean stop = true; // default: break on error
+        try {
+            if (condition.compiled == null) {
+                throw new IllegalArgumentException(condition.compileError);
+            }
+            ExprEvaluator.Compiled residual = condition.residual;
+            if (residual == null) {
+                // Fully pushed down: JDWP only reports matching hits
+                return true;
+            }
+            // Only the top frame is needed — don't fetch the whole stack per hit
+            StackFrame sf = thread.frame(0);
+            ExprEvaluator evaluator = new ExprEvaluator(residual, vm, thread, sf, invocationLimits(null));
+            stop = isTruthy(evaluator.evaluate());
+            return stop;
         } catch (Exception e) {
+            if (stats != null) stats.conditionErrors.incrementAndGet();
             log("Condition evaluation error: " + e.getMessage());
-            return true; // default: break on error
+            return true;
+        } finally {
+            if (stats != null) {
+                (stop ? stats.conditionTrue : stats.conditionFalse).incrementAndGet();
+                stats.conditionNanos.addAndGet(System.nanoTime() - start);
+            }
         }
     }
 
@@ -2105,6 +5335,7 @@ public class JdiDapServer {
 
     private void clearFrameCache() {
         synchronized (threadFrameCache) {
+            frameGeneration++;
             threadFrameCache.clear();
             varRefMap.clear();
             scopeRefMap.clear();
@@ -2124,6 +5355,7 @@ public class JdiDapServer {
      * process exit); if it is still running (e.g. detach), no event is sent.
      */
     private void maybeSendExitedEvent() {
+        targetOutput.flush(); // batched debuggee output precedes exited/terminated
         Process proc = launchedProcess;
         if (proc == null) return; // attach mode (or already cleaned up)
         synchronized (exitedLock) {
@@ -2148,6 +5380,8 @@ public class JdiDapServer {
     // handlers can't race when the proxy is shutting down rapidly.
     private synchronized void cleanup() {
         lastException = null;
+        suspendedHits.clear();
+        watchedObjects.clear();
         if (vm != null) {
             try {
                 vm.dispose();
@@ -2182,42 +5416,65 @@ public class JdiDapServer {
 
     // ========== DAP Message Construction ==========
 
+    // Envelopes are written field by field straight into the frame buffer —
+    // only the body is a Map.
+
     private void sendResponse(int reqSeq, String command, boolean success, Map<String, Object> body) {
-        Map<String, Object> resp = new HashMap<>();
-        resp.put("seq", seq.getAndIncrement());
-        resp.put("type", "response");
-        resp.put("request_seq", reqSeq);
-        resp.put("success", success);
-        resp.put("command", command);
-        resp.put("body", body);
-        sendDapMessage(resp);
+        FrameWriter w = FrameWriter.acquire(cborFraming);
+        w.beginObject();
+        w.name("seq").value(seq.getAndIncrement());
+        w.name("type").value("response");
+        w.name("request_seq").value(reqSeq);
+        w.name("success").value(success);
+        w.name("command").value(command);
+        w.name("body").value(body);
+        w.endObject();
+        sendFrame(w);
     }
 
     private void sendErrorResponse(int reqSeq, String command, String message) {
-        Map<String, Object> body = new HashMap<>();
-        Map<String, Object> error = new HashMap<>();
-        error.put("id", 1);
-        error.put("format", message);
-        body.put("error", error);
-
-        Map<String, Object> resp = new HashMap<>();
-        resp.put("seq", seq.getAndIncrement());
-        resp.put("type", "response");
-        resp.put("request_seq", reqSeq);
-        resp.put("success", false);
-        resp.put("command", command);
-        resp.put("message", message);
-        resp.put("body", body);
-        sendDapMessage(resp);
+        FrameWriter w = FrameWriter.acquire(cborFraming);
+        w.beginObject();
+        w.name("seq").value(seq.getAndIncrement());
+        w.name("type").value("response");
+        w.name("request_seq").value(reqSeq);
+        w.name("success").value(false);
+        w.name("command").value(command);
+        w.name("message").value(message);
+        w.name("body").beginObject();
+        w.name("error").beginObject();
+        w.name("id").value(1);
+        w.name("format").value(message);
+        w.endObject();
+        w.endObject();
+        w.endObject();
+        sendFrame(w);
     }
 
     private void sendEvent(String event, Map<String, Object> body) {
-        Map<String, Object> evt = new HashMap<>();
-        evt.put("seq", seq.getAndIncrement());
-        evt.put("type", "event");
-        evt.put("event", event);
-        evt.put("body", body);
-        sendDapMessage(evt);
+        if (throttle.absorb(event, body)) return;
+        switch (event) {
+            case "stopped":
+            case "terminated":
+            case "exited":
+                throttle.release(); // never dropped — and held-back events go first
+                break;
+            default:
+                break;
+        }
+        writeEvent(event, body);
+    }
+
+    /** Encode and queue an event, bypassing the overflow policy. */
+    private void writeEvent(String event, Map<String, Object> body) {
+        FrameWriter w = FrameWriter.acquire(cborFraming);
+        w.beginObject();
+        w.name("seq").value(seq.getAndIncrement());
+        w.name("type").value("event");
+        w.name("event").value(event);
+        w.name("body").value(body);
+        w.endObject();
+        sendFrame(w);
     }
 
     private void sendStoppedEvent(String reason, long threadId) {
@@ -2249,79 +5506,396 @@ public class JdiDapServer {
 
     // ========== Minimal JSON Parser/Writer (no deps) ==========
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> parseJson(String json) {
-        return (Map<String, Object>) new JsonParser(json).parseValue();
-    }
+    /**
+     * Streaming JSON writer that encodes UTF-8 straight into a growable byte
+     * array, leaving room in front for the Content-Length header, which
+     * {@link #finish()} fills in once the body length is known. The finished
+     * frame goes to the socket as one contiguous buffer — no StringBuilder,
+     * no intermediate String, no getBytes copy. Writers are pooled; buffers
+     * that grew past {@link #MAX_POOLED_CAPACITY} are dropped rather than
+     * kept alive by the pool.
+     *
+     * <p>Once the client negotiates it (setWireFormat), the same calls emit
+     * CBOR (RFC 8949) instead of JSON. Objects and arrays are written with
+     * indefinite length so nothing has to be counted up front; the framing
+     * header is unchanged.
+     */
+    private static final class FrameWriter {
+        // "Content-Length: " + up to 10 digits + "\r\n\r\n"
+        private static final int HEADER_RESERVE = 30;
+        private static final byte[] HEADER_PREFIX = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        private static final int INITIAL_CAPACITY = 8 * 1024;
+        private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+        private static final ArrayBlockingQueue<FrameWriter> POOL = new ArrayBlockingQueue<>(8);
 
-    private String toJson(Object obj) {
-        StringBuilder sb = new StringBuilder();
-        writeJson(sb, obj);
-        return sb.toString();
-    }
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int count = HEADER_RESERVE;
+        private int headerStart = HEADER_RESERVE;
+        // true when the next value/name is the first in its object or array
+        private boolean first = true;
+        private boolean cbor;
+
+        static FrameWriter acquire(boolean cbor) {
+            FrameWriter w = POOL.poll();
+            if (w == null) w = new FrameWriter();
+            w.cbor = cbor;
+            return w;
+        }
 
-    @SuppressWarnings("unchecked")
-    private void writeJson(StringBuilder sb, Object obj) {
-        if (obj == null) {
-            sb.append("null");
-        } else if (obj instanceof Boolean) {
-            sb.append(obj);
-        } else if (obj instanceof Number) {
-            // Avoid scientific notation for integers
-            if (obj instanceof Double || obj instanceof Float) {
+        static void release(FrameWriter w) {
+            if (w.bytes.length > MAX_POOLED_CAPACITY) return;
+            w.count = HEADER_RESERVE;
+            w.headerStart = HEADER_RESERVE;
+            w.first = true;
+            POOL.offer(w);
+        }
+
+        /** Write the header in front of the body; returns the whole frame. */
+        ByteBuffer finish() {
+            int bodyLength = count - HEADER_RESERVE;
+            int digits = bodyLength == 0 ? 1 : (int) Math.log10(bodyLength) + 1;
+            int p = HEADER_RESERVE;
+            bytes[--p] = '\n';
+            bytes[--p] = '\r';
+            bytes[--p] = '\n';
+            bytes[--p] = '\r';
+            int n = bodyLength;
+            for (int i = 0; i < digits; i++) {
+                bytes[--p] = (byte) ('0' + n % 10);
+                n /= 10;
+            }
+            p -= HEADER_PREFIX.length;
+            System.arraycopy(HEADER_PREFIX, 0, bytes, p, HEADER_PREFIX.length);
+            headerStart = p;
+            return ByteBuffer.wrap(bytes, headerStart, count - headerStart);
+        }
+
+        /** Body length in bytes. */
+        int size() {
+            return count - HEADER_RESERVE;
+        }
+
+        String bodyAsString() {
+            if (cbor) return "<cbor " + (count - HEADER_RESERVE) + " bytes>";
+            return new String(bytes, HEADER_RESERVE, count - HEADER_RESERVE, StandardCharsets.UTF_8);
+        }
+
+        // ---- structure ----
+
+        FrameWriter beginObject() {
+            if (cbor) {
+                putByte(0xBF); // map, indefinite length
+                return this;
+            }
+            separator();
+            put('{');
+            first = true;
+            return this;
+        }
+
+        FrameWriter endObject() {
+            if (cbor) {
+                putByte(0xFF); // break
+                return this;
+            }
+            put('}');
+            first = false;
+            return this;
+        }
+
+        FrameWriter name(String name) {
+            if (cbor) {
+                cborText(name);
+                return this;
+            }
+            separator();
+            string(name);
+            put(':');
+            first = true; // the value follows without a comma
+            return this;
+        }
+
+        // ---- values ----
+
+        FrameWriter value(String s) {
+            if (cbor) {
+                if (s == null) putByte(0xF6); else cborText(s);
+                return this;
+            }
+            separator();
+            if (s == null) literal("null"); else string(s);
+            first = false;
+            return this;
+        }
+
+        FrameWriter value(long v) {
+            if (cbor) {
+                if (v >= 0) cborHead(0, v); else cborHead(1, -1 - v);
+                return this;
+            }
+            separator();
+            writeLong(v);
+            first = false;
+            return this;
+        }
+
+        FrameWriter value(boolean b) {
+            if (cbor) {
+                putByte(b ? 0xF5 : 0xF4);
+                return this;
+            }
+            separator();
+            literal(b ? "true" : "false");
+            first = false;
+            return this;
+        }
+
+        /** Generic value: Map, List, String, Number, Boolean or null. */
+        FrameWriter value(Object obj) {
+            if (obj == null) {
+                if (cbor) {
+                    putByte(0xF6);
+                    return this;
+                }
+                separator();
+                literal("null");
+                first = false;
+            } else if (obj instanceof String) {
+                value((String) obj);
+            } else if (obj instanceof Boolean) {
+                value(((Boolean) obj).booleanValue());
+            } else if (obj instanceof Integer || obj instanceof Long
+                    || obj instanceof Short || obj instanceof Byte) {
+                value(((Number) obj).longValue());
+            } else if (obj instanceof Number) {
+                // Avoid scientific notation for integral doubles
                 double d = ((Number) obj).doubleValue();
+                if (cbor) {
+                    if (d == Math.floor(d) && !Double.isInfinite(d)) {
+                        value((long) d);
+                    } else {
+                        putByte(0xFB); // float64
+                        putLongBytes(Double.doubleToLongBits(d));
+                    }
+                    return this;
+                }
+                separator();
                 if (d == Math.floor(d) && !Double.isInfinite(d)) {
-                    sb.append((long) d);
+                    writeLong((long) d);
                 } else {
-                    sb.append(d);
+                    literal(Double.toString(d));
+                }
+                first = false;
+            } else if (obj instanceof Map) {
+                beginObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                    name(String.valueOf(entry.getKey()));
+                    value(entry.getValue());
                 }
+                endObject();
+            } else if (obj instanceof List && cbor) {
+                putByte(0x9F); // array, indefinite length
+                for (Object item : (List<?>) obj) {
+                    value(item);
+                }
+                putByte(0xFF);
+            } else if (obj instanceof List) {
+                separator();
+                put('[');
+                first = true;
+                for (Object item : (List<?>) obj) {
+                    value(item);
+                }
+                put(']');
+                first = false;
             } else {
-                sb.append(obj);
+                value(obj.toString());
             }
-        } else if (obj instanceof String) {
-            sb.append('"');
-            String s = (String) obj;
-            for (int i = 0; i < s.length(); i++) {
-                char c = s.charAt(i);
-                switch (c) {
-                    case '"': sb.append("\\\""); break;
-                    case '\\': sb.append("\\\\"); break;
-                    case '\n': sb.append("\\n"); break;
-                    case '\r': sb.append("\\r"); break;
-                    case '\t': sb.append("\\t"); break;
+            return this;
+        }
+
+        // ---- encoding ----
+
+        private void separator() {
+            if (!first) put(',');
+        }
+
+        private void string(String s) {
+            int len = s.length();
+            ensure(len + 2);
+            bytes[count++] = '"';
+            int i = 0;
+            while (i < len) {
+                // Fast path: a run of ASCII that needs no escaping, one byte per char
+                ensure(len - i + 1);
+                byte[] b = bytes;
+                int c = count;
+                while (i < len) {
+                    char ch = s.charAt(i);
+                    if (ch >= 0x80 || ch < 0x20 || ch == '"' || ch == '\\') break;
+                    b[c++] = (byte) ch;
+                    i++;
+                }
+                count = c;
+                if (i == len) break;
+                char ch = s.charAt(i++);
+                ensure(6);
+                switch (ch) {
+                    case '"': bytes[count++] = '\\'; bytes[count++] = '"'; break;
+                    case '\\': bytes[count++] = '\\'; bytes[count++] = '\\'; break;
+                    case '\n': bytes[count++] = '\\'; bytes[count++] = 'n'; break;
+                    case '\r': bytes[count++] = '\\'; bytes[count++] = 'r'; break;
+                    case '\t': bytes[count++] = '\\'; bytes[count++] = 't'; break;
                     default:
-                        if (c < 0x20) {
-                            sb.append(String.format("\\u%04x", (int) c));
+                        if (ch < 0x20) {
+                            bytes[count++] = '\\';
+                            bytes[count++] = 'u';
+                            bytes[count++] = '0';
+                            bytes[count++] = '0';
+                            bytes[count++] = HEX[ch >> 4];
+                            bytes[count++] = HEX[ch & 0xF];
+                        } else if (ch < 0x800) {
+                            bytes[count++] = (byte) (0xC0 | (ch >> 6));
+                            bytes[count++] = (byte) (0x80 | (ch & 0x3F));
+                        } else if (Character.isHighSurrogate(ch) && i < len && Character.isLowSurrogate(s.charAt(i))) {
+                            int cp = Character.toCodePoint(ch, s.charAt(i++));
+                            bytes[count++] = (byte) (0xF0 | (cp >> 18));
+                            bytes[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                            bytes[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                            bytes[count++] = (byte) (0x80 | (cp & 0x3F));
+                        } else if (Character.isSurrogate(ch)) {
+                            bytes[count++] = '?'; // unpaired surrogate, as String.getBytes does
                         } else {
-                            sb.append(c);
+                            bytes[count++] = (byte) (0xE0 | (ch >> 12));
+                            bytes[count++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                            bytes[count++] = (byte) (0x80 | (ch & 0x3F));
                         }
                 }
             }
-            sb.append('"');
-        } else if (obj instanceof Map) {
-            sb.append('{');
-            boolean first = true;
-            for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
-                if (!first) sb.append(',');
-                first = false;
-                writeJson(sb, String.valueOf(entry.getKey()));
-                sb.append(':');
-                writeJson(sb, entry.getValue());
-            }
-            sb.append('}');
-        } else if (obj instanceof List) {
-            sb.append('[');
-            boolean first = true;
-            for (Object item : (List<?>) obj) {
-                if (!first) sb.append(',');
-                first = false;
-                writeJson(sb, item);
+            ensure(1);
+            bytes[count++] = '"';
+        }
+
+        /** CBOR text string: head with the UTF-8 byte length, then the bytes. */
+        private void cborText(String s) {
+            int len = s.length();
+            long utf8Length = len;
+            for (int i = 0; i < len; i++) {
+                char ch = s.charAt(i);
+                if (ch < 0x80) continue;
+                if (ch < 0x800) {
+                    utf8Length += 1;
+                } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    utf8Length += 2; // four bytes for two chars
+                    i++;
+                } else if (!Character.isSurrogate(ch)) {
+                    utf8Length += 2;
+                }
+            }
+            cborHead(3, utf8Length);
+            ensure((int) utf8Length);
+            byte[] b = bytes;
+            int c = count;
+            for (int i = 0; i < len; i++) {
+                char ch = s.charAt(i);
+                if (ch < 0x80) {
+                    b[c++] = (byte) ch;
+                } else if (ch < 0x800) {
+                    b[c++] = (byte) (0xC0 | (ch >> 6));
+                    b[c++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(ch, s.charAt(++i));
+                    b[c++] = (byte) (0xF0 | (cp >> 18));
+                    b[c++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    b[c++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    b[c++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(ch)) {
+                    b[c++] = '?'; // unpaired surrogate, as in the JSON path
+                } else {
+                    b[c++] = (byte) (0xE0 | (ch >> 12));
+                    b[c++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    b[c++] = (byte) (0x80 | (ch & 0x3F));
+                }
+            }
+            count = c;
+        }
+
+        /** CBOR initial byte plus argument in the shortest form. */
+        private void cborHead(int major, long arg) {
+            ensure(9);
+            int m = major << 5;
+            if (arg < 24) {
+                bytes[count++] = (byte) (m | arg);
+            } else if (arg < 0x100) {
+                bytes[count++] = (byte) (m | 24);
+                bytes[count++] = (byte) arg;
+            } else if (arg < 0x10000) {
+                bytes[count++] = (byte) (m | 25);
+                bytes[count++] = (byte) (arg >> 8);
+                bytes[count++] = (byte) arg;
+            } else if (arg < 0x100000000L) {
+                bytes[count++] = (byte) (m | 26);
+                for (int shift = 24; shift >= 0; shift -= 8) {
+                    bytes[count++] = (byte) (arg >> shift);
+                }
+            } else {
+                bytes[count++] = (byte) (m | 27);
+                putLongBytes(arg);
+            }
+        }
+
+        private void putLongBytes(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[count++] = (byte) (v >> shift);
             }
-            sb.append(']');
-        } else {
-            sb.append('"');
-            sb.append(obj.toString().replace("\"", "\\\""));
-            sb.append('"');
+        }
+
+        private void putByte(int b) {
+            ensure(1);
+            bytes[count++] = (byte) b;
+        }
+
+        private void writeLong(long v) {
+            if (v == Long.MIN_VALUE) {
+                literal("-9223372036854775808");
+                return;
+            }
+            ensure(20);
+            if (v < 0) {
+                bytes[count++] = '-';
+                v = -v;
+            }
+            int start = count;
+            do {
+                bytes[count++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v != 0);
+            // digits were written least-significant first
+            for (int i = start, j = count - 1; i < j; i++, j--) {
+                byte t = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = t;
+            }
+        }
+
+        private void literal(String ascii) {
+            int len = ascii.length();
+            ensure(len);
+            for (int i = 0; i < len; i++) {
+                bytes[count++] = (byte) ascii.charAt(i);
+            }
+        }
+
+        private void put(char c) {
+            ensure(1);
+            bytes[count++] = (byte) c;
+        }
+
+        private void ensure(int extra) {
+            if (count + extra <= bytes.length) return;
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + extra));
         }
     }
 
@@ -2330,6 +5904,9 @@ public class JdiDapServer {
     /**
      * Recursive descent expression evaluator using JDI.
      * Evaluates Java-like expressions in the context of a suspended thread.
+     * Parsing builds a small syntax tree ({@link #compile}) that can be
+     * evaluated repeatedly, so breakpoint conditions parse once; && and ||
+     * short-circuit as in Java.
      *
      * Supported: literals, variables, this, chained field access, method calls,
      * array indexing, arithmetic (+,-,*,/,%), string concat, comparisons,
@@ -2359,28 +5936,291 @@ public class JdiDapServer {
         }
 
         private final String source;
-        private final List<Token> tokens;
-        private int current;
+        private final Node root;
         private final VirtualMachine vm;
         private final ThreadReference thread;
         private final StackFrame frame;
+        private final InvocationLimits limits;
+        // Parse phase only (see compile)
+        private List<Token> tokens;
+        private int current;
+        // Position reported by evaluation errors: that of the node being evaluated
+        private int errorPos;
 
-        ExprEvaluator(String expression, VirtualMachine vm, ThreadReference thread, StackFrame frame) {
-            this.source = expression;
+        ExprEvaluator(String expression, VirtualMachine vm, ThreadReference thread, StackFrame frame,
+                      InvocationLimits limits) {
+            this(compile(expression), vm, thread, frame, limits);
+        }
+
+        /** Evaluate an already-compiled expression (conditions compile once per breakpoint). */
+        ExprEvaluator(Compiled compiled, VirtualMachine vm, ThreadReference thread, StackFrame frame,
+                      InvocationLimits limits) {
+            this.source = compiled.source;
+            this.root = compiled.root;
             this.vm = vm;
             this.thread = thread;
             this.frame = frame;
+            this.limits = limits;
+        }
+
+        private ExprEvaluator(String expression) {
+            this.source = expression;
+            this.root = null;
+            this.vm = null;
+            this.thread = null;
+            this.frame = null;
+            this.limits = null;
             this.tokens = tokenize(expression);
             this.current = 0;
         }
 
+        /** Tokenize and parse once; the result is immutable apart from its resolution caches. */
+        static Compiled compile(String expression) {
+            ExprEvaluator parser = new ExprEvaluator(expression);
+            Node root = parser.parseExpression();
+            if (parser.peek().type != TT.EOF) {
+                throw parser.error("Unexpected token after expression: " + parser.peek().text);
+            }
+            return new Compiled(expression, root);
+        }
+
         /** Evaluate the expression and return a JDI Value (null for Java null). */
         Value evaluate() {
-            Value result = parseExpression();
-            if (peek().type != TT.EOF) {
-                throw error("Unexpected token after expression: " + peek().text);
+            return root.eval(this);
+        }
+
+        /** A parsed expression, reusable across frames, threads and hits. */
+        static final class Compiled {
+            final String source;
+            final Node root;
+            Compiled(String source, Node root) {
+                this.source = source; this.root = root;
+            }
+        }
+
+        // ---- Syntax tree ----
+
+        /**
+         * Parsed expression node. {@code pos} is the source position that
+         * evaluation errors raised by this node report.
+         */
+        abstract static class Node {
+            final int pos;
+            Node(int pos) { this.pos = pos; }
+            abstract Value eval(ExprEvaluator ev);
+        }
+
+        /**
+         * One-entry resolution cache: the member a node last resolved for a
+         * key — a Location for names, a receiver type for fields and methods.
+         * A breakpoint's condition always runs at the same Location, so after
+         * the first hit lookups cost an equals() instead of JDWP round trips.
+         */
+        static final class SiteCache<T> {
+            private static final class Entry<T> {
+                final Object key;
+                final T value;
+                Entry(Object key, T value) { this.key = key; this.value = value; }
+            }
+            private volatile Entry<T> entry;
+
+            T get(Object key) {
+                Entry<T> e = entry;
+                return e != null && e.key.equals(key) ? e.value : null;
+            }
+
+            void put(Object key, T value) {
+                entry = new Entry<>(key, value);
+            }
+        }
+
+        /** A 'this' field binding, valid while the receiver's runtime type is unchanged. */
+        static final class ThisField {
+            final ReferenceType receiverType;
+            final Field field;
+            ThisField(ReferenceType receiverType, Field field) {
+                this.receiverType = receiverType; this.field = field;
+            }
+        }
+
+        /** Literal; numbers and escapes are decoded at parse time. */
+        static final class Literal extends Node {
+            final Object constant;
+            Literal(int pos, Object constant) { super(pos); this.constant = constant; }
+            Value eval(ExprEvaluator ev) {
+                Object c = constant;
+                if (c == null) return null;
+                if (c instanceof Integer) return ev.vm.mirrorOf((Integer) c);
+                if (c instanceof Long) return ev.vm.mirrorOf((Long) c);
+                if (c instanceof Float) return ev.vm.mirrorOf((Float) c);
+                if (c instanceof Double) return ev.vm.mirrorOf((Double) c);
+                if (c instanceof Character) return ev.vm.mirrorOf((Character) c);
+                if (c instanceof Boolean) return ev.vm.mirrorOf((Boolean) c);
+                return ev.vm.mirrorOf((String) c);
+            }
+        }
+
+        static final class This extends Node {
+            This(int pos) { super(pos); }
+            Value eval(ExprEvaluator ev) {
+                ObjectReference thisObj = ev.frame.thisObject();
+                if (thisObj == null) throw ev.errorAt(pos, "'this' not available in static context");
+                return thisObj;
+            }
+        }
+
+        /** Bare name: local, field of 'this', or static field of the enclosing class. */
+        static final class Name extends Node {
+            final String name;
+            final SiteCache<Object> binding = new SiteCache<>();
+            Name(int pos, String name) { super(pos); this.name = name; }
+            Value eval(ExprEvaluator ev) {
+                ev.errorPos = pos;
+                return ev.resolveVariable(name, binding);
+            }
+        }
+
+        /** Field of an object, or a static field when the target names a class: Cls.FIELD. */
+        static final class FieldAccess extends Node {
+            final Node target;
+            final String name;
+            final SiteCache<Field> field = new SiteCache<>();
+            // Set once the target turned out to name a class, not a variable
+            private volatile ReferenceType staticOwner;
+            FieldAccess(int pos, Node target, String name) { super(pos); this.target = target; this.name = name; }
+            Value eval(ExprEvaluator ev) {
+                ReferenceType owner = staticOwner;
+                Value t = null;
+                if (owner == null) {
+                    try {
+                        t = target.eval(ev);
+                    } catch (RuntimeException e) {
+                        // Not a variable — maybe a class: Config.DEFAULT, com.example.Config.DEFAULT
+                        String className = dottedName(target);
+                        owner = className != null ? ev.findClass(className) : null;
+                        if (owner == null) throw e;
+                        staticOwner = owner;
+                    }
+                }
+                ev.errorPos = pos;
+                if (owner != null) return ev.staticField(owner, name, field);
+                return ev.accessField(t, name, field);
+            }
+        }
+
+        /** Method call; a null target is a bare call on 'this' or the enclosing class. */
+        static final class Call extends Node {
+            final Node target;
+            final String name;
+            final List<Node> args;
+            final SiteCache<Method> method = new SiteCache<>();
+            // Set once the target turned out to name a class, not a variable
+            private volatile ReferenceType staticReceiver;
+            Call(int pos, Node target, String name, List<Node> args) {
+                super(pos); this.target = target; this.name = name; this.args = args;
+            }
+            Value eval(ExprEvaluator ev) {
+                ReferenceType staticType = staticReceiver;
+                Value t = null;
+                if (staticType == null && target != null) {
+                    try {
+                        t = target.eval(ev);
+                    } catch (RuntimeException e) {
+                        // Not a variable — maybe a class: Thread.currentThread()
+                        staticType = target instanceof Name ? ev.findClass(((Name) target).name) : null;
+                        if (staticType == null) throw e;
+                        staticReceiver = staticType;
+                    }
+                }
+                List<Value> values = new ArrayList<>(args.size());
+                for (Node arg : args) values.add(arg.eval(ev));
+                ev.errorPos = pos;
+                if (staticType != null) return ev.invokeStaticMethod(staticType, name, values, method);
+                if (target != null) return ev.invokeMethod(t, name, values, method);
+                ObjectReference thisRef = ev.frame.thisObject();
+                if (thisRef != null) return ev.invokeMethod(thisRef, name, values, method);
+                return ev.invokeStaticMethod(ev.frame.location().declaringType(), name, values, method);
+            }
+        }
+
+        static final class Index extends Node {
+            final Node target;
+            final Node index;
+            Index(int pos, Node target, Node index) { super(pos); this.target = target; this.index = index; }
+            Value eval(ExprEvaluator ev) {
+                Value t = target.eval(ev);
+                Value i = index.eval(ev);
+                ev.errorPos = pos;
+                return ev.arrayAccess(t, i);
+            }
+        }
+
+        static final class Unary extends Node {
+            final TT op;
+            final Node operand;
+            Unary(int pos, TT op, Node operand) { super(pos); this.op = op; this.operand = operand; }
+            Value eval(ExprEvaluator ev) {
+                Value v = operand.eval(ev);
+                ev.errorPos = pos;
+                if (op == TT.NOT) return ev.vm.mirrorOf(!ev.toBoolean(v));
+                v = ev.unbox(v);
+                if (v instanceof IntegerValue) return ev.vm.mirrorOf(-((IntegerValue) v).value());
+                if (v instanceof LongValue) return ev.vm.mirrorOf(-((LongValue) v).value());
+                if (v instanceof FloatValue) return ev.vm.mirrorOf(-((FloatValue) v).value());
+                if (v instanceof DoubleValue) return ev.vm.mirrorOf(-((DoubleValue) v).value());
+                throw ev.error("Cannot negate non-numeric value");
+            }
+        }
+
+        /** Arithmetic, comparison and equality operators (both sides always evaluated). */
+        static final class Binary extends Node {
+            final TT op;
+            final Node left;
+            final Node right;
+            Binary(int pos, TT op, Node left, Node right) {
+                super(pos); this.op = op; this.left = left; this.right = right;
+            }
+            Value eval(ExprEvaluator ev) {
+                Value l = left.eval(ev);
+                Value r = right.eval(ev);
+                ev.errorPos = pos;
+                switch (op) {
+                    case EQ: case NEQ:
+                        return ev.vm.mirrorOf(ev.performEquality(l, op, r));
+                    case LT: case GT: case LEQ: case GEQ:
+                        return ev.vm.mirrorOf(ev.performComparison(l, op, r));
+                    default:
+                        return ev.performArithmetic(l, op, r);
+                }
+            }
+        }
+
+        /** && and ||, short-circuiting like Java: the right side may never run. */
+        static final class Logical extends Node {
+            final boolean isAnd;
+            final Node left;
+            final Node right;
+            Logical(int pos, boolean isAnd, Node left, Node right) {
+                super(pos); this.isAnd = isAnd; this.left = left; this.right = right;
+            }
+            Value eval(ExprEvaluator ev) {
+                boolean l = ev.toBoolean(left.eval(ev));
+                if (isAnd != l) return ev.vm.mirrorOf(l); // false && …, true || …
+                return ev.vm.mirrorOf(ev.toBoolean(right.eval(ev)));
+            }
+        }
+
+        static final class InstanceOf extends Node {
+            final Node operand;
+            final String typeName;
+            InstanceOf(int pos, Node operand, String typeName) {
+                super(pos); this.operand = operand; this.typeName = typeName;
+            }
+            Value eval(ExprEvaluator ev) {
+                Value v = operand.eval(ev);
+                ev.errorPos = pos;
+                return ev.vm.mirrorOf(ev.performInstanceof(v, typeName));
             }
-            return result;
         }
 
         // ---- Tokenizer ----
@@ -2580,62 +6420,58 @@ public class JdiDapServer {
         }
 
         private RuntimeException error(String msg) {
-            Token t = current < tokens.size() ? tokens.get(current) : null;
-            int pos = t != null ? t.pos : source.length();
+            int pos;
+            if (tokens != null) {
+                Token t = current < tokens.size() ? tokens.get(current) : null;
+                pos = t != null ? t.pos : source.length();
+            } else {
+                pos = errorPos;
+            }
             return new RuntimeException(msg + " (at position " + pos + " in: " + source + ")");
         }
 
+        private RuntimeException errorAt(int pos, String msg) {
+            errorPos = pos;
+            return error(msg);
+        }
+
         // ---- Parser (one method per precedence level) ----
+        // Each method builds a Node; evaluation happens later in Node.eval.
+        // Nodes record the position of the token following their construct,
+        // which is where the old fused parse-and-evaluate loop reported errors.
 
-        private Value parseExpression() { return parseOr(); }
+        private Node parseExpression() { return parseOr(); }
 
-        // Known limitation: this evaluator fuses parsing and evaluation, so the
-        // right-hand operand of || and && is always evaluated to consume its
-        // tokens even when Java's short-circuit semantics would skip it. Any
-        // side effects (e.g. method calls) in a short-circuited RHS still occur,
-        // unlike real Java. The final boolean result returned is still correct.
-        private Value parseOr() {
-            Value left = parseAnd();
+        private Node parseOr() {
+            Node left = parseAnd();
             while (match(TT.OR)) {
-                boolean l = toBoolean(left);
-                Value right = parseAnd(); // always parse to consume tokens
-                if (l) {
-                    left = vm.mirrorOf(true); // short-circuit: left is truthy
-                } else {
-                    left = vm.mirrorOf(toBoolean(right));
-                }
+                Node right = parseAnd();
+                left = new Logical(peek().pos, false, left, right);
             }
             return left;
         }
 
-        // Known limitation: see parseOr() above -- the RHS of && is always
-        // evaluated (for side effects too) even when short-circuited.
-        private Value parseAnd() {
-            Value left = parseEquality();
+        private Node parseAnd() {
+            Node left = parseEquality();
             while (match(TT.AND)) {
-                boolean l = toBoolean(left);
-                Value right = parseEquality(); // always parse to consume tokens
-                if (!l) {
-                    left = vm.mirrorOf(false); // short-circuit: left is falsy
-                } else {
-                    left = vm.mirrorOf(toBoolean(right));
-                }
+                Node right = parseEquality();
+                left = new Logical(peek().pos, true, left, right);
             }
             return left;
         }
 
-        private Value parseEquality() {
-            Value left = parseComparison();
+        private Node parseEquality() {
+            Node left = parseComparison();
             while (check(TT.EQ) || check(TT.NEQ)) {
                 TT op = advance().type;
-                Value right = parseComparison();
-                left = vm.mirrorOf(performEquality(left, op, right));
+                Node right = parseComparison();
+                left = new Binary(peek().pos, op, left, right);
             }
             return left;
         }
 
-        private Value parseComparison() {
-            Value left = parseAddition();
+        private Node parseComparison() {
+            Node left = parseAddition();
             while (check(TT.LT) || check(TT.GT) || check(TT.LEQ) || check(TT.GEQ) || check(TT.INSTANCEOF)) {
                 if (check(TT.INSTANCEOF)) {
                     advance();
@@ -2646,71 +6482,66 @@ public class JdiDapServer {
                         advance();
                         typeName.append('.').append(expect(TT.IDENT, "Expected type name").text);
                     }
-                    left = vm.mirrorOf(performInstanceof(left, typeName.toString()));
+                    left = new InstanceOf(peek().pos, left, typeName.toString());
                 } else {
                     TT op = advance().type;
-                    Value right = parseAddition();
-                    left = vm.mirrorOf(performComparison(left, op, right));
+                    Node right = parseAddition();
+                    left = new Binary(peek().pos, op, left, right);
                 }
             }
             return left;
         }
 
-        private Value parseAddition() {
-            Value left = parseMultiplication();
+        private Node parseAddition() {
+            Node left = parseMultiplication();
             while (check(TT.PLUS) || check(TT.MINUS)) {
                 TT op = advance().type;
-                Value right = parseMultiplication();
-                left = performArithmetic(left, op, right);
+                Node right = parseMultiplication();
+                left = new Binary(peek().pos, op, left, right);
             }
             return left;
         }
 
-        private Value parseMultiplication() {
-            Value left = parseUnary();
+        private Node parseMultiplication() {
+            Node left = parseUnary();
             while (check(TT.STAR) || check(TT.SLASH) || check(TT.PERCENT)) {
                 TT op = advance().type;
-                Value right = parseUnary();
-                left = performArithmetic(left, op, right);
+                Node right = parseUnary();
+                left = new Binary(peek().pos, op, left, right);
             }
             return left;
         }
 
-        private Value parseUnary() {
+        private Node parseUnary() {
             if (match(TT.NOT)) {
-                Value v = parseUnary();
-                return vm.mirrorOf(!toBoolean(v));
+                Node v = parseUnary();
+                return new Unary(peek().pos, TT.NOT, v);
             }
             if (match(TT.MINUS)) {
-                Value v = parseUnary();
-                v = unbox(v);
-                if (v instanceof IntegerValue) return vm.mirrorOf(-((IntegerValue) v).value());
-                if (v instanceof LongValue) return vm.mirrorOf(-((LongValue) v).value());
-                if (v instanceof FloatValue) return vm.mirrorOf(-((FloatValue) v).value());
-                if (v instanceof DoubleValue) return vm.mirrorOf(-((DoubleValue) v).value());
-                throw error("Cannot negate non-numeric value");
+                Node v = parseUnary();
+                return new Unary(peek().pos, TT.MINUS, v);
             }
             return parsePostfix();
         }
 
-        private Value parsePostfix() {
-            Value result = parsePrimary();
+        private Node parsePostfix() {
+            Node result = parsePrimary();
 
             while (true) {
                 if (match(TT.DOT)) {
                     Token name = expect(TT.IDENT, "Expected field or method name after '.'");
                     if (check(TT.LPAREN)) {
                         advance(); // consume '('
-                        List<Value> args = parseArgList();
+                        List<Node> args = parseArgList();
                         expect(TT.RPAREN, "Expected ')' after method arguments");
-                        result = invokeMethod(result, name.text, args);
+                        result = new Call(peek().pos, result, name.text, args);
                     } else {
-                        result = accessField(result, name.text);
+                        result = new FieldAccess(peek().pos, result, name.text);
                     }
                 } else if (match(TT.LBRACKET)) {
-                    Value index = parseExpression();
+                    Node index = parseExpression();
                     expect(TT.RBRACKET, "Expected ']' after array index");
-                    result = arrayAccess(result, index);
+                    result = new Index(peek().pos, result, index);
                 } else {
                     break;
                 }
@@ -2718,18 +6549,18 @@ public class JdiDapServer {
             return result;
         }
 
-        private Value parsePrimary() {
+        private Node parsePrimary() {
             Token t = peek();
             switch (t.type) {
                 case INTEGER: {
                     advance();
                     String text = t.text;
                     if (text.startsWith("0x") || text.startsWith("0X")) {
-                        return vm.mirrorOf(Integer.parseUnsignedInt(text.substring(2), 16));
+                        return new Literal(t.pos, Integer.parseUnsignedInt(text.substring(2), 16));
                     } else if (text.startsWith("0b") || text.startsWith("0B")) {
-                        return vm.mirrorOf(Integer.parseUnsignedInt(text.substring(2), 2));
+                        return new Literal(t.pos, Integer.parseUnsignedInt(text.substring(2), 2));
                     }
-                    return vm.mirrorOf(Integer.parseInt(text));
+                    return new Literal(t.pos, Integer.parseInt(text));
                 }
                 case LONG: {
                     advance();
@@ -2737,36 +6568,34 @@ public class JdiDapServer {
                     // Strip L/l suffix
                     text = text.substring(0, text.length() - 1);
                     if (text.startsWith("0x") || text.startsWith("0X")) {
-                        return vm.mirrorOf(Long.parseUnsignedLong(text.substring(2), 16));
+                        return new Literal(t.pos, Long.parseUnsignedLong(text.substring(2), 16));
                     } else if (text.startsWith("0b") || text.startsWith("0B")) {
-                        return vm.mirrorOf(Long.parseUnsignedLong(text.substring(2), 2));
+                        return new Literal(t.pos, Long.parseUnsignedLong(text.substring(2), 2));
                     }
-                    return vm.mirrorOf(Long.parseLong(text));
+                    return new Literal(t.pos, Long.parseLong(text));
                 }
                 case FLOAT: {
                     advance();
-                    return vm.mirrorOf(Float.parseFloat(t.text));
+                    return new Literal(t.pos, Float.parseFloat(t.text));
                 }
                 case DOUBLE: {
                     advance();
-                    return vm.mirrorOf(Double.parseDouble(t.text));
+                    return new Literal(t.pos, Double.parseDouble(t.text));
                 }
                 case STRING: {
                     advance();
-                    return vm.mirrorOf(t.text);
+                    return new Literal(t.pos, t.text);
                 }
                 case CHAR: {
                     advance();
-                    return vm.mirrorOf(t.text.charAt(0));
+                    return new Literal(t.pos, t.text.charAt(0));
                 }
-                case TRUE: { advance(); return vm.mirrorOf(true); }
-                case FALSE: { advance(); return vm.mirrorOf(false); }
-                case NULL: { advance(); return null; }
+                case TRUE: { advance(); return new Literal(t.pos, Boolean.TRUE); }
+                case FALSE: { advance(); return new Literal(t.pos, Boolean.FALSE); }
+                case NULL: { advance(); return new Literal(t.pos, null); }
                 case THIS: {
                     advance();
-                    ObjectReference thisObj = frame.thisObject();
-                    if (thisObj == null) throw error("'this' not available in static context");
-                    return thisObj;
+                    return new This(peek().pos);
                 }
                 case IDENT: {
                     advance();
@@ -2774,21 +6603,15 @@ public class JdiDapServer {
                     if (check(TT.LPAREN)) {
                         // Bare method call: this.method() or static method
                         advance(); // consume '('
-                        List<Value> args = parseArgList();
+                        List<Node> args = parseArgList();
                         expect(TT.RPAREN, "Expected ')'");
-                        ObjectReference thisRef = frame.thisObject();
-                        if (thisRef != null) {
-                            return invokeMethod(thisRef, name, args);
-                        } else {
-                            return invokeStaticMethod(
-                                frame.location().declaringType().name(), name, args);
-                        }
+                        return new Call(peek().pos, null, name, args);
                     }
-                    return resolveVariable(name);
+                    return new Name(peek().pos, name);
                 }
                 case LPAREN: {
                     advance();
-                    Value val = parseExpression();
+                    Node val = parseExpression();
                     expect(TT.RPAREN, "Expected ')'");
                     return val;
                 }
@@ -2797,8 +6620,8 @@ public class JdiDapServer {
             }
         }
 
-        private List<Value> parseArgList() {
-            List<Value> args = new ArrayList<>();
+        private List<Node> parseArgList() {
+            List<Node> args = new ArrayList<>();
             if (!check(TT.RPAREN)) {
                 args.add(parseExpression());
                 while (match(TT.COMMA)) {
@@ -2810,29 +6633,61 @@ public class JdiDapServer {
 
         // ---- JDI helpers ----
 
-        private Value resolveVariable(String name) {
+        /**
+         * Resolve a bare name the way Java scoping would at this frame: local,
+         * then field of 'this', then static field of the enclosing class. The
+         * binding is cached per Location; a 'this' field is re-resolved when
+         * the receiver's runtime type differs from the cached one.
+         */
+        private Value resolveVariable(String name, SiteCache<Object> cache) {
+            Location here = frame.location();
+            Object bound = cache.get(here);
+            ObjectReference thisObj = frame.thisObject();
+            if (bound instanceof LocalVariable) {
+                return frame.getValue((LocalVariable) bound);
+            }
+            if (bound instanceof Field) {
+                Field f = (Field) bound;
+                if (f.isStatic()) return f.declaringType().getValue(f);
+            }
+            if (bound instanceof ThisField) {
+                ThisField tf = (ThisField) bound;
+                if (thisObj != null && thisObj.referenceType().equals(tf.receiverType)) {
+                    return thisObj.getValue(tf.field);
+                }
+            }
+
             // 1. Local variable
             try {
                 LocalVariable lv = frame.visibleVariableByName(name);
-                if (lv != null) return frame.getValue(lv);
+                if (lv != null) {
+                    cache.put(here, lv);
+                    return frame.getValue(lv);
+                }
             } catch (AbsentInformationException e) { /* fall through */ }
 
             // 2. 'this' field
-            ObjectReference thisObj = frame.thisObject();
             if (thisObj != null) {
-                Field f = thisObj.referenceType().fieldByName(name);
-                if (f != null) return thisObj.getValue(f);
+                ReferenceType thisType = thisObj.referenceType();
+                Field f = thisType.fieldByName(name);
+                if (f != null) {
+                    cache.put(here, new ThisField(thisType, f));
+                    return thisObj.getValue(f);
+                }
             }
 
             // 3. Static field of enclosing class
-            ReferenceType enclosing = frame.location().declaringType();
+            ReferenceType enclosing = here.declaringType();
             Field sf = enclosing.fieldByName(name);
-            if (sf != null && sf.isStatic()) return enclosing.getValue(sf);
+            if (sf != null && sf.isStatic()) {
+                cache.put(here, sf);
+                return enclosing.getValue(sf);
+            }
 
             throw error("Cannot resolve variable: " + name);
         }
 
-        private Value accessField(Value target, String fieldName) {
+        private Value accessField(Value target, String fieldName, SiteCache<Field> cache) {
             if (target == null) throw error("Cannot access field '" + fieldName + "' on null");
 
             // array.length
@@ -2845,89 +6700,211 @@ public class JdiDapServer {
             }
 
             ObjectReference obj = (ObjectReference) target;
-
-            // String.length() is common but 'length' is not a field — handle as special case
-            Field field = obj.referenceType().fieldByName(fieldName);
+            ReferenceType type = obj.referenceType();
+            Field field = cache.get(type);
             if (field == null) {
-                throw error("No field '" + fieldName + "' on type " + obj.referenceType().name());
+                // String.length() is common but 'length' is not a field — handle as special case
+                field = type.fieldByName(fieldName);
+                if (field == null) {
+                    throw error("No field '" + fieldName + "' on type " + type.name());
+                }
+                cache.put(type, field);
             }
             return obj.getValue(field);
         }
 
-        private Value invokeMethod(Value target, String methodName, List<Value> args) {
+        private Value staticField(ReferenceType type, String fieldName, SiteCache<Field> cache) {
+            Field field = cache.get(type);
+            if (field == null) {
+                field = type.fieldByName(fieldName);
+                if (field == null || !field.isStatic()) {
+                    throw error("No static field '" + fieldName + "' on type " + type.name());
+                }
+                cache.put(type, field);
+            }
+            return type.getValue(field);
+        }
+
+        private Value invokeMethod(Value target, String methodName, List<Value> args, SiteCache<Method> cache) {
             if (target == null) throw error("Cannot invoke '" + methodName + "()' on null");
             if (!(target instanceof ObjectReference)) {
                 throw error("Cannot invoke method on primitive value");
             }
 
             ObjectReference obj = (ObjectReference) target;
+            Value intrinsic = intrinsicResult(obj, methodName, args);
+            if (intrinsic != null) return intrinsic;
             ReferenceType type = obj.referenceType();
-            List<Method> candidates = type.methodsByName(methodName);
+            Method method = cache.get(type);
+            if (method == null) {
+                List<Method> candidates = type.methodsByName(methodName);
 
-            if (candidates.isEmpty()) {
-                throw error("No method '" + methodName + "' on type " + type.name());
-            }
+                if (candidates.isEmpty()) {
+                    throw error("No method '" + methodName + "' on type " + type.name());
+                }
 
-            // Filter by argument count
-            List<Method> matching = new ArrayList<>();
-            for (Method m : candidates) {
-                try {
-                    if (m.argumentTypeNames().size() == args.size()) {
-                        matching.add(m);
-                    }
-                } catch (Exception e) { /* skip */ }
-            }
+                // Filter by argument count
+                List<Method> matching = new ArrayList<>();
+                for (Method m : candidates) {
+                    try {
+                        if (m.argumentTypeNames().size() == args.size()) {
+                            matching.add(m);
+                        }
+                    } catch (Exception e) { /* skip */ }
+                }
 
-            if (matching.isEmpty()) {
-                throw error("No method '" + methodName + "' on " + type.name()
-                    + " accepting " + args.size() + " argument(s)");
-            }
+                if (matching.isEmpty()) {
+                    throw error("No method '" + methodName + "' on " + type.name()
+                        + " accepting " + args.size() + " argument(s)");
+                }
 
-            // If multiple matches, try best-effort type matching
-            Method method = matching.size() == 1 ? matching.get(0) : bestMatch(matching, args);
+                // If multiple matches, try best-effort type matching (depends on
+                // the argument values, so only a unique overload is cached)
+                if (matching.size() == 1) {
+                    method = matching.get(0);
+                    cache.put(type, method);
+                } else {
+                    method = bestMatch(matching, args);
+                }
+            }
 
+            Method chosen = method;
             try {
-                return obj.invokeMethod(thread, method, args, ObjectReference.INVOKE_SINGLE_THREADED);
+                return invokeBounded(methodName,
+                    () -> obj.invokeMethod(thread, chosen, args, ObjectReference.INVOKE_SINGLE_THREADED));
             } catch (InvocationException ie) {
                 ObjectReference ex = ie.exception();
                 throw error("Method '" + methodName + "' threw " + ex.referenceType().name());
+            } catch (RequestCancelledException | InvocationTimeoutException e) {
+                throw e;
             } catch (Exception e) {
                 throw error("Error invoking '" + methodName + "': " + e.getMessage());
             }
         }
 
-        private Value invokeStaticMethod(String className, String methodName, List<Value> args) {
-            List<ReferenceType> types = vm.classesByName(className);
-            if (types.isEmpty()) {
-                throw error("Class not found: " + className);
+        /**
+         * Side-effect-free calls answered from JDWP state instead of running
+         * target code: {@code getName()} on a thread and
+         * {@code String.equals} — so a thread-name condition such as
+         * {@code Thread.currentThread().getName().equals("w")} costs no
+         * invocation per hit. Null when the call must really be invoked.
+         */
+        private Value intrinsicResult(ObjectReference obj, String methodName, List<Value> args) {
+            if (obj instanceof ThreadReference && "getName".equals(methodName) && args.isEmpty()) {
+                return vm.mirrorOf(((ThreadReference) obj).name());
             }
-            ReferenceType type = types.get(0);
-            List<Method> candidates = type.methodsByName(methodName);
-            List<Method> matching = new ArrayList<>();
-            for (Method m : candidates) {
-                try {
-                    if (m.isStatic() && m.argumentTypeNames().size() == args.size()) {
-                        matching.add(m);
-                    }
-                } catch (Exception e) { /* skip */ }
+            if (obj instanceof StringReference && "equals".equals(methodName) && args.size() == 1
+                    && (args.get(0) == null || args.get(0) instanceof StringReference)) {
+                String other = args.get(0) == null ? null : ((StringReference) args.get(0)).value();
+                return vm.mirrorOf(((StringReference) obj).value().equals(other));
+            }
+            return null;
+        }
+
+        /** A loaded class named {@code name} (as written, or implicitly in java.lang), or null. */
+        private ReferenceType findClass(String name) {
+            List<ReferenceType> types = vm.classesByName(name);
+            if (types.isEmpty() && !name.contains(".")) types = vm.classesByName("java.lang." + name);
+            return types.isEmpty() ? null : types.get(0);
+        }
+
+        private Value invokeStaticMethod(ReferenceType type, String methodName, List<Value> args, SiteCache<Method> cache) {
+            String className = type.name();
+            if ("java.lang.Thread".equals(className) && "currentThread".equals(methodName) && args.isEmpty()) {
+                return thread; // the thread evaluating — no need to ask the target
             }
-            if (matching.isEmpty()) {
-                throw error("No static method '" + methodName + "' on " + className
-                    + " accepting " + args.size() + " argument(s)");
+            Method method = cache.get(type);
+            if (method == null) {
+                List<Method> candidates = type.methodsByName(methodName);
+                List<Method> matching = new ArrayList<>();
+                for (Method m : candidates) {
+                    try {
+                        if (m.isStatic() && m.argumentTypeNames().size() == args.size()) {
+                            matching.add(m);
+                        }
+                    } catch (Exception e) { /* skip */ }
+                }
+                if (matching.isEmpty()) {
+                    throw error("No static method '" + methodName + "' on " + className
+                        + " accepting " + args.size() + " argument(s)");
+                }
+                if (matching.size() == 1) {
+                    method = matching.get(0);
+                    cache.put(type, method);
+                } else {
+                    method = bestMatch(matching, args);
+                }
             }
-            Method method = matching.size() == 1 ? matching.get(0) : bestMatch(matching, args);
+            Method chosen = method;
             try {
                 if (type instanceof ClassType) {
-                    return ((ClassType) type).invokeMethod(thread, method, args, ObjectReference.INVOKE_SINGLE_THREADED);
+                    ClassType classType = (ClassType) type;
+                    return invokeBounded(methodName,
+                        () -> classType.invokeMethod(thread, chosen, args, ObjectReference.INVOKE_SINGLE_THREADED));
                 }
                 throw error("Cannot invoke static method on non-class type: " + type.name());
             } catch (InvocationException ie) {
                 throw error("Static method '" + methodName + "' threw " + ie.exception().referenceType().name());
+            } catch (RequestCancelledException | InvocationTimeoutException e) {
+                throw e;
             } catch (Exception e) {
                 throw error("Error invoking static '" + methodName + "': " + e.getMessage());
             }
         }
 
+        /**
+         * Run one target-method invocation on a helper thread and wait for it
+         * until the deadline passes or the request is cancelled. See
+         * {@link #abandonInvocation} for what happens to the invocation then.
+         */
+        private Value invokeBounded(String methodName, Callable<Value> invocation) throws Exception {
+            CompletableFuture<Void> finished = new CompletableFuture<>();
+            FutureTask<Value> task = new FutureTask<>(invocation) {
+                @Override
+                protected void done() {
+                    finished.complete(null);
+                }
+            };
+            Thread.ofVirtual().name("jdi-invoke").start(task);
+            long invocationTimeoutMs = limits.timeoutMs;
+            RequestToken token = limits.token;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(invocationTimeoutMs);
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    // Short slices so a cancel is noticed promptly
+                    return task.get(Math.max(0, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(50))),
+                            TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) throw (Exception) cause;
+                    throw e;
+                } catch (TimeoutException e) {
+                    boolean cancelled = token != null && token.cancelled;
+                    if (!cancelled && System.nanoTime() < deadline) continue;
+                    abandonInvocation(finished);
+                    if (cancelled) throw new RequestCancelledException();
+                    throw new InvocationTimeoutException("Invocation of '" + methodName + "' timed out after "
+                            + invocationTimeoutMs + " ms; it is still running in the target");
+                }
+            }
+        }
+
+        /**
+         * Give up waiting on an invocation. The target thread is deliberately
+         * not interrupted: JDI only invokes on threads suspended by an event,
+         * and the JDWP agent holds interrupts for such a thread until it leaves
+         * the event, so the interrupt would not unblock the invoke — it would
+         * surface later as a spurious InterruptedException in the debuggee's
+         * own code. The thread is registered as abandoned until the invoke
+         * returns (see resumeAfterAbandonedInvocations).
+         */
+        private void abandonInvocation(CompletableFuture<Void> finished) {
+            long threadId = thread.uniqueID();
+            limits.abandoned.put(threadId, finished);
+            finished.whenComplete((v, e) -> limits.abandoned.remove(threadId, finished));
+        }
+
         /** Best-effort overload resolution: pick the first method whose arg types are compatible. */
         private Method bestMatch(List<Method> methods, List<Value> args) {
             for (Method m : methods) {
@@ -2981,7 +6958,7 @@ public class JdiDapServer {
             return false;
         }
 
-        private boolean isSubtypeOf(ReferenceType sub, ReferenceType sup) {
+        static boolean isSubtypeOf(ReferenceType sub, ReferenceType sup) {
             if (sub.equals(sup)) return true;
             if (sub instanceof ClassType) {
                 ClassType ct = (ClassType) sub;
@@ -3159,8 +7136,10 @@ public class JdiDapServer {
             List<Method> methods = obj.referenceType().methodsByName(method);
             if (methods.isEmpty()) return v;
             try {
-                return obj.invokeMethod(thread, methods.get(0),
-                    Collections.emptyList(), ObjectReference.INVOKE_SINGLE_THREADED);
+                return invokeBounded(method, () -> obj.invokeMethod(thread, methods.get(0),
+                    Collections.emptyList(), ObjectReference.INVOKE_SINGLE_THREADED));
+            } catch (RequestCancelledException e) {
+                throw e;
             } catch (Exception e) {
                 return v;
             }
@@ -3216,13 +7195,15 @@ public class JdiDapServer {
                     List<Method> methods = obj.referenceType().methodsByName("toString");
                     for (Method m : methods) {
                         if (m.argumentTypeNames().isEmpty()) {
-                            Value result = obj.invokeMethod(thread, m,
-                                Collections.emptyList(), ObjectReference.INVOKE_SINGLE_THREADED);
+                            Value result = invokeBounded("toString", () -> obj.invokeMethod(thread, m,
+                                Collections.emptyList(), ObjectReference.INVOKE_SINGLE_THREADED));
                             if (result instanceof StringReference) {
                                 return ((StringReference) result).value();
                             }
                         }
                     }
+                } catch (RequestCancelledException e) {
+                    throw e;
                 } catch (Exception e) { /* fallback */ }
                 return obj.referenceType().name() + "@" + obj.uniqueID();
             }
@@ -3280,20 +7261,152 @@ public class JdiDapServer {
         }
     }
 
-    // Minimal recursive-descent JSON parser
+    /**
+     * CBOR (RFC 8949) decoder for frames sent after the client switched its
+     * side of the connection. Produces the same tree as JsonParser (HashMap,
+     * ArrayList, String, Integer/Long, Double, Boolean, null) so the rest of
+     * the bridge is oblivious to the encoding. Tags are dropped; byte strings
+     * are read as UTF-8 text, since DAP has no binary type.
+     */
+    private static final class CborReader {
+        private final ByteBuffer input;
+        private int pos;
+
+        CborReader(ByteBuffer input) {
+            this.input = input;
+            this.pos = input.position();
+        }
+
+        /** A DAP message is a map, so its first byte is major type 5; JSON would start with '{' or whitespace. */
+        static boolean isCborMap(ByteBuffer body) {
+            if (!body.hasRemaining()) return false;
+            int b = body.get(body.position()) & 0xFF;
+            return b >= 0xA0 && b <= 0xBF;
+        }
+
+        Object read() {
+            int initial = u8();
+            int major = initial >>> 5;
+            int info = initial & 0x1F;
+            switch (major) {
+                case 0: return number(argument(info));
+                case 1: return number(-1 - argument(info));
+                case 2:
+                case 3: return text(info);
+                case 4: {
+                    List<Object> list = new ArrayList<>();
+                    if (info == 31) {
+                        while (!atBreak()) list.add(read());
+                    } else {
+                        for (long n = argument(info); n > 0; n--) list.add(read());
+                    }
+                    return list;
+                }
+                case 5: {
+                    Map<String, Object> m = new HashMap<>();
+                    if (info == 31) {
+                        while (!atBreak()) m.put(String.valueOf(read()), read());
+                    } else {
+                        for (long n = argument(info); n > 0; n--) m.put(String.valueOf(read()), read());
+                    }
+                    return m;
+                }
+                case 6:
+                    argument(info); // tag number
+                    return read();
+                default:
+                    switch (info) {
+                        case 20: return Boolean.FALSE;
+                        case 21: return Boolean.TRUE;
+                        case 22: case 23: return null;
+                        case 25: return halfToDouble(((u8() << 8) | u8()));
+                        case 26: return (double) Float.intBitsToFloat((int) uint(4));
+                        case 27: return Double.longBitsToDouble(uint(8));
+                        default: throw new IllegalArgumentException("Unsupported CBOR simple value " + info);
+                    }
+            }
+        }
+
+        private Object number(long v) {
+            return v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE ? (Object) (int) v : (Object) v;
+        }
+
+        private String text(int info) {
+            if (info == 31) {
+                // Indefinite length: concatenation of definite chunks
+                StringBuilder sb = new StringBuilder();
+                while (!atBreak()) sb.append(text(u8() & 0x1F));
+                return sb.toString();
+            }
+            int len = (int) argument(info);
+            byte[] b = new byte[len];
+            input.get(pos, b);
+            pos += len;
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        private boolean atBreak() {
+            if ((input.get(pos) & 0xFF) == 0xFF) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private long argument(int info) {
+            if (info < 24) return info;
+            switch (info) {
+                case 24: return uint(1);
+                case 25: return uint(2);
+                case 26: return uint(4);
+                case 27: return uint(8);
+                default: throw new IllegalArgumentException("Bad CBOR length encoding " + info);
+            }
+        }
+
+        private long uint(int n) {
+            long v = 0;
+            for (int i = 0; i < n; i++) v = (v << 8) | u8();
+            return v;
+        }
+
+        private int u8() {
+            return input.get(pos++) & 0xFF;
+        }
+
+        private static double halfToDouble(int h) {
+            int exp = (h >> 10) & 0x1F;
+            int mant = h & 0x3FF;
+            double v = exp == 0 ? mant * Math.pow(2, -24)
+                : exp == 31 ? (mant == 0 ? Double.POSITIVE_INFINITY : Double.NaN)
+                : (mant + 1024) * Math.pow(2, exp - 25);
+            return (h & 0x8000) != 0 ? -v : v;
+        }
+    }
+
+    // Minimal recursive-descent JSON parser, reading UTF-8 straight from the
+    // frame bytes (no intermediate String of the whole message). Besides the
+    // tree builder (parseValue) it offers pull-style access for DapRequest.
     private static class JsonParser {
-        private final String input;
+        private final ByteBuffer input;
+        private final int end;
         private int pos;
+        // Reused for every string/number token of this message
+        private final StringBuilder sb = new StringBuilder();
+        // Raw bytes of the current key (between the quotes), set by nextKey()
+        private int keyStart;
+        private int keyEnd;
 
-        JsonParser(String input) {
+        JsonParser(ByteBuffer input) {
             this.input = input;
-            this.pos = 0;
+            this.pos = input.position();
+            this.end = input.limit();
         }
 
         Object parseValue() {
             skipWhitespace();
-            if (pos >= input.length()) return null;
-            char c = input.charAt(pos);
+            if (pos >= end) return null;
+            byte c = input.get(pos);
             if (c == '{') return parseObject();
             if (c == '[') return parseArray();
             if (c == '"') return parseString();
@@ -3306,8 +7419,8 @@ public class JdiDapServer {
             Map<String, Object> map = new LinkedHashMap<>();
             pos++; // skip '{'
             skipWhitespace();
-            if (pos < input.length() && input.charAt(pos) == '}') { pos++; return map; }
-            while (pos < input.length()) {
+            if (pos < end && input.get(pos) == '}') { pos++; return map; }
+            while (pos < end) {
                 skipWhitespace();
                 String key = parseString();
                 skipWhitespace();
@@ -3315,10 +7428,10 @@ public class JdiDapServer {
                 Object value = parseValue();
                 map.put(key, value);
                 skipWhitespace();
-                if (pos < input.length() && input.charAt(pos) == ',') { pos++; continue; }
+                if (pos < end && input.get(pos) == ',') { pos++; continue; }
                 break;
             }
-            if (pos < input.length() && input.charAt(pos) == '}') pos++;
+            if (pos < end && input.get(pos) == '}') pos++;
             return map;
         }
 
@@ -3326,27 +7439,27 @@ public class JdiDapServer {
             List<Object> list = new ArrayList<>();
             pos++; // skip '['
             skipWhitespace();
-            if (pos < input.length() && input.charAt(pos) == ']') { pos++; return list; }
-            while (pos < input.length()) {
+            if (pos < end && input.get(pos) == ']') { pos++; return list; }
+            while (pos < end) {
                 list.add(parseValue());
                 skipWhitespace();
-                if (pos < input.length() && input.charAt(pos) == ',') { pos++; continue; }
+                if (pos < end && input.get(pos) == ',') { pos++; continue; }
                 break;
             }
-            if (pos < input.length() && input.charAt(pos) == ']') pos++;
+            if (pos < end && input.get(pos) == ']') pos++;
             return list;
         }
 
         String parseString() {
             pos++; // skip opening '"'
-            StringBuilder sb = new StringBuilder();
-            while (pos < input.length()) {
-                char c = input.charAt(pos);
+            sb.setLength(0);
+            while (pos < end) {
+                int c = input.get(pos) & 0xFF;
                 if (c == '"') { pos++; return sb.toString(); }
                 if (c == '\\') {
                     pos++;
-                    if (pos >= input.length()) break;
-                    char esc = input.charAt(pos);
+                    if (pos >= end) break;
+                    byte esc = input.get(pos);
                     switch (esc) {
                         case '"': sb.append('"'); break;
                         case '\\': sb.append('\\'); break;
@@ -3357,57 +7470,256 @@ public class JdiDapServer {
                         case 'b': sb.append('\b'); break;
                         case 'f': sb.append('\f'); break;
                         case 'u':
-                            if (pos + 5 > input.length()) throw new RuntimeException("Unterminated \\u escape in JSON string");
-                            String hex = input.substring(pos + 1, pos + 5);
-                            sb.append((char) Integer.parseInt(hex, 16));
+                            if (pos + 5 > end) throw new RuntimeException("Unterminated \\u escape in JSON string");
+                            sb.append((char) hex4(pos + 1));
                             pos += 4;
                             break;
-                        default: sb.append(esc);
+                        default: sb.append((char) esc);
                     }
+                    pos++;
+                } else if (c < 0x80) {
+                    sb.append((char) c);
+                    pos++;
                 } else {
-                    sb.append(c);
+                    decodeMultiByte(c);
                 }
-                pos++;
             }
             return sb.toString();
         }
 
+        /** Decode one UTF-8 sequence starting with lead byte {@code c} (malformed input becomes U+FFFD). */
+        private void decodeMultiByte(int c) {
+            int extra;
+            int cp;
+            if ((c & 0xE0) == 0xC0) { extra = 1; cp = c & 0x1F; }
+            else if ((c & 0xF0) == 0xE0) { extra = 2; cp = c & 0x0F; }
+            else if ((c & 0xF8) == 0xF0) { extra = 3; cp = c & 0x07; }
+            else { sb.append('\uFFFD'); pos++; return; }
+            if (pos + extra >= end) { sb.append('\uFFFD'); pos = end; return; }
+            for (int i = 1; i <= extra; i++) {
+                int cont = input.get(pos + i) & 0xFF;
+                if ((cont & 0xC0) != 0x80) { sb.append('\uFFFD'); pos += i; return; }
+                cp = (cp << 6) | (cont & 0x3F);
+            }
+            pos += extra + 1;
+            sb.appendCodePoint(Character.isValidCodePoint(cp) ? cp : 0xFFFD);
+        }
+
+        private int hex4(int at) {
+            int v = 0;
+            for (int i = at; i < at + 4; i++) {
+                int d = Character.digit((char) input.get(i), 16);
+                if (d < 0) throw new RuntimeException("Invalid \\u escape in JSON string");
+                v = (v << 4) | d;
+            }
+            return v;
+        }
+
         Object parseNumber() {
             int start = pos;
-            if (pos < input.length() && input.charAt(pos) == '-') pos++;
-            while (pos < input.length() && Character.isDigit(input.charAt(pos))) pos++;
+            boolean negative = false;
+            if (pos < end && input.get(pos) == '-') { negative = true; pos++; }
+            long l = 0;
+            int digits = 0;
+            while (pos < end && isDigit(input.get(pos))) {
+                l = l * 10 + (input.get(pos) - '0');
+                digits++;
+                pos++;
+            }
             boolean isFloat = false;
-            if (pos < input.length() && input.charAt(pos) == '.') {
+            if (pos < end && input.get(pos) == '.') {
                 isFloat = true;
                 pos++;
-                while (pos < input.length() && Character.isDigit(input.charAt(pos))) pos++;
+                while (pos < end && isDigit(input.get(pos))) pos++;
             }
-            if (pos < input.length() && (input.charAt(pos) == 'e' || input.charAt(pos) == 'E')) {
+            if (pos < end && (input.get(pos) == 'e' || input.get(pos) == 'E')) {
                 isFloat = true;
                 pos++;
-                if (pos < input.length() && (input.charAt(pos) == '+' || input.charAt(pos) == '-')) pos++;
-                while (pos < input.length() && Character.isDigit(input.charAt(pos))) pos++;
-            }
-            String numStr = input.substring(start, pos);
-            if (isFloat) return Double.parseDouble(numStr);
-            long l = Long.parseLong(numStr);
+                if (pos < end && (input.get(pos) == '+' || input.get(pos) == '-')) pos++;
+                while (pos < end && isDigit(input.get(pos))) pos++;
+            }
+            if (isFloat || digits > 18) {
+                // Rare on the wire: hand the token text to the JDK parsers
+                sb.setLength(0);
+                for (int i = start; i < pos; i++) sb.append((char) input.get(i));
+                if (isFloat) return Double.parseDouble(sb.toString());
+                return Long.parseLong(sb.toString());
+            }
+            if (digits == 0) throw new NumberFormatException("Invalid JSON number at " + start);
+            if (negative) l = -l;
             if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) return (int) l;
             return l;
         }
 
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+
         Boolean parseBoolean() {
-            if (input.startsWith("true", pos)) { pos += 4; return true; }
-            if (input.startsWith("false", pos)) { pos += 5; return false; }
+            if (matches("true")) { pos += 4; return true; }
+            if (matches("false")) { pos += 5; return false; }
             throw new RuntimeException("Invalid boolean at " + pos);
         }
 
         Object parseNull() {
-            if (input.startsWith("null", pos)) { pos += 4; return null; }
+            if (matches("null")) { pos += 4; return null; }
             throw new RuntimeException("Invalid null at " + pos);
         }
 
+        private boolean matches(String literal) {
+            if (pos + literal.length() > end) return false;
+            for (int i = 0; i < literal.length(); i++) {
+                if (input.get(pos + i) != literal.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        // ---- Pull-style access ----
+
+        int position() { return pos; }
+
+        void seek(int position) { pos = position; }
+
+        /** Consume '{' if the next value is an object. */
+        boolean beginObject() {
+            skipWhitespace();
+            if (pos < end && input.get(pos) == '{') { pos++; return true; }
+            return false;
+        }
+
+        /** Advance to the next member of the current object; false (consuming '}') at its end. */
+        boolean nextKey() {
+            skipWhitespace();
+            if (pos < end && input.get(pos) == ',') { pos++; skipWhitespace(); }
+            if (pos >= end) return false;
+            if (input.get(pos) != '"') { pos++; return false; }
+            keyStart = pos + 1;
+            skipString();
+            keyEnd = pos - 1;
+            skipWhitespace();
+            if (pos < end && input.get(pos) == ':') pos++;
+            return true;
+        }
+
+        /** Compare the current key's raw bytes against an ASCII name — no allocation. */
+        boolean keyIs(String name) {
+            if (keyEnd - keyStart != name.length()) return false;
+            for (int i = 0; i < name.length(); i++) {
+                if (input.get(keyStart + i) != name.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        boolean isNumberOrNumericString() {
+            skipWhitespace();
+            if (pos >= end) return false;
+            byte c = input.get(pos);
+            return c == '-' || isDigit(c) || (c == '"' && pos + 1 < end && isDigit(input.get(pos + 1)));
+        }
+
+        /** Number value without boxing; numeric strings are accepted, anything else reads as 0. */
+        long nextLong() {
+            skipWhitespace();
+            if (pos >= end) return 0L;
+            byte c = input.get(pos);
+            if (c == '-' || isDigit(c)) {
+                int start = pos;
+                boolean negative = c == '-';
+                if (negative) pos++;
+                long l = 0;
+                while (pos < end && isDigit(input.get(pos))) {
+                    l = l * 10 + (input.get(pos) - '0');
+                    pos++;
+                }
+                if (pos < end && (input.get(pos) == '.' || input.get(pos) == 'e' || input.get(pos) == 'E')) {
+                    pos = start;
+                    return ((Number) parseNumber()).longValue();
+                }
+                return negative ? -l : l;
+            }
+            if (c == '"') {
+                try { return Long.parseLong(parseString()); } catch (NumberFormatException e) { return 0L; }
+            }
+            skipValue();
+            return 0L;
+        }
+
+        /**
+         * String value (non-strings are stringified like {@code str()}). A
+         * value equal to an entry of {@code known} returns that entry's
+         * instance without decoding.
+         */
+        String nextString(String[] known) {
+            skipWhitespace();
+            if (pos >= end) return null;
+            if (input.get(pos) != '"') {
+                Object v = parseValue();
+                return v != null ? String.valueOf(v) : null;
+            }
+            if (known != null) {
+                int start = pos + 1;
+                int save = pos;
+                skipString();
+                int len = pos - 1 - start;
+                for (String k : known) {
+                    if (k.length() != len) continue;
+                    boolean same = true;
+                    for (int i = 0; i < len && same; i++) {
+                        same = input.get(start + i) == k.charAt(i);
+                    }
+                    if (same) return k;
+                }
+                pos = save;
+            }
+            return parseString();
+        }
+
+        /** Skip one value of any type without building it. */
+        void skipValue() {
+            skipWhitespace();
+            if (pos >= end) return;
+            byte c = input.get(pos);
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                while (pos < end) {
+                    byte b = input.get(pos);
+                    if (b == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (b == '{' || b == '[') depth++;
+                    else if (b == '}' || b == ']') depth--;
+                    pos++;
+                    if (depth == 0) return;
+                }
+            } else {
+                while (pos < end) {
+                    byte b = input.get(pos);
+                    if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') return;
+                    pos++;
+                }
+            }
+        }
+
+        /** Move past a string token (pos at the opening quote). */
+        private void skipString() {
+            pos++;
+            while (pos < end) {
+                byte b = input.get(pos);
+                if (b == '\\') { pos += 2; continue; }
+                pos++;
+                if (b == '"') return;
+            }
+        }
+
         void skipWhitespace() {
-            while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) pos++;
+            while (pos < end) {
+                byte b = input.get(pos);
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') break;
+                pos++;
+            }
         }
     }
 
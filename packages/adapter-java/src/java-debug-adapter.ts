@@ -7,6 +7,7 @@
  */
 import { EventEmitter } from 'events';
 import { DebugProtocol } from '@vscode/debugprotocol';
+import * as os from 'os';
 import * as path from 'path';
 import {
   IDebugAdapter,
@@ -44,6 +45,13 @@ interface JavaLaunchConfig extends LanguageSpecificLaunchConfig {
   [key: string]: unknown;
 }
 
+/**
+ * Exception filter condition syntax; must match EXCEPTION_CONDITION_HELP in
+ * JdiDapServer.java, which parses it.
+ */
+const EXCEPTION_CONDITION_HELP =
+  'Comma-separated: exception types, !Type, in:pkg.*, !in:pkg.*, !caughtIn:pkg.*, once, every:N';
+
 /**
  * Java Debug Adapter implementation
  */
@@ -238,12 +246,19 @@ export class JavaDebugAdapter extends EventEmitter implements IDebugAdapter {
     // the adapter directly without the CLI bootstrap.
     const ownerPid = process.env.MCP_DEBUGGER_MAIN_PID ?? String(process.ppid);
 
+    // Opt-in Unix domain socket transport (JDK 16+): DAP frames skip the
+    // loopback TCP stack. The reserved port keeps the socket name unique.
+    /* istanbul ignore next -- platform-specific transport */
+    const transport = process.env.MCP_JAVA_UNIX_SOCKET === 'true' && process.platform !== 'win32'
+      ? ['--socket', path.join(os.tmpdir(), `mcp-jdi-${process.pid}-${config.adapterPort}.sock`)]
+      : ['--port', String(config.adapterPort)];
+
     return {
       command: javaCmd,
       args: [
         '-cp', bridgeDir,
         'JdiDapServer',
-        '--port', String(config.adapterPort),
+        ...transport,
         '--owner-pid', ownerPid,
       ],
       env
@@ -332,6 +347,15 @@ export class JavaDebugAdapter extends EventEmitter implements IDebugAdapter {
     if (config.stopOnEntry !== undefined) {
       attachConfig.stopOnEntry = config.stopOnEntry;
     }
+    // Deadline for target-method invocations during evaluate (launch passes it through via the spread)
+    const invocationTimeoutMs = (config as Record<string, unknown>).invocationTimeoutMs;
+    if (typeof invocationTimeoutMs === 'number') {
+      attachConfig.invocationTimeoutMs = invocationTimeoutMs;
+    }
+    const logpointRateLimit = (config as Record<string, unknown>).logpointRateLimit;
+    if (typeof logpointRateLimit === 'number') {
+      attachConfig.logpointRateLimit = logpointRateLimit;
+    }
     if (config.cwd) {
       attachConfig.cwd = config.cwd;
     }
@@ -484,6 +508,7 @@ After installation:
       DebugFeature.CONDITIONAL_BREAKPOINTS,
       DebugFeature.FUNCTION_BREAKPOINTS,
       DebugFeature.EXCEPTION_BREAKPOINTS,
+      DebugFeature.DATA_BREAKPOINTS,
       DebugFeature.EVALUATE_FOR_HOVERS,
       DebugFeature.TERMINATE_REQUEST,
     ];
@@ -510,6 +535,14 @@ After installation:
           required: true
         });
         break;
+
+      case DebugFeature.DATA_BREAKPOINTS:
+        requirements.push({
+          type: 'dependency',
+          description: 'JDI field watchpoint support',
+          required: true
+        });
+        break;
     }
 
     return requirements;
@@ -520,7 +553,7 @@ After installation:
       supportsConfigurationDoneRequest: true,
       supportsFunctionBreakpoints: true,
       supportsConditionalBreakpoints: true,
-      supportsHitConditionalBreakpoints: false,
+      supportsHitConditionalBreakpoints: true,
       supportsEvaluateForHovers: true,
       exceptionBreakpointFilters: [
         {
@@ -528,14 +561,16 @@ After installation:
           label: 'Caught Exceptions',
           description: 'Break on caught exceptions',
           default: false,
-          supportsCondition: false
+          supportsCondition: true,
+          conditionDescription: EXCEPTION_CONDITION_HELP
         },
         {
           filter: 'uncaught',
           label: 'Uncaught Exceptions',
           description: 'Break on uncaught exceptions',
           default: true,
-          supportsCondition: false
+          supportsCondition: true,
+          conditionDescription: EXCEPTION_CONDITION_HELP
         }
       ],
       supportsStepBack: false,
@@ -546,27 +581,27 @@ After installation:
       supportsCompletionsRequest: false,
       supportsModulesRequest: false,
       supportsRestartRequest: false,
-      supportsExceptionOptions: false,
+      supportsExceptionOptions: true,
       supportsValueFormattingOptions: false,
       supportsExceptionInfoRequest: true,
       supportTerminateDebuggee: true,
       supportSuspendDebuggee: false,
       supportsDelayedStackTraceLoading: false,
       supportsLoadedSourcesRequest: false,
-      supportsLogPoints: false,
+      supportsLogPoints: true,
       supportsTerminateThreadsRequest: false,
       supportsSetExpression: false,
       supportsTerminateRequest: true,
-      supportsDataBreakpoints: false,
+      supportsDataBreakpoints: true,
       supportsReadMemoryRequest: false,
       supportsWriteMemoryRequest: false,
       supportsDisassembleRequest: false,
-      supportsCancelRequest: false,
+      supportsCancelRequest: true,
       supportsBreakpointLocationsRequest: false,
       supportsClipboardContext: false,
       supportsSteppingGranularity: false,
       supportsInstructionBreakpoints: false,
-      supportsExceptionFilterOptions: false,
+      supportsExceptionFilterOptions: true,
       supportsSingleThreadExecutionRequests: false
     };
   }
@@ -16,7 +16,8 @@ const JDK_INTERNAL_PREFIXES = ['java.', 'javax.', 'sun.', 'jdk.', 'com.sun.'];
 
 export const JavaAdapterPolicy: AdapterPolicy = {
   name: 'java',
-  supportsLogPoints: false,
+  // JdiDapServer renders logMessage on a thread-only suspend and resumes at once
+  supportsLogPoints: true,
   // JdiDapServer implements setFunctionBreakpoints natively: BreakpointRequests
   // at each concrete overload's entry location, with ClassPrepareRequest
   // deferral for classes not yet loaded (issue #292)
@@ -242,14 +243,19 @@ export const JavaAdapterPolicy: AdapterPolicy = {
 
   getAdapterSpawnConfig: (payload) => {
     if (payload.adapterCommand) {
+      // The bridge serves DAP on a Unix domain socket when launched with --socket
+      const args = payload.adapterCommand.args;
+      const socketIndex = args.indexOf('--socket');
+      const socketPath = socketIndex >= 0 ? args[socketIndex + 1] : undefined;
       return {
         mode: 'spawn',
         command: payload.adapterCommand.command,
-        args: payload.adapterCommand.args,
+        args,
         host: payload.adapterHost,
         port: payload.adapterPort,
         logDir: payload.logDir,
-        env: payload.adapterCommand.env
+        env: payload.adapterCommand.env,
+        ...(socketPath ? { socketPath } : {})
       };
     }
 
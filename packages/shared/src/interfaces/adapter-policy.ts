@@ -510,6 +510,12 @@ export type AdapterSpawnConfig =
       logDir: string;
       cwd?: string;
       env?: NodeJS.ProcessEnv;
+      /**
+       * Unix domain socket the spawned adapter listens on. When set, the
+       * worker connects over this path instead of host:port (the port is
+       * still reserved and reported, it just carries no traffic).
+       */
+      socketPath?: string;
       /**
        * Forward the adapter process's stdio as synthesized DAP 'output'
        * events (issue #222). Opt-in for adapters whose launch-mode debuggee
@@ -0,0 +1,142 @@
+/**
+ * CBOR (RFC 8949) body decoding for DAP frames.
+ *
+ * Adapters that advertise the custom `supportsCborFraming` capability (the
+ * Java JDI bridge) can be switched with a `setWireFormat` request to send
+ * CBOR bodies inside the usual Content-Length framing. A DAP message is
+ * always an object, so a CBOR body starts with a major-type-5 byte
+ * (0xA0-0xBF), which never begins a JSON text; DapFrameDecoder uses that to
+ * pick the codec per frame, with no connection state to get out of sync.
+ *
+ * Only the subset the bridge emits and DAP can express is supported:
+ * integers, floats, text (byte strings are read as UTF-8), arrays and maps
+ * of definite or indefinite length, booleans and null. Tags are skipped.
+ */
+
+/** True when a frame body is a CBOR map rather than JSON text. */
+export function isCborBody(body: Buffer): boolean {
+  return body.length > 0 && body[0] >= 0xa0 && body[0] <= 0xbf;
+}
+
+/** Decode one CBOR data item; throws on truncated or unsupported input. */
+export function decodeCbor(body: Buffer): unknown {
+  const reader = new CborReader(body);
+  const value = reader.read();
+  if (reader.offset !== body.length) {
+    throw new Error(`Trailing bytes after CBOR item (${body.length - reader.offset})`);
+  }
+  return value;
+}
+
+const BREAK = 0xff;
+
+class CborReader {
+  offset = 0;
+
+  constructor(private readonly buf: Buffer) {}
+
+  read(): unknown {
+    const initial = this.u8();
+    const major = initial >> 5;
+    const info = initial & 0x1f;
+    switch (major) {
+      case 0:
+        return this.argument(info);
+      case 1:
+        return -1 - this.argument(info);
+      case 2:
+      case 3:
+        return this.text(info);
+      case 4: {
+        const list: unknown[] = [];
+        if (info === 31) {
+          while (!this.atBreak()) list.push(this.read());
+        } else {
+          for (let n = this.argument(info); n > 0; n--) list.push(this.read());
+        }
+        return list;
+      }
+      case 5: {
+        const map: Record<string, unknown> = {};
+        if (info === 31) {
+          while (!this.atBreak()) {
+            const key = String(this.read());
+            map[key] = this.read();
+          }
+        } else {
+          for (let n = this.argument(info); n > 0; n--) {
+            const key = String(this.read());
+            map[key] = this.read();
+          }
+        }
+        return map;
+      }
+      case 6:
+        this.argument(info); // tag number
+        return this.read();
+      default:
+        switch (info) {
+          case 20: return false;
+          case 21: return true;
+          case 22:
+          case 23: return null;
+          case 25: return this.half();
+          case 26: return this.take(4).readFloatBE(0);
+          case 27: return this.take(8).readDoubleBE(0);
+          default: throw new Error(`Unsupported CBOR simple value ${info}`);
+        }
+    }
+  }
+
+  private text(info: number): string {
+    if (info === 31) {
+      // Indefinite length: concatenation of definite-length chunks
+      let out = '';
+      while (!this.atBreak()) out += this.text(this.u8() & 0x1f);
+      return out;
+    }
+    return this.take(this.argument(info)).toString('utf8');
+  }
+
+  private argument(info: number): number {
+    if (info < 24) return info;
+    switch (info) {
+      case 24: return this.u8();
+      case 25: return this.take(2).readUInt16BE(0);
+      case 26: return this.take(4).readUInt32BE(0);
+      case 27: return Number(this.take(8).readBigUInt64BE(0));
+      default: throw new Error(`Bad CBOR length encoding ${info}`);
+    }
+  }
+
+  private half(): number {
+    const h = this.take(2).readUInt16BE(0);
+    const exp = (h >> 10) & 0x1f;
+    const mant = h & 0x3ff;
+    const value = exp === 0 ? mant * 2 ** -24
+      : exp === 31 ? (mant === 0 ? Infinity : NaN)
+      : (mant + 1024) * 2 ** (exp - 25);
+    return h & 0x8000 ? -value : value;
+  }
+
+  private atBreak(): boolean {
+    if (this.offset >= this.buf.length) throw new Error('Truncated CBOR item');
+    if (this.buf[this.offset] === BREAK) {
+      this.offset++;
+      return true;
+    }
+    return false;
+  }
+
+  private u8(): number {
+    if (this.offset >= this.buf.length) throw new Error('Truncated CBOR item');
+    return this.buf[this.offset++];
+  }
+
+  private take(n: number): Buffer {
+    if (this.offset + n > this.buf.length) throw new Error('Truncated CBOR item');
+    const slice = this.buf.subarray(this.offset, this.offset + n);
+    this.offset += n;
+    return slice;
+  }
+}
@@ -9,6 +9,7 @@
  */
 
 import { DebugProtocol } from '@vscode/debugprotocol';
+import { decodeCbor, isCborBody } from './dap-cbor.js';
 
 const TWO_CRLF = '\r\n\r\n';
 
@@ -94,16 +95,20 @@ export class DapFrameDecoder {
         const full = this.bodyChunks.length === 1
           ? this.bodyChunks[0]
           : Buffer.concat(this.bodyChunks, this.bodyBytes);
-        const message = full.toString('utf8', 0, this.contentLength);
+        const frameBody = full.subarray(0, this.contentLength);
         // Bytes past the frame belong to the next header
         input = full.subarray(this.contentLength);
         this.bodyChunks = [];
         this.bodyBytes = 0;
         this.contentLength = -1;
 
-        if (message.length > 0) {
+        if (frameBody.length > 0) {
           try {
-            messages.push(JSON.parse(message) as DebugProtocol.ProtocolMessage);
+            // Negotiated binary bodies (setWireFormat) are recognised per frame
+            const parsed = isCborBody(frameBody)
+              ? decodeCbor(frameBody)
+              : JSON.parse(frameBody.toString('utf8'));
+            messages.push(parsed as DebugProtocol.ProtocolMessage);
           } catch (e) {
             this.onError?.(e instanceof Error ? e : new Error(String(e)), 'json');
           }
@@ -36,14 +36,18 @@ export class DapConnectionManager {
   /**
    * Connect to DAP adapter with retry logic
    */
-  async connectWithRetry(host: string, port: number): Promise<IDapClient> {
+  async connectWithRetry(host: string, port: number, socketPath?: string): Promise<IDapClient> {
     this.logger.info(`[ConnectionManager] Waiting ${this.INITIAL_CONNECT_DELAY}ms before first DAP connect attempt.`);
     await new Promise(resolve => setTimeout(resolve, this.INITIAL_CONNECT_DELAY));
 
-    // Create client with policy if available
-    const client = this.policy 
-      ? this.dapClientFactory.create(host, port, this.policy)
-      : this.dapClientFactory.create(host, port);
+    // Create client with policy if available; a socket path (Unix domain
+    // socket transport) takes precedence over host:port
+    const client = socketPath
+      ? this.dapClientFactory.create(host, port, this.policy, { socketPath })
+      : this.policy
+        ? this.dapClientFactory.create(host, port, this.policy)
+        : this.dapClientFactory.create(host, port);
+    const target = socketPath ?? `${host}:${port}`;
     
     // Temporary error handler to prevent unhandled 'error' event crashes during connect attempts
     const tempErrorHandler = (err: Error) => {
@@ -55,7 +59,7 @@ export class DapConnectionManager {
 
     for (;;) {
       try {
-        this.logger.info(`[ConnectionManager] Attempting DAP client connect (attempt ${connectAttempts + 1}/${this.MAX_CONNECT_ATTEMPTS}) to ${host}:${port}`);
+        this.logger.info(`[ConnectionManager] Attempting DAP client connect (attempt ${connectAttempts + 1}/${this.MAX_CONNECT_ATTEMPTS}) to ${target}`);
         await client.connect();
         this.logger.info('[ConnectionManager] DAP client connected to adapter successfully.');
 
@@ -292,6 +296,28 @@ export class DapConnectionManager {
     return response;
   }
 
+  /**
+   * Set breakpoints for many files in one custom setBreakpointsBulk request,
+   * for adapters advertising supportsBreakpointsBulk (the Java bridge). Each
+   * entry carries exactly the arguments of its own setBreakpoints call; the
+   * response lists one { source, breakpoints } per entry, in order.
+   */
+  async setBreakpointsBulk(
+    client: IDapClient,
+    files: Map<string, BreakpointFields[]>
+  ): Promise<DebugProtocol.Response> {
+    const sources = Array.from(files.entries()).map(([sourcePath, breakpoints]) => ({
+      source: { path: sourcePath, name: path.basename(sourcePath) },
+      breakpoints: breakpoints.map(toSourceBreakpoint)
+    }));
+
+    this.logger.info(`[ConnectionManager] Setting breakpoints for ${sources.length} file(s) in one bulk request`);
+    const response = await client.sendRequest<DebugProtocol.Response>('setBreakpointsBulk', { sources });
+    this.logger.info('[ConnectionManager] Bulk breakpoints set. Response:', response);
+
+    return response;
+  }
+
   /**
    * Set exception breakpoints (issue #220). Filters are concrete adapter
    * filter IDs already resolved from the abstract breakOnExceptions mode.
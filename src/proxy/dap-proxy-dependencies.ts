@@ -52,7 +52,7 @@ export function createProductionDependencies(
     },
     
     dapClientFactory: {
-      create: (host: string, port: number, policy?: any) => new MinimalDapClient(host, port, policy) as any // eslint-disable-line @typescript-eslint/no-explicit-any -- MinimalDapClient implements IDapClient but has type compatibility issues
+      create: (host: string, port: number, policy?: any, options?: { socketPath?: string }) => new MinimalDapClient(host, port, policy, options) as any // eslint-disable-line @typescript-eslint/no-explicit-any -- MinimalDapClient implements IDapClient but has type compatibility issues
     },
     
     messageSender: {
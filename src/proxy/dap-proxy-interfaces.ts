@@ -189,7 +189,7 @@ export interface IDapClient {
  * Factory for creating DAP clients
  */
 export interface IDapClientFactory {
-  create(host: string, port: number, policy?: AdapterPolicy): IDapClient;
+  create(host: string, port: number, policy?: AdapterPolicy, options?: { socketPath?: string }): IDapClient;
 }
 
 /**
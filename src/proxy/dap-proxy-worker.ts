@@ -487,10 +487,10 @@ export class DapProxyWorker {
 
     // Connect to adapter
     try {
-      this.dapClient = await this.connectionManager!.connectWithRetry(
-        spawnConfig.host,
-        spawnConfig.port
-      );
+      const socketPath = spawnConfig.mode === 'spawn' ? spawnConfig.socketPath : undefined;
+      this.dapClient = socketPath
+        ? await this.connectionManager!.connectWithRetry(spawnConfig.host, spawnConfig.port, socketPath)
+        : await this.connectionManager!.connectWithRetry(spawnConfig.host, spawnConfig.port);
 
       // Record the break-on-exception mode on the client so DAP child
       // sessions (js-debug) can apply the same filters (issue #220).
@@ -834,12 +834,19 @@ export class DapProxyWorker {
           });
         }
 
-        for (const [filePath, breakpoints] of groupedBreakpoints.entries()) {
-          await this.connectionManager.setBreakpoints(
-            this.dapClient,
-            filePath,
-            breakpoints
-          );
+        // Adapters with the custom bulk request (the Java bridge) take every
+        // file in one round trip instead of one setBreakpoints per file
+        const capabilities = this.adapterCapabilities as Record<string, unknown> | null;
+        if (groupedBreakpoints.size > 1 && capabilities?.supportsBreakpointsBulk === true) {
+          await this.connectionManager.setBreakpointsBulk(this.dapClient, groupedBreakpoints);
+        } else {
+          for (const [filePath, breakpoints] of groupedBreakpoints.entries()) {
+            await this.connectionManager.setBreakpoints(
+              this.dapClient,
+              filePath,
+              breakpoints
+            );
+          }
         }
       }
 
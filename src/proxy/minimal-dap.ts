@@ -31,6 +31,8 @@ type MinimalDapClientOptions = {
   };
   /** Byte cap for the opt-in DAP trace file; injectable for tests (issue #403) */
   traceMaxBytes?: number;
+  /** Connect over this Unix domain socket instead of host:port */
+  socketPath?: string;
 };
 
 /** Trace cap consistent with the main logger's maxsize (issue #403). */
@@ -57,6 +59,7 @@ export class MinimalDapClient extends EventEmitter {
   private isDisconnectingOrDisconnected = false;
   private host: string;
   private port: number;
+  private readonly socketPath?: string;
   private traceFile?: string = process.env.DAP_TRACE_FILE;
   private traceMaxBytes: number = DEFAULT_TRACE_MAX_BYTES;
   private traceBytesWritten = 0;
@@ -84,6 +87,7 @@ export class MinimalDapClient extends EventEmitter {
     super();
     this.host = host;
     this.port = port;
+    this.socketPath = options?.socketPath;
     this.policy = policy || DefaultAdapterPolicy;
     this.dapBehavior = this.policy.getDapClientBehavior();
     this.timers = options?.timers ?? {
@@ -206,6 +210,9 @@ export class MinimalDapClient extends EventEmitter {
         this.pendingRequests.delete(response.request_seq);
         
         if (response.success) {
+          if (response.command === 'initialize') {
+            this.maybeNegotiateWireFormat(response.body as Record<string, unknown> | undefined);
+          }
           pending.resolve(response);
         } else {
           pending.reject(new Error(response.message || 'Request failed'));
@@ -300,6 +307,24 @@ export class MinimalDapClient extends EventEmitter {
     }
   }
 
+  /**
+   * Adapters advertising the custom supportsCborFraming capability (the Java
+   * bridge) can send CBOR bodies instead of JSON; DapFrameDecoder picks the
+   * codec per frame, so switching needs no further coordination. Only the
+   * adapter->proxy direction switches: that is where the bulk (variables
+   * pages, thread dumps, output bursts) flows. Opt out with
+   * DAP_BINARY_FRAMING=off.
+   */
+  private maybeNegotiateWireFormat(capabilities: Record<string, unknown> | undefined): void {
+    if (capabilities?.supportsCborFraming !== true || process.env.DAP_BINARY_FRAMING === 'off') {
+      return;
+    }
+    this.sendRequest('setWireFormat', { format: 'cbor' }).then(
+      () => logger.info('[MinimalDapClient] Adapter switched to CBOR framing'),
+      (error) => logger.warn(`[MinimalDapClient] setWireFormat failed, staying on JSON: ${getErrorMessage(error)}`)
+    );
+  }
+
   private appendTrace(direction: 'in' | 'out', payload: unknown): void {
     if (!this.traceFile || this.traceTruncated) return;
     try {
@@ -334,14 +359,16 @@ export class MinimalDapClient extends EventEmitter {
 
   public connect(): Promise<void> {
     return new Promise((resolve, reject) => {
-      logger.info(`[MinimalDapClient] Connecting to ${this.host}:${this.port}`);
+      const target = this.socketPath ?? `${this.host}:${this.port}`;
+      logger.info(`[MinimalDapClient] Connecting to ${target}`);
       
       let connected = false;
       let connectionRejected = false;
       
       // Use net.createConnection for test compatibility
-      this.socket = net.createConnection({ host: this.host, port: this.port }, () => {
-        logger.info(`[MinimalDapClient] Connected to ${this.host}:${this.port}`);
+      const options = this.socketPath ? { path: this.socketPath } : { host: this.host, port: this.port };
+      this.socket = net.createConnection(options, () => {
+        logger.info(`[MinimalDapClient] Connected to ${target}`);
         connected = true;
         resolve();
       });
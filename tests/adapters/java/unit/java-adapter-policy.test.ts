@@ -408,6 +408,24 @@ describe('JavaAdapterPolicy', () => {
       expect(config.env).toEqual({ JAVA_OPTS: '-Xmx1g' });
     });
 
+    it('should connect over the bridge socket path when launched with --socket', () => {
+      const payload = {
+        adapterCommand: {
+          command: 'java',
+          args: ['-cp', 'java/out', 'JdiDapServer', '--socket', '/tmp/mcp-jdi.sock', '--owner-pid', '1']
+        },
+        adapterHost: '127.0.0.1',
+        adapterPort: 5005,
+        logDir: '/tmp/logs'
+      };
+
+      const config = JavaAdapterPolicy.getAdapterSpawnConfig!(payload as any);
+
+      expect(config.mode).toBe('spawn');
+      expect(config.mode === 'spawn' && config.socketPath).toBe('/tmp/mcp-jdi.sock');
+      expect(config.port).toBe(5005);
+    });
+
     it('should return default JdiDapServer config when no adapterCommand', () => {
       const payload = {
         adapterHost: 'localhost',
@@ -252,8 +252,8 @@ describe('JavaDebugAdapter', () => {
       expect(adapter.supportsFeature(DebugFeature.STEP_BACK)).toBe(false);
     });
 
-    it('should not support data breakpoints', () => {
-      expect(adapter.supportsFeature(DebugFeature.DATA_BREAKPOINTS)).toBe(false);
+    it('should support data breakpoints', () => {
+      expect(adapter.supportsFeature(DebugFeature.DATA_BREAKPOINTS)).toBe(true);
     });
   });
 
@@ -264,12 +264,14 @@ describe('JavaDebugAdapter', () => {
       expect(caps.supportsConfigurationDoneRequest).toBe(true);
       expect(caps.supportsFunctionBreakpoints).toBe(true);
       expect(caps.supportsConditionalBreakpoints).toBe(true);
+      expect(caps.supportsHitConditionalBreakpoints).toBe(true);
       expect(caps.supportsEvaluateForHovers).toBe(true);
       expect(caps.supportsSetVariable).toBe(false);
       expect(caps.supportsTerminateRequest).toBe(true);
       expect(caps.supportsStepBack).toBe(false);
-      expect(caps.supportsLogPoints).toBe(false);
+      expect(caps.supportsLogPoints).toBe(true);
       expect(caps.supportsExceptionInfoRequest).toBe(true);
+      expect(caps.supportsDataBreakpoints).toBe(true);
     });
 
     it('should include caught and uncaught exception filters', () => {
@@ -282,6 +284,17 @@ describe('JavaDebugAdapter', () => {
       expect(caps.exceptionBreakpointFilters?.[1].filter).toBe('uncaught');
       expect(caps.exceptionBreakpointFilters?.[1].default).toBe(true);
     });
+
+    it('should accept exception filter conditions and exception options', () => {
+      const caps = adapter.getCapabilities();
+
+      expect(caps.supportsExceptionOptions).toBe(true);
+      expect(caps.supportsExceptionFilterOptions).toBe(true);
+      for (const filter of caps.exceptionBreakpointFilters ?? []) {
+        expect(filter.supportsCondition).toBe(true);
+        expect(filter.conditionDescription).toContain('!caughtIn:');
+      }
+    });
   });
 
   describe('translateErrorMessage', () => {
@@ -0,0 +1,179 @@
+/**
+ * Direct JDI bridge harness for e2e tests.
+ *
+ * Several bridge features have no MCP tool surface yet — hit conditions, data
+ * breakpoints, exception filter conditions, setBreakpointsBulk and the
+ * bridge's custom summary requests. These tests spawn JdiDapServer the way
+ * JavaDebugAdapter does and drive it with the scripted TcpDapClient, so the
+ * wire format and event ordering are the production ones.
+ */
+import net from 'net';
+import { spawn } from 'child_process';
+import type { DebugProtocol } from '@vscode/debugprotocol';
+import { ensureJdiBridgeCompiled } from '@debugmcp/adapter-java';
+import { TcpDapClient } from '../test-utils/helpers/dap-test-client.js';
+import { prepareJavaExample, type JavaExampleName } from './java-example-utils.js';
+
+export interface JavaBridgeSession {
+  client: TcpDapClient;
+  /** Disconnect (terminating the debuggee) and stop the bridge process. */
+  close(): Promise<void>;
+}
+
+export interface FoundEvent {
+  event: DebugProtocol.Event;
+  /** Index of the event in client.frames; pass index + 1 to look past it. */
+  index: number;
+}
+
+function freePort(): Promise<number> {
+  return new Promise((resolve, reject) => {
+    const server = net.createServer();
+    server.once('error', reject);
+    server.listen(0, '127.0.0.1', () => {
+      const { port } = server.address() as net.AddressInfo;
+      server.close(() => resolve(port));
+    });
+  });
+}
+
+/** The bridge listens shortly after the JVM starts; a refused connect is retried. */
+async function connectWithRetry(port: number, timeoutMs = 15_000): Promise<TcpDapClient> {
+  const deadline = Date.now() + timeoutMs;
+  for (;;) {
+    // A client whose socket failed stays closed, so each attempt needs a fresh one
+    const client = new TcpDapClient();
+    try {
+      await client.connect(port);
+      return client;
+    } catch (err) {
+      client.close();
+      if (Date.now() >= deadline) throw err;
+      await new Promise(r => setTimeout(r, 100));
+    }
+  }
+}
+
+/** Spawn a JDI bridge, connect, and complete initialize up to the 'initialized' event. */
+export async function startJavaBridge(): Promise<JavaBridgeSession> {
+  const classDir = ensureJdiBridgeCompiled();
+  if (!classDir) {
+    throw new Error('JDI bridge classes are missing and could not be compiled');
+  }
+  const port = await freePort();
+  const bridge = spawn('java', ['-cp', classDir, 'JdiDapServer', '--port', String(port)], {
+    stdio: 'ignore'
+  });
+  let client: TcpDapClient | null = null;
+  try {
+    client = await connectWithRetry(port);
+    const init = await client.request('initialize', { adapterID: 'java', clientID: 'java-bridge-e2e' });
+    if (!init.success) {
+      throw new Error(`initialize failed: ${init.message}`);
+    }
+    await client.waitForEvent('initialized');
+  } catch (err) {
+    client?.close();
+    bridge.kill();
+    throw err;
+  }
+  const connected = client;
+  return {
+    client: connected,
+    close: async () => {
+      if (!connected.isClosed) {
+        // The bridge may already be gone after the debuggee exited
+        await connected.request('disconnect', { terminateDebuggee: true }, 5_000).catch(() => undefined);
+      }
+      connected.close();
+      if (bridge.exitCode === null) {
+        bridge.kill();
+      }
+    }
+  };
+}
+
+/** Launch a compiled example (see java-example-utils.ts) and finish configuration. */
+export async function launchJavaExample(client: TcpDapClient, name: JavaExampleName): Promise<void> {
+  const { classDir, mainClass } = prepareJavaExample(name);
+  const launch = await client.request('launch', {
+    mainClass,
+    classpath: classDir,
+    cwd: classDir,
+    stopOnEntry: false
+  }, 30_000);
+  if (!launch.success) {
+    throw new Error(`launch failed: ${launch.message}`);
+  }
+  const done = await client.request('configurationDone');
+  if (!done.success) {
+    throw new Error(`configurationDone failed: ${done.message}`);
+  }
+}
+
+/** The first event named in `events` at or after frame `fromIndex`. */
+export async function nextEvent(
+  client: TcpDapClient,
+  events: string[],
+  fromIndex: number,
+  timeoutMs = 30_000
+): Promise<FoundEvent> {
+  const deadline = Date.now() + timeoutMs;
+  while (Date.now() < deadline) {
+    const frames = client.frames;
+    for (let i = fromIndex; i < frames.length; i++) {
+      const m = frames[i];
+      if (m.type === 'event' && events.includes((m as DebugProtocol.Event).event)) {
+        return { event: m as DebugProtocol.Event, index: i };
+      }
+    }
+    if (client.isClosed) break;
+    await new Promise(r => setTimeout(r, 50));
+  }
+  throw new Error(`No '${events.join("' or '")}' event after frame ${fromIndex}`);
+}
+
+/** Bodies of every event named `event` received so far. */
+export function eventBodies<T>(client: TcpDapClient, event: string): T[] {
+  return client.frames
+    .filter(m => m.type === 'event' && (m as DebugProtocol.Event).event === event)
+    .map(m => (m as DebugProtocol.Event).body as T);
+}
+
+/**
+ * Continue through every stop from frame `fromIndex` on until the debuggee
+ * terminates, collecting what `onStop` returns for each 'stopped' event.
+ */
+export async function collectStops<T>(
+  client: TcpDapClient,
+  onStop: (stopped: DebugProtocol.StoppedEvent['body']) => Promise<T>,
+  fromIndex = 0
+): Promise<T[]> {
+  const results: T[] = [];
+  let cursor = fromIndex;
+  for (;;) {
+    const { event, index } = await nextEvent(client, ['stopped', 'terminated'], cursor);
+    cursor = index + 1;
+    if (event.event === 'terminated') {
+      return results;
+    }
+    const body = (event as DebugProtocol.StoppedEvent).body;
+    results.push(await onStop(body));
+    await client.request('continue', { threadId: body.threadId });
+  }
+}
+
+/** Top stack frame of a stopped thread. */
+export async function topFrame(client: TcpDapClient, threadId: number): Promise<DebugProtocol.StackFrame> {
+  const res = await client.request('stackTrace', { threadId, levels: 1 }) as DebugProtocol.StackTraceResponse;
+  return res.body.stackFrames[0];
+}
+
+/** Evaluate `expression` in a frame; returns the display string. */
+export async function evaluateIn(client: TcpDapClient, frameId: number, expression: string): Promise<string> {
+  const res = await client.request('evaluate', { expression, frameId, context: 'watch' }) as DebugProtocol.EvaluateResponse;
+  if (!res.success) {
+    throw new Error(`evaluate '${expression}' failed: ${res.message}`);
+  }
+  return res.body.result;
+}
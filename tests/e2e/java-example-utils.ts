@@ -26,7 +26,12 @@ export type JavaExampleName =
   | 'ExprTest'
   | 'InfiniteWait'
   | 'ThrowsTest'
-  | 'FunctionBpTest';
+  | 'FunctionBpTest'
+  | 'LogpointTest'
+  | 'ConditionTest'
+  | 'WatchTest'
+  | 'ExceptionFilterTest'
+  | 'BulkTest';
 
 export interface JavaExamplePaths {
   /** Absolute path to the main .java source file. */
@@ -53,6 +58,11 @@ const EXAMPLES: Record<JavaExampleName, JavaExampleSpec> = {
   InfiniteWait:   { mainClass: 'InfiniteWait' },
   ThrowsTest:     { mainClass: 'ThrowsTest' },
   FunctionBpTest: { mainClass: 'FunctionBpTest' },
+  LogpointTest:   { mainClass: 'LogpointTest' },
+  ConditionTest:  { mainClass: 'ConditionTest' },
+  WatchTest:      { mainClass: 'WatchTest' },
+  ExceptionFilterTest: { mainClass: 'ExceptionFilterTest' },
+  BulkTest:       { mainClass: 'BulkTest', extraSources: ['BulkHelper'] },
 };
 
 const prepared = new Map<JavaExampleName, JavaExamplePaths>();
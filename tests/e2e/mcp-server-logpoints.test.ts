@@ -1,12 +1,12 @@
 /**
  * E2E: logpoints (set_breakpoint logMessage) — issue #235.
  *
- * Supported adapters (python, javascript, go, rust, cpp, mock): a logpoint on a
- * hot line does NOT pause execution; the interpolated message arrives as
- * output readable via get_output.
+ * Supported adapters (python, javascript, go, rust, cpp, java, mock): a
+ * logpoint on a hot line does NOT pause execution; the interpolated message
+ * arrives as output readable via get_output.
  *
- * Known-unsupported adapters (java, dotnet): set_breakpoint with logMessage
- * fails fast with a clear error.
+ * Known-unsupported adapters (dotnet): set_breakpoint with logMessage fails
+ * fast with a clear error.
  *
  * Unknown support (ruby): accepted with a warning; runtime behavior is
  * adapter-dependent and not asserted.
@@ -28,14 +28,15 @@ const EXPECTATION: Record<string, 'logs' | 'error' | 'warning'> = {
   rust: 'logs',
   cpp: 'logs',
   mock: 'logs',
-  java: 'error',
+  java: 'logs',
   dotnet: 'error',
   ruby: 'warning',
 };
 
-// Python's bpLine has a=1, b=2 in scope — assert real interpolation there.
+// Python's bpLine has a=1, b=2 in scope, Java's x=10 — assert real interpolation there.
 const LOG_MESSAGES: Record<string, { message: string; expectInOutput?: string }> = {
   python: { message: 'LP-MARK a={a}', expectInOutput: 'LP-MARK a=1' },
+  java: { message: 'LP-MARK x={x}', expectInOutput: 'LP-MARK x=10' },
   default: { message: 'LP-MARK plain', expectInOutput: 'LP-MARK plain' },
 };
 
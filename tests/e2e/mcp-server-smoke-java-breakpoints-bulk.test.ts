@@ -0,0 +1,140 @@
+/**
+ * Java Bulk Breakpoint Smoke Tests against the JDI bridge
+ *
+ * Exercises the custom setBreakpointsBulk request end-to-end:
+ * - One request sets breakpoints in two source files; the response lists
+ *   each file's breakpoints in request order, and all of them bind and stop
+ * - Re-sending is incremental per file: kept lines keep their ids, and a
+ *   file sent with no breakpoints loses its own
+ *
+ * The proxy sends initial breakpoints this way, but the MCP tools set them
+ * one file at a time, so these tests drive the bridge directly over DAP
+ * (see java-bridge-utils.ts).
+ *
+ * Fixture: examples/java/BulkTest.java with BulkHelper.java (line layout
+ * asserted here — BulkTest calls BulkHelper.twice on line 10 and prints on
+ * line 11; BulkHelper returns on line 7).
+ *
+ * Skips gracefully when JDK is not installed.
+ */
+
+import { describe, it, expect, afterEach } from 'vitest';
+import path from 'path';
+import { execSync } from 'child_process';
+import type { DebugProtocol } from '@vscode/debugprotocol';
+import { prepareJavaExample } from './java-example-utils.js';
+import {
+  startJavaBridge,
+  launchJavaExample,
+  nextEvent,
+  collectStops,
+  eventBodies,
+  topFrame,
+  type JavaBridgeSession
+} from './java-bridge-utils.js';
+
+const CALL_LINE = 10;
+const PRINT_LINE = 11;
+const HELPER_LINE = 7;
+
+interface BulkSourceResult {
+  source: DebugProtocol.Source;
+  breakpoints: DebugProtocol.Breakpoint[];
+}
+
+function hasJdk(): boolean {
+  try {
+    execSync('java -version', { stdio: 'ignore' });
+    execSync('javac -version', { stdio: 'ignore' });
+    return true;
+  } catch {
+    return false;
+  }
+}
+
+describe('JDI Bridge Java Bulk Breakpoints @requires-java', () => {
+  let session: JavaBridgeSession | null = null;
+
+  afterEach(async () => {
+    if (session) {
+      await session.close();
+      session = null;
+    }
+  });
+
+  function sourcePaths(): { main: string; helper: string } {
+    const { sourcePath } = prepareJavaExample('BulkTest');
+    return { main: sourcePath, helper: path.join(path.dirname(sourcePath), 'BulkHelper.java') };
+  }
+
+  async function setBulk(mainLines: number[], helperLines: number[]): Promise<BulkSourceResult[]> {
+    const { main, helper } = sourcePaths();
+    const res = await session!.client.request('setBreakpointsBulk', {
+      sources: [
+        { source: { path: main }, breakpoints: mainLines.map(line => ({ line })) },
+        { source: { path: helper }, breakpoints: helperLines.map(line => ({ line })) }
+      ]
+    });
+    expect(res.success).toBe(true);
+    return (res.body as { sources: BulkSourceResult[] }).sources;
+  }
+
+  /** "File.java:line" of a stop. */
+  async function stopLocation(threadId: number): Promise<string> {
+    const frame = await topFrame(session!.client, threadId);
+    return `${path.basename(frame.source?.path ?? '?')}:${frame.line}`;
+  }
+
+  it('sets and binds breakpoints across two files in one request', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Bulk Breakpoints] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    const { main, helper } = sourcePaths();
+    const sources = await setBulk([CALL_LINE, PRINT_LINE], [HELPER_LINE]);
+
+    expect(sources.map(s => s.source.path)).toEqual([main, helper]);
+    expect(sources.map(s => s.breakpoints.map(bp => bp.line))).toEqual([[CALL_LINE, PRINT_LINE], [HELPER_LINE]]);
+    const ids = sources.flatMap(s => s.breakpoints.map(bp => bp.id));
+    expect(new Set(ids).size).toBe(3);
+
+    await launchJavaExample(session.client, 'BulkTest');
+    const stops = await collectStops(session.client, stopped => stopLocation(stopped.threadId!));
+    expect(stops).toEqual([
+      `BulkTest.java:${CALL_LINE}`,
+      `BulkHelper.java:${HELPER_LINE}`,
+      `BulkTest.java:${PRINT_LINE}`
+    ]);
+
+    // Each pending breakpoint flipped to verified when its class loaded
+    const verified = eventBodies<DebugProtocol.BreakpointEvent['body']>(session.client, 'breakpoint')
+      .filter(b => b.reason === 'changed' && b.breakpoint.verified)
+      .map(b => b.breakpoint.id);
+    expect(new Set(verified)).toEqual(new Set(ids));
+  }, 60000);
+
+  it('keeps ids of unchanged lines and clears a file sent empty', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Bulk Breakpoints] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    const client = session.client;
+    const before = await setBulk([CALL_LINE, PRINT_LINE], [HELPER_LINE]);
+    await launchJavaExample(client, 'BulkTest');
+
+    const parked = await nextEvent(client, ['stopped'], 0);
+    const threadId = (parked.event.body as { threadId: number }).threadId;
+    expect(await stopLocation(threadId)).toBe(`BulkTest.java:${CALL_LINE}`);
+
+    const after = await setBulk([CALL_LINE, PRINT_LINE], []);
+    expect(after[0].breakpoints.map(bp => bp.id)).toEqual(before[0].breakpoints.map(bp => bp.id));
+    expect(after[0].breakpoints.every(bp => bp.verified)).toBe(true);
+    expect(after[1].breakpoints).toEqual([]);
+
+    await client.request('continue', { threadId });
+    const stops = await collectStops(client, stopped => stopLocation(stopped.threadId!), parked.index + 1);
+    expect(stops).toEqual([`BulkTest.java:${PRINT_LINE}`]);
+  }, 60000);
+});
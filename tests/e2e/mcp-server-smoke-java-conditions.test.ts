@@ -0,0 +1,221 @@
+/**
+ * Java Breakpoint Condition Smoke Tests against the JDI bridge
+ *
+ * Exercises compiled breakpoint conditions end-to-end:
+ * - && and || short-circuit as in Java: a right-hand side that would fail
+ *   or has side effects is never evaluated once the left side decides
+ * - `this == Cls.CONSTANT` becomes a JDWP instance filter when the class is
+ *   initialized as the breakpoint binds, and is evaluated per hit otherwise
+ * - hitCondition `N` stops on the Nth hit only, counted by the target VM
+ *   (JDWP count filter); `% N` and `>= N` are counted by the bridge
+ *
+ * The MCP tools do not expose every condition feature, so these tests drive
+ * the bridge directly over DAP (see java-bridge-utils.ts).
+ *
+ * Fixture: examples/java/ConditionTest.java (line layout asserted here — the
+ * step() body is line 24 with this and i in scope, the length line in main
+ * line 30 with i and label in scope; label is null for even i).
+ *
+ * Skips gracefully when JDK is not installed.
+ */
+
+import { describe, it, expect, afterEach } from 'vitest';
+import { execSync } from 'child_process';
+import type { DebugProtocol } from '@vscode/debugprotocol';
+import { prepareJavaExample } from './java-example-utils.js';
+import {
+  startJavaBridge,
+  launchJavaExample,
+  nextEvent,
+  collectStops,
+  eventBodies,
+  topFrame,
+  evaluateIn,
+  type JavaBridgeSession
+} from './java-bridge-utils.js';
+
+const STEP_LINE = 24;
+const LENGTH_LINE = 30;
+
+interface StatisticsEntry {
+  line?: number;
+  hits: number;
+  hitCount?: number;
+  stops: number;
+  pushedDown?: string[];
+}
+
+function hasJdk(): boolean {
+  try {
+    execSync('java -version', { stdio: 'ignore' });
+    execSync('javac -version', { stdio: 'ignore' });
+    return true;
+  } catch {
+    return false;
+  }
+}
+
+describe('JDI Bridge Java Breakpoint Conditions @requires-java', () => {
+  let session: JavaBridgeSession | null = null;
+
+  afterEach(async () => {
+    if (session) {
+      await session.close();
+      session = null;
+    }
+  });
+
+  async function setBreakpoints(
+    breakpoints: DebugProtocol.SourceBreakpoint[]
+  ): Promise<DebugProtocol.Breakpoint[]> {
+    const { sourcePath } = prepareJavaExample('ConditionTest');
+    const res = await session!.client.request('setBreakpoints', {
+      source: { path: sourcePath },
+      breakpoints
+    }) as DebugProtocol.SetBreakpointsResponse;
+    expect(res.success).toBe(true);
+    return res.body.breakpoints;
+  }
+
+  /**
+   * Runs the fixture to the end; each stop in step() reports the receiver's
+   * name and i, and `statistics` the breakpoint's counters at the last stop.
+   */
+  async function stepStops(): Promise<{ stops: string[]; statistics: StatisticsEntry | undefined }> {
+    const client = session!.client;
+    let statistics: StatisticsEntry | undefined;
+    const stops = await collectStops(client, async (stopped) => {
+      const frame = await topFrame(client, stopped.threadId!);
+      const res = await client.request('breakpointStatistics');
+      statistics = (res.body as { breakpoints: StatisticsEntry[] }).breakpoints.find(e => e.line === STEP_LINE);
+      return `${await evaluateIn(client, frame.id, 'name')} ${await evaluateIn(client, frame.id, 'i')}`;
+    });
+    return { stops, statistics };
+  }
+
+  /** Runs the fixture to the end; each stop reports the value of `i` there. */
+  async function stoppedAtI(): Promise<string[]> {
+    const client = session!.client;
+    return collectStops(client, async (stopped) => {
+      const frame = await topFrame(client, stopped.threadId!);
+      return evaluateIn(client, frame.id, 'i');
+    });
+  }
+
+  it('short-circuits && so a null check guards the right-hand side', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Conditions] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    await setBreakpoints([{ line: LENGTH_LINE, condition: 'label != null && label.length() > 4' }]);
+    await launchJavaExample(session.client, 'ConditionTest');
+
+    // Were the right side evaluated for a null label, the error would stop
+    // on every iteration (evaluation errors default to breaking)
+    expect(await stoppedAtI()).toEqual(['1', '3', '5']);
+  }, 60000);
+
+  it('short-circuits || so a true left side skips a call with side effects', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Conditions] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    await setBreakpoints([{ line: LENGTH_LINE, condition: 'i == 4 || mark(i)' }]);
+    await launchJavaExample(session.client, 'ConditionTest');
+
+    expect(await stoppedAtI()).toEqual(['4']);
+    // mark() counts its calls: it ran for every iteration except i == 4
+    const output = eventBodies<{ output: string }>(session.client, 'output').map(b => b.output).join('');
+    expect(output).toContain('Marks: 5');
+  }, 60000);
+
+  it('pushes this == Cls.CONSTANT down into an instance filter', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Conditions] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    const client = session.client;
+    await setBreakpoints([{ line: LENGTH_LINE }]);
+    await launchJavaExample(client, 'ConditionTest');
+
+    // Parked in main, ConditionTest is initialized: SECOND can be resolved
+    // when the breakpoint binds
+    const parked = await nextEvent(client, ['stopped'], 0);
+    const [bp] = await setBreakpoints([{ line: STEP_LINE, condition: 'this == ConditionTest.SECOND' }]);
+    expect(bp.verified).toBe(true);
+    await client.request('continue', { threadId: (parked.event.body as { threadId: number }).threadId });
+
+    let statistics: StatisticsEntry[] = [];
+    const names = await collectStops(client, async (stopped) => {
+      const frame = await topFrame(client, stopped.threadId!);
+      const res = await client.request('breakpointStatistics');
+      statistics = (res.body as { breakpoints: StatisticsEntry[] }).breakpoints;
+      return evaluateIn(client, frame.id, 'name');
+    }, parked.index + 1);
+
+    expect(names).toEqual(Array(6).fill('"second"'));
+    const entry = statistics.find(e => e.line === STEP_LINE);
+    expect(entry?.pushedDown).toEqual(['this == ConditionTest.SECOND']);
+    // The target VM dropped FIRST's hits itself: the bridge saw SECOND's only
+    expect(entry?.hits).toBe(6);
+    expect(entry?.stops).toBe(6);
+  }, 60000);
+
+  it('evaluates a class constant on each hit when the class was not initialized at bind time', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Conditions] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    const client = session.client;
+    // Bound on class prepare, before the static initializer ran
+    await setBreakpoints([{ line: STEP_LINE, condition: 'this == ConditionTest.SECOND && i >= 4' }]);
+    await launchJavaExample(client, 'ConditionTest');
+
+    const stops = await collectStops(client, async (stopped) => {
+      const frame = await topFrame(client, stopped.threadId!);
+      return `${await evaluateIn(client, frame.id, 'name')} ${await evaluateIn(client, frame.id, 'i')}`;
+    });
+    expect(stops).toEqual(['"second" 4', '"second" 5']);
+  }, 60000);
+
+  it('stops on the Nth hit only, counted by the target VM', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Conditions] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    await setBreakpoints([{ line: STEP_LINE, hitCondition: '4' }]);
+    await launchJavaExample(session.client, 'ConditionTest');
+
+    // Hits alternate FIRST, SECOND per iteration: the 4th is SECOND at i == 1
+    const { stops, statistics } = await stepStops();
+    expect(stops).toEqual(['"second" 1']);
+    // A JDWP count filter: the first three hits never reached the bridge
+    expect(statistics?.hits).toBe(1);
+    expect(statistics?.hitCount).toBe(4);
+  }, 60000);
+
+  it('stops on every Nth hit and from the Nth hit on', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Conditions] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    await setBreakpoints([{ line: STEP_LINE, hitCondition: '% 5' }]);
+    await launchJavaExample(session.client, 'ConditionTest');
+    const modulo = await stepStops();
+    expect(modulo.stops).toEqual(['"first" 2', '"second" 4']);
+    expect(modulo.statistics?.hitCount).toBe(10);
+    await session.close();
+
+    session = await startJavaBridge();
+    await setBreakpoints([{ line: STEP_LINE, hitCondition: '>= 11' }]);
+    await launchJavaExample(session.client, 'ConditionTest');
+    const atLeast = await stepStops();
+    expect(atLeast.stops).toEqual(['"first" 5', '"second" 5']);
+  }, 60000);
+});
@@ -0,0 +1,134 @@
+/**
+ * Java Data Breakpoint Smoke Tests against the JDI bridge
+ *
+ * Exercises field watchpoints (DAP data breakpoints) end-to-end:
+ * - A static field named as Class.field before launch stays pending until
+ *   its class loads, then stops on every write with old and new value
+ * - A field named through an expanded object watches that object only
+ *
+ * The MCP tools do not expose data breakpoints, so these tests drive the
+ * bridge directly over DAP (see java-bridge-utils.ts).
+ *
+ * Fixture: examples/java/WatchTest.java (line layout asserted here — the
+ * first loop body line is line 16 with left and right in scope; each of
+ * three iterations adds 1 to left.value, 10 to right.value and 1 to count).
+ *
+ * Skips gracefully when JDK is not installed.
+ */
+
+import { describe, it, expect, afterEach } from 'vitest';
+import { execSync } from 'child_process';
+import type { DebugProtocol } from '@vscode/debugprotocol';
+import { prepareJavaExample } from './java-example-utils.js';
+import {
+  startJavaBridge,
+  launchJavaExample,
+  nextEvent,
+  collectStops,
+  eventBodies,
+  topFrame,
+  type JavaBridgeSession
+} from './java-bridge-utils.js';
+
+const LOOP_LINE = 16;
+
+function hasJdk(): boolean {
+  try {
+    execSync('java -version', { stdio: 'ignore' });
+    execSync('javac -version', { stdio: 'ignore' });
+    return true;
+  } catch {
+    return false;
+  }
+}
+
+describe('JDI Bridge Java Data Breakpoints @requires-java', () => {
+  let session: JavaBridgeSession | null = null;
+
+  afterEach(async () => {
+    if (session) {
+      await session.close();
+      session = null;
+    }
+  });
+
+  async function dataBreakpointInfo(args: Record<string, unknown>): Promise<{ dataId: string | null }> {
+    const res = await session!.client.request('dataBreakpointInfo', args) as DebugProtocol.DataBreakpointInfoResponse;
+    expect(res.success).toBe(true);
+    return res.body;
+  }
+
+  async function setDataBreakpoints(
+    breakpoints: DebugProtocol.DataBreakpoint[]
+  ): Promise<DebugProtocol.Breakpoint[]> {
+    const res = await session!.client.request('setDataBreakpoints', { breakpoints }) as DebugProtocol.SetDataBreakpointsResponse;
+    expect(res.success).toBe(true);
+    return res.body.breakpoints;
+  }
+
+  /** "reason: description" for each stop until the fixture ends. */
+  function describeStops(fromIndex = 0): Promise<string[]> {
+    return collectStops(session!.client, async (stopped) =>
+      `${stopped.reason}: ${stopped.description}`, fromIndex);
+  }
+
+  it('binds a static field watch when its class loads and stops on each write', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Data Breakpoints] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    const info = await dataBreakpointInfo({ name: 'WatchTest.count' });
+    expect(info.dataId).toBeTruthy();
+    const [bp] = await setDataBreakpoints([{ dataId: info.dataId!, accessType: 'write' }]);
+    expect(bp.verified).toBe(false);
+
+    await launchJavaExample(session.client, 'WatchTest');
+
+    expect(await describeStops()).toEqual([
+      'data breakpoint: WatchTest.count: 0 -> 1',
+      'data breakpoint: WatchTest.count: 1 -> 2',
+      'data breakpoint: WatchTest.count: 2 -> 3'
+    ]);
+    const changed = eventBodies<DebugProtocol.BreakpointEvent['body']>(session.client, 'breakpoint')
+      .filter(b => b.breakpoint.id === bp.id);
+    expect(changed.some(b => b.reason === 'changed' && b.breakpoint.verified)).toBe(true);
+  }, 60000);
+
+  it('watches a field of one object through its variablesReference', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Data Breakpoints] Skipping — JDK not installed');
+      return;
+    }
+    session = await startJavaBridge();
+    const client = session.client;
+    const { sourcePath } = prepareJavaExample('WatchTest');
+    await client.request('setBreakpoints', { source: { path: sourcePath }, breakpoints: [{ line: LOOP_LINE }] });
+    await launchJavaExample(client, 'WatchTest');
+
+    const parked = await nextEvent(client, ['stopped'], 0);
+    const threadId = (parked.event.body as { threadId: number }).threadId;
+    const frame = await topFrame(client, threadId);
+    const scopes = await client.request('scopes', { frameId: frame.id }) as DebugProtocol.ScopesResponse;
+    const locals = await client.request('variables', {
+      variablesReference: scopes.body.scopes[0].variablesReference
+    }) as DebugProtocol.VariablesResponse;
+    const left = locals.body.variables.find(v => v.name === 'left');
+    expect(left?.variablesReference).toBeGreaterThan(0);
+
+    const info = await dataBreakpointInfo({ variablesReference: left!.variablesReference, name: 'value' });
+    expect(info.dataId).toBeTruthy();
+    const [bp] = await setDataBreakpoints([{ dataId: info.dataId! }]);
+    expect(bp.verified).toBe(true);
+    // Only the watch from here on
+    await client.request('setBreakpoints', { source: { path: sourcePath }, breakpoints: [] });
+    await client.request('continue', { threadId });
+
+    // right.value is the same field, but of another object: never reported
+    expect(await describeStops(parked.index + 1)).toEqual([
+      'data breakpoint: WatchTest.value: 0 -> 1',
+      'data breakpoint: WatchTest.value: 1 -> 2',
+      'data breakpoint: WatchTest.value: 2 -> 3'
+    ]);
+  }, 60000);
+});
@@ -0,0 +1,147 @@
+/**
+ * Java Exception Filter Smoke Tests against the JDI bridge
+ *
+ * Exercises conditions on the 'caught' exception filter end-to-end:
+ * - An exception class term stops on that type only
+ * - `!caughtIn:` drops throws caught in matching classes before `stopped`
+ * - `once` stops on the first throw at a site only; `exceptionSummary`
+ *   counts the later throws there as suppressed
+ *
+ * The MCP tools do not expose exception filter conditions, so these tests
+ * drive the bridge directly over DAP (see java-bridge-utils.ts).
+ *
+ * Fixture: examples/java/ExceptionFilterTest.java (line layout asserted
+ * here — five IllegalStateExceptions thrown at line 25, an
+ * IllegalArgumentException thrown at line 13 and caught in
+ * ExceptionFilterTest$Quiet, another thrown at line 32 and caught in main).
+ *
+ * Skips gracefully when JDK is not installed.
+ */
+
+import { describe, it, expect, afterEach } from 'vitest';
+import { execSync } from 'child_process';
+import type { DebugProtocol } from '@vscode/debugprotocol';
+import { prepareJavaExample } from './java-example-utils.js';
+import {
+  startJavaBridge,
+  launchJavaExample,
+  collectStops,
+  topFrame,
+  type JavaBridgeSession
+} from './java-bridge-utils.js';
+
+const QUIET_THROW_LINE = 13;
+const HOT_THROW_LINE = 25;
+const MAIN_THROW_LINE = 32;
+
+interface ThrowSiteSummary {
+  exceptionType: string;
+  location: string;
+  thrown: number;
+  stopped: number;
+  suppressed: number;
+}
+
+function hasJdk(): boolean {
+  try {
+    execSync('java -version', { stdio: 'ignore' });
+    execSync('javac -version', { stdio: 'ignore' });
+    return true;
+  } catch {
+    return false;
+  }
+}
+
+describe('JDI Bridge Java Exception Filters @requires-java', () => {
+  let session: JavaBridgeSession | null = null;
+
+  afterEach(async () => {
+    if (session) {
+      await session.close();
+      session = null;
+    }
+  });
+
+  async function startWithCaughtCondition(
+    condition: string,
+    breakpoints: DebugProtocol.SourceBreakpoint[] = []
+  ): Promise<void> {
+    session = await startJavaBridge();
+    const res = await session.client.request('setExceptionBreakpoints', {
+      filters: [],
+      filterOptions: [{ filterId: 'caught', condition }]
+    });
+    expect(res.success).toBe(true);
+    if (breakpoints.length > 0) {
+      const { sourcePath } = prepareJavaExample('ExceptionFilterTest');
+      await session.client.request('setBreakpoints', { source: { path: sourcePath }, breakpoints });
+    }
+    await launchJavaExample(session.client, 'ExceptionFilterTest');
+  }
+
+  /** "exceptionId at method:line" for each stop until the fixture ends. */
+  function exceptionStops(): Promise<string[]> {
+    const client = session!.client;
+    return collectStops(client, async (stopped) => {
+      expect(stopped.reason).toBe('exception');
+      const frame = await topFrame(client, stopped.threadId!);
+      const info = await client.request('exceptionInfo', {
+        threadId: stopped.threadId
+      }) as DebugProtocol.ExceptionInfoResponse;
+      return `${info.body.exceptionId} at ${frame.name}:${frame.line}`;
+    });
+  }
+
+  it('stops only on the listed exception class', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Exception Filters] Skipping — JDK not installed');
+      return;
+    }
+    await startWithCaughtCondition('java.lang.IllegalArgumentException');
+
+    // The hot IllegalStateExceptions never stop
+    expect(await exceptionStops()).toEqual([
+      `java.lang.IllegalArgumentException at ExceptionFilterTest$Quiet.swallow:${QUIET_THROW_LINE}`,
+      `java.lang.IllegalArgumentException at ExceptionFilterTest.main:${MAIN_THROW_LINE}`
+    ]);
+  }, 60000);
+
+  it('drops throws caught in classes matched by !caughtIn:', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Exception Filters] Skipping — JDK not installed');
+      return;
+    }
+    await startWithCaughtCondition('java.lang.IllegalArgumentException,!caughtIn:ExceptionFilterTest$Quiet');
+
+    expect(await exceptionStops()).toEqual([
+      `java.lang.IllegalArgumentException at ExceptionFilterTest.main:${MAIN_THROW_LINE}`
+    ]);
+  }, 60000);
+
+  it('stops once per throw site and counts the rest in exceptionSummary', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Exception Filters] Skipping — JDK not installed');
+      return;
+    }
+    // The line breakpoint parks the VM after the hot loop, so the summary
+    // is read while the target is still alive
+    await startWithCaughtCondition('java.lang.IllegalStateException,once', [{ line: MAIN_THROW_LINE }]);
+    const client = session!.client;
+
+    const stops = await collectStops(client, async (stopped) => {
+      const res = await client.request('exceptionSummary');
+      expect(res.success).toBe(true);
+      const sites = (res.body as { sites: ThrowSiteSummary[] }).sites;
+      return { reason: stopped.reason, description: stopped.description, sites };
+    });
+
+    expect(stops.map(s => s.reason)).toEqual(['exception', 'breakpoint']);
+    expect(stops[0].description).toBe('java.lang.IllegalStateException: hot 0');
+    const site = {
+      exceptionType: 'java.lang.IllegalStateException',
+      location: `ExceptionFilterTest.main:${HOT_THROW_LINE}`
+    };
+    expect(stops[0].sites).toEqual([{ ...site, thrown: 1, stopped: 1, suppressed: 0 }]);
+    expect(stops[1].sites).toEqual([{ ...site, thrown: 5, stopped: 1, suppressed: 4 }]);
+  }, 60000);
+});
@@ -0,0 +1,277 @@
+/**
+ * Java Logpoint and Breakpoint-Id Smoke Tests via MCP Interface
+ *
+ * Exercises the JDI bridge's logpoint and incremental setBreakpoints support
+ * end-to-end:
+ * - A logpoint renders its {expressions} on every hit and never pauses
+ * - logpointRateLimit caps a hot logpoint: a notice replaces the overflow
+ * - Adding a breakpoint to a file keeps the adapter ids of the breakpoints
+ *   already there (the bridge diffs setBreakpoints instead of replacing)
+ *
+ * Fixture: examples/java/LogpointTest.java (line layout asserted here — the
+ * loop body is line 12 with i/total in scope, the "Total" print line 15, the
+ * hot loop body line 18, the last print line 20).
+ *
+ * Skips gracefully when JDK is not installed.
+ */
+
+import { describe, it, expect, beforeAll, afterAll, afterEach } from 'vitest';
+import path from 'path';
+import { fileURLToPath } from 'url';
+import { execSync } from 'child_process';
+import { Client } from '@modelcontextprotocol/sdk/client/index.js';
+import { StdioClientTransport } from '@modelcontextprotocol/sdk/client/stdio.js';
+import { parseSdkToolResult, callToolSafely } from './smoke-test-utils.js';
+import { prepareJavaExample } from './java-example-utils.js';
+
+const __filename = fileURLToPath(import.meta.url);
+const __dirname = path.dirname(__filename);
+const ROOT = path.resolve(__dirname, '../..');
+
+const LOOP_LINE = 12;
+const TOTAL_LINE = 15;
+const HOT_LINE = 18;
+const DONE_LINE = 20;
+
+interface BreakpointSnapshot {
+  id?: string;
+  line?: number;
+  verified?: boolean;
+  adapterId?: number;
+}
+
+function hasJdk(): boolean {
+  try {
+    execSync('java -version', { stdio: 'ignore' });
+    execSync('javac -version', { stdio: 'ignore' });
+    return true;
+  } catch {
+    return false;
+  }
+}
+
+describe('MCP Server Java Logpoints @requires-java', () => {
+  let mcpClient: Client | null = null;
+  let transport: StdioClientTransport | null = null;
+  let sessionId: string | null = null;
+
+  beforeAll(async () => {
+    transport = new StdioClientTransport({
+      command: process.execPath,
+      args: [path.join(ROOT, 'dist', 'index.js'), '--log-level', 'info'],
+      env: { ...process.env, NODE_ENV: 'test' }
+    });
+    mcpClient = new Client(
+      { name: 'java-logpoint-e2e', version: '1.0.0' },
+      { capabilities: {} }
+    );
+    await mcpClient.connect(transport);
+  }, 30000);
+
+  afterAll(async () => {
+    if (mcpClient) {
+      await mcpClient.close();
+    }
+    if (transport) {
+      await transport.close();
+    }
+  });
+
+  afterEach(async () => {
+    if (sessionId && mcpClient) {
+      try {
+        await callToolSafely(mcpClient, 'close_debug_session', { sessionId });
+      } catch {
+        // Session may already be closed
+      }
+      sessionId = null;
+    }
+  });
+
+  async function createSession(name: string): Promise<string> {
+    const createResponse = parseSdkToolResult(await mcpClient!.callTool({
+      name: 'create_debug_session',
+      arguments: { language: 'java', name }
+    }));
+    expect(createResponse.sessionId).toBeDefined();
+    sessionId = createResponse.sessionId as string;
+    return sessionId;
+  }
+
+  async function startFixture(sid: string, extraLaunchArgs: Record<string, unknown> = {}): Promise<void> {
+    const { sourcePath, classDir, mainClass } = prepareJavaExample('LogpointTest');
+    const startResponse = parseSdkToolResult(await mcpClient!.callTool({
+      name: 'start_debugging',
+      arguments: {
+        sessionId: sid,
+        scriptPath: sourcePath,
+        args: [],
+        dapLaunchArgs: { mainClass, classpath: classDir, cwd: classDir, stopOnEntry: false, ...extraLaunchArgs }
+      }
+    }));
+    expect(startResponse.success).toBe(true);
+  }
+
+  /** Poll until the session leaves the running state; a logpoint that pauses fails here. */
+  async function waitForState(sid: string, states: string[], timeoutMs = 30_000): Promise<string> {
+    const deadline = Date.now() + timeoutMs;
+    let lastState = 'unknown';
+    while (Date.now() < deadline) {
+      const res = await callToolSafely(mcpClient!, 'list_debug_sessions', {});
+      const sessions = (res as { sessions?: Array<{ id: string; state: string }> }).sessions ?? [];
+      const session = sessions.find(s => s.id === sid);
+      lastState = session?.state ?? 'gone';
+      if (session === undefined || states.includes(lastState)) {
+        return lastState;
+      }
+      await new Promise(r => setTimeout(r, 250));
+    }
+    throw new Error(`Timed out waiting for state in [${states.join(', ')}]; last state: ${lastState}`);
+  }
+
+  /** Poll for a paused state with non-empty stack frames. */
+  async function waitForPausedState(
+    sid: string,
+    maxAttempts = 40,
+    intervalMs = 500
+  ): Promise<{ stackFrames?: Array<{ file?: string; name?: string; line?: number }> } | null> {
+    for (let i = 0; i < maxAttempts; i++) {
+      const result = await callToolSafely(mcpClient!, 'get_stack_trace', { sessionId: sid });
+      if (result.stackFrames && (result.stackFrames as unknown[]).length > 0) {
+        return result as { stackFrames: Array<{ file?: string; name?: string; line?: number }> };
+      }
+      await new Promise(r => setTimeout(r, intervalMs));
+    }
+    return null;
+  }
+
+  async function getOutputLines(sid: string): Promise<string[]> {
+    const outRes = await callToolSafely(mcpClient!, 'get_output', { sessionId: sid, since: 0, limit: 1000 });
+    const entries = (outRes as { entries?: Array<{ output?: string }> }).entries ?? [];
+    return entries
+      .flatMap(e => (e.output ?? '').split('\n'))
+      .map(l => l.trim())
+      .filter(l => l.length > 0);
+  }
+
+  async function listBreakpoints(sid: string): Promise<BreakpointSnapshot[]> {
+    const listRes = await callToolSafely(mcpClient!, 'list_breakpoints', { sessionId: sid });
+    return (listRes as { breakpoints?: BreakpointSnapshot[] }).breakpoints ?? [];
+  }
+
+  it('renders a logpoint message on every hit without pausing', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Logpoint] Skipping — JDK not installed');
+      return;
+    }
+    const sid = await createSession('java-logpoint-render');
+    const { sourcePath } = prepareJavaExample('LogpointTest');
+
+    const bpRes = await callToolSafely(mcpClient!, 'set_breakpoint', {
+      sessionId: sid,
+      file: sourcePath,
+      line: LOOP_LINE,
+      logMessage: 'LP i={i} total={total}'
+    });
+    expect(bpRes.success).toBe(true);
+    expect((bpRes as { logMessage?: string }).logMessage).toBe('LP i={i} total={total}');
+
+    await startFixture(sid);
+
+    // If the logpoint wrongly paused execution, this times out at 'paused'.
+    const finalState = await waitForState(sid, ['stopped', 'terminated']);
+    expect(['stopped', 'terminated', 'gone']).toContain(finalState);
+
+    // Evaluated before the line runs: total is the sum of the earlier i's
+    const lines = (await getOutputLines(sid)).filter(l => l.startsWith('LP '));
+    expect(lines).toEqual([
+      'LP i=0 total=0',
+      'LP i=1 total=0',
+      'LP i=2 total=1',
+      'LP i=3 total=3',
+      'LP i=4 total=6'
+    ]);
+  }, 60000);
+
+  it('rate-limits a hot logpoint and reports the pause', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Logpoint] Skipping — JDK not installed');
+      return;
+    }
+    const sid = await createSession('java-logpoint-rate');
+    const { sourcePath } = prepareJavaExample('LogpointTest');
+
+    const bpRes = await callToolSafely(mcpClient!, 'set_breakpoint', {
+      sessionId: sid,
+      file: sourcePath,
+      line: HOT_LINE,
+      logMessage: 'HOT n={n}'
+    });
+    expect(bpRes.success).toBe(true);
+
+    await startFixture(sid, { logpointRateLimit: 10 });
+
+    const finalState = await waitForState(sid, ['stopped', 'terminated']);
+    expect(['stopped', 'terminated', 'gone']).toContain(finalState);
+
+    const lines = await getOutputLines(sid);
+    const logged = lines.filter(l => l.startsWith('HOT n='));
+    const notices = lines.filter(l => l.startsWith('[logpoint'));
+    // A burst of up to the limit, then the loop finishes while paused
+    expect(logged.length).toBeGreaterThan(0);
+    expect(logged.length).toBeLessThan(2000);
+    expect(logged[0]).toBe('HOT n=0');
+    expect(notices.length).toBeGreaterThanOrEqual(1);
+    expect(notices[0]).toContain('more than 10 messages/s');
+    // The program still ran every iteration
+    expect(lines.some(l => l.startsWith('Hot: 1999000'))).toBe(true);
+  }, 60000);
+
+  it('keeps adapter ids stable when another breakpoint is added to the file', async () => {
+    if (!hasJdk()) {
+      console.log('[Java Logpoint] Skipping — JDK not installed');
+      return;
+    }
+    const sid = await createSession('java-breakpoint-ids');
+    const { sourcePath } = prepareJavaExample('LogpointTest');
+
+    const firstRes = await callToolSafely(mcpClient!, 'set_breakpoint', {
+      sessionId: sid,
+      file: sourcePath,
+      line: TOTAL_LINE
+    });
+    expect(firstRes.success).toBe(true);
+
+    await startFixture(sid);
+
+    const parked = await waitForPausedState(sid);
+    expect(parked).not.toBeNull();
+    expect(parked!.stackFrames![0].line).toBe(TOTAL_LINE);
+
+    const before = (await listBreakpoints(sid)).find(bp => bp.line === TOTAL_LINE);
+    expect(before?.verified).toBe(true);
+    expect(before?.adapterId).toBeDefined();
+
+    // Re-sends the whole file to the bridge; the existing line must keep its id
+    const secondRes = await callToolSafely(mcpClient!, 'set_breakpoint', {
+      sessionId: sid,
+      file: sourcePath,
+      line: DONE_LINE
+    });
+    expect(secondRes.success).toBe(true);
+
+    const after = await listBreakpoints(sid);
+    const kept = after.find(bp => bp.line === TOTAL_LINE);
+    const added = after.find(bp => bp.line === DONE_LINE);
+    expect(kept?.adapterId).toBe(before!.adapterId);
+    expect(added?.verified).toBe(true);
+    expect(added?.adapterId).toBeDefined();
+    expect(added?.adapterId).not.toBe(before!.adapterId);
+
+    await callToolSafely(mcpClient!, 'continue_execution', { sessionId: sid });
+    const next = await waitForPausedState(sid);
+    expect(next).not.toBeNull();
+    expect(next!.stackFrames![0].line).toBe(DONE_LINE);
+    await callToolSafely(mcpClient!, 'continue_execution', { sessionId: sid });
+  }, 60000);
+});
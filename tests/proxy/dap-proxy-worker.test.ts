@@ -623,6 +623,49 @@ describe('DapProxyWorker', () => {
       ]);
     });
 
+    it('sends initial breakpoints for several files in one bulk request when the adapter supports it', async () => {
+      const connectionStub = {
+        setBreakpoints: vi.fn().mockResolvedValue({ body: { breakpoints: [] } }),
+        setBreakpointsBulk: vi.fn().mockResolvedValue({ body: { sources: [] } }),
+        sendConfigurationDone: vi.fn().mockResolvedValue(undefined),
+        setupEventHandlers: vi.fn()
+      };
+
+      (worker as any).logger = mockLogger;
+      (worker as any).dapClient = mockDapClient;
+      (worker as any).connectionManager = connectionStub;
+      (worker as any).adapterPolicy = DefaultAdapterPolicy;
+      (worker as any).adapterState = DefaultAdapterPolicy.createInitialState();
+      (worker as any).adapterCapabilities = { supportsBreakpointsBulk: true };
+      (worker as any).currentSessionId = 'bulk-session';
+      (worker as any).currentInitPayload = {
+        cmd: 'init',
+        sessionId: 'bulk-session',
+        executablePath: 'java',
+        adapterHost: 'localhost',
+        adapterPort: 5678,
+        logDir: '/tmp/logs',
+        scriptPath: '/work/App.java',
+        initialBreakpoints: [
+          { file: '/work/App.java', line: 5 },
+          { file: '/work/Util.java', line: 9, condition: 'n > 2' },
+          { file: '/work/App.java', line: 7 }
+        ]
+      };
+
+      await (worker as any).handleInitializedEvent();
+
+      expect(connectionStub.setBreakpoints).not.toHaveBeenCalled();
+      expect(connectionStub.setBreakpointsBulk).toHaveBeenCalledTimes(1);
+      const [, files] = connectionStub.setBreakpointsBulk.mock.calls[0];
+      expect(Array.from(files.keys())).toEqual([path.resolve('/work/App.java'), path.resolve('/work/Util.java')]);
+      expect(files.get(path.resolve('/work/App.java'))).toEqual([
+        expect.objectContaining({ line: 5 }),
+        expect.objectContaining({ line: 7 })
+      ]);
+      expect(connectionStub.sendConfigurationDone).toHaveBeenCalledTimes(1);
+    });
+
     it('sends initial function breakpoints before configurationDone (issue #271 phase 3)', async () => {
       const callOrder: string[] = [];
       const connectionStub = {
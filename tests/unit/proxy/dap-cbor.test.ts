@@ -0,0 +1,74 @@
+/**
+ * CBOR body decoding (negotiated via setWireFormat with the Java bridge) and
+ * its per-frame detection inside DapFrameDecoder.
+ */
+import { describe, it, expect } from 'vitest';
+import { decodeCbor, isCborBody } from '../../../src/proxy/dap-cbor.js';
+import { DapFrameDecoder, encodeDapMessage } from '../../../src/proxy/dap-framing.js';
+import type { DebugProtocol } from '@vscode/debugprotocol';
+
+function frame(body: Buffer): Buffer {
+  return Buffer.concat([Buffer.from(`Content-Length: ${body.length}\r\n\r\n`, 'ascii'), body]);
+}
+
+// {"seq": 1, "type": "event", "event": "output", "body": {"output": "hé"}}
+// written the way the bridge writes it: indefinite-length maps
+const OUTPUT_EVENT = Buffer.from([
+  0xbf,
+  0x63, 0x73, 0x65, 0x71, 0x01,
+  0x64, 0x74, 0x79, 0x70, 0x65, 0x65, 0x65, 0x76, 0x65, 0x6e, 0x74,
+  0x65, 0x65, 0x76, 0x65, 0x6e, 0x74, 0x66, 0x6f, 0x75, 0x74, 0x70, 0x75, 0x74,
+  0x64, 0x62, 0x6f, 0x64, 0x79,
+  0xbf, 0x66, 0x6f, 0x75, 0x74, 0x70, 0x75, 0x74, 0x63, 0x68, 0xc3, 0xa9, 0xff,
+  0xff
+]);
+
+describe('decodeCbor', () => {
+  it('decodes the scalar types DAP uses', () => {
+    expect(decodeCbor(Buffer.from([0x17]))).toBe(23);
+    expect(decodeCbor(Buffer.from([0x19, 0x01, 0x00]))).toBe(256);
+    expect(decodeCbor(Buffer.from([0x38, 0x63]))).toBe(-100);
+    expect(decodeCbor(Buffer.from([0xf5]))).toBe(true);
+    expect(decodeCbor(Buffer.from([0xf4]))).toBe(false);
+    expect(decodeCbor(Buffer.from([0xf6]))).toBeNull();
+    expect(decodeCbor(Buffer.from([0xfb, 0x3f, 0xf8, 0, 0, 0, 0, 0, 0]))).toBe(1.5);
+    expect(decodeCbor(Buffer.from([0xf9, 0x3c, 0x00]))).toBe(1);
+  });
+
+  it('decodes definite and indefinite containers', () => {
+    expect(decodeCbor(Buffer.from([0x82, 0x01, 0x02]))).toEqual([1, 2]);
+    expect(decodeCbor(Buffer.from([0x9f, 0x01, 0x02, 0xff]))).toEqual([1, 2]);
+    expect(decodeCbor(Buffer.from([0xa1, 0x61, 0x61, 0x80]))).toEqual({ a: [] });
+    expect(decodeCbor(OUTPUT_EVENT)).toEqual({
+      seq: 1,
+      type: 'event',
+      event: 'output',
+      body: { output: 'hé' }
+    });
+  });
+
+  it('rejects truncated input', () => {
+    expect(() => decodeCbor(OUTPUT_EVENT.subarray(0, OUTPUT_EVENT.length - 1))).toThrow(/Truncated/);
+    expect(() => decodeCbor(Buffer.from([0x19, 0x01]))).toThrow(/Truncated/);
+  });
+});
+
+describe('DapFrameDecoder with CBOR bodies', () => {
+  it('only treats map-typed first bytes as CBOR', () => {
+    expect(isCborBody(OUTPUT_EVENT)).toBe(true);
+    expect(isCborBody(Buffer.from('{"seq":1}'))).toBe(false);
+    expect(isCborBody(Buffer.from(' {"seq":1}'))).toBe(false);
+  });
+
+  it('decodes JSON and CBOR frames interleaved on one stream, across chunk splits', () => {
+    const json: DebugProtocol.Event = { seq: 2, type: 'event', event: 'stopped', body: { reason: 'step' } };
+    const stream = Buffer.concat([frame(OUTPUT_EVENT), encodeDapMessage(json), frame(OUTPUT_EVENT)]);
+    const decoder = new DapFrameDecoder();
+    const messages: DebugProtocol.ProtocolMessage[] = [];
+    for (let i = 0; i < stream.length; i += 7) {
+      messages.push(...decoder.push(stream.subarray(i, i + 7)));
+    }
+    expect(messages.map(m => (m as DebugProtocol.Event).event)).toEqual(['output', 'stopped', 'output']);
+    expect((messages[0] as DebugProtocol.Event).body).toEqual({ output: 'hé' });
+  });
+});
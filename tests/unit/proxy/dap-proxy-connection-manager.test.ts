@@ -800,6 +800,41 @@ describe('DapConnectionManager', () => {
     });
   });
 
+  describe('setBreakpointsBulk', () => {
+    it('sends every file in one request, in order', async () => {
+      const response = {
+        seq: 1,
+        type: 'response',
+        request_seq: 1,
+        command: 'setBreakpointsBulk',
+        success: true,
+        body: { sources: [] }
+      };
+      mockDapClient.sendRequest.mockResolvedValue(response);
+
+      const files = new Map([
+        ['/src/com/a/Foo.java', [{ line: 10 }, { line: 12, condition: 'x > 1' }]],
+        ['/src/com/b/Bar.java', [{ line: 3, logMessage: 'n={n}' }]]
+      ]);
+      const result = await connectionManager.setBreakpointsBulk(mockDapClient as any, files);
+
+      expect(mockDapClient.sendRequest).toHaveBeenCalledTimes(1);
+      expect(mockDapClient.sendRequest).toHaveBeenCalledWith('setBreakpointsBulk', {
+        sources: [
+          {
+            source: { path: '/src/com/a/Foo.java', name: 'Foo.java' },
+            breakpoints: [{ line: 10 }, { line: 12, condition: 'x > 1' }]
+          },
+          {
+            source: { path: '/src/com/b/Bar.java', name: 'Bar.java' },
+            breakpoints: [{ line: 3, logMessage: 'n={n}' }]
+          }
+        ]
+      });
+      expect(result).toBe(response);
+    });
+  });
+
   describe('sendConfigurationDone', () => {
     it('should send configurationDone request', async () => {
       mockDapClient.sendRequest.mockResolvedValue(undefined);